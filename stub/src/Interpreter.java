@@ -20,7 +20,10 @@ import java.io.FileNotFoundException;
 import java.util.Scanner;
 
 import ast.EvaluationException;
+import ast.EvaluationMode;
 import ast.SyntaxTree;
+import ast.opt.PassManager;
+import ast.opt.PassStatistics;
 import ast.typesystem.TypeException;
 import environment.Environment;
 import environment.TypeEnvironment;
@@ -43,6 +46,9 @@ public class Interpreter
     private static boolean doFile = false;       // Run program in the file.
     private static String fileName = null;       // File containing the program.
     private static boolean displayAST = false;   // Display the AST resulting from parsing.
+    private static EvaluationMode mode = EvaluationMode.TREE; // How to evaluate.
+    private static int optLevel = PassManager.MAX_LEVEL; // How much to optimize.
+    private static boolean showOptStats = false; // Show optimization statistics.
 
     /**
      * Show the license message to the screen.
@@ -62,17 +68,65 @@ public class Interpreter
     public static void usage()
     {
         System.err.println("usage:");
-        System.err.println("   mfl [--trace] [--ast] --file <filename>");
-        System.err.println("   mfl [--trace] [--ast]");
+        System.err.println("   mfl [--trace] [--ast] [<mode>] [--opt <level>] "
+                + "[--opt-stats] --file <filename>");
+        System.err.println("   mfl [--trace] [--ast] [<mode>] [--opt <level>] "
+                + "[--opt-stats]");
         System.err.println("   mfl --help");
+        System.err.println("modes:");
+        System.err.println("   --vm | --lazy | --parallel | --iterative | --tiered");
         System.err.println("options:");
         System.err.println("--trace, -t \t\tTurn on interpreter tracing.");
         System.err.println("--file, -f \t\tInterpret the file.");
         System.err.println("--ast,-a \t\tDisplay the abstract syntax tree.");
+        System.err.println("--vm, -v \t\tRun the program on the bytecode VM.");
+        System.err.println("--lazy, -l \t\tEvaluate bindings only when used.");
+        System.err.println("--parallel, -p \tEvaluate large subexpressions in parallel.");
+        System.err.println("--iterative, -i \tEvaluate without recursion.");
+        System.err.println("--tiered, -j \t\tCompile programs once they are hot.");
+        System.err.println("--opt, -O <level> \tOptimize at level 0, 1 or 2 "
+                + "(default 2).");
+        System.err.println("--opt-stats, -s \tShow the time and changes of "
+                + "each optimization pass.");
         System.err.println("--help, -h \t\tDisplay this message");
         System.exit(1);
     }
 
+    /**
+     * Displays an optimized syntax tree along with what optimization
+     * removed.
+     * 
+     * @param ast the syntax tree.
+     */
+    private static void printTree(SyntaxTree ast)
+    {
+        ast.printTree();
+        if (ast.getRemovedNodeCount() > 0)
+            System.out.println("(" + ast.getRemovedNodeCount()
+                    + " dead nodes removed)");
+    }
+
+    /**
+     * Optimizes a syntax tree, showing the statistics of each optimization
+     * pass if requested.
+     * 
+     * @param ast the syntax tree, which must type check.
+     */
+    private static void optimize(SyntaxTree ast)
+    {
+        ast.setOptimizationLevel(optLevel);
+        ast.optimize();
+        if (!showOptStats)
+            return;
+
+        PassManager passes = ast.getPassManager();
+        System.out.println(String.format("%-26s %4s %10s %8s", "pass", "runs",
+                "time (ms)", "changed"));
+        for (PassStatistics stats : passes.getStatistics())
+            System.out.println(stats);
+        System.out.println("(iterations: " + passes.getIterations() + ")");
+    }
+
     /**
      * Runs the interactive mode version of the interpreter.
      */
@@ -113,9 +167,7 @@ public class Interpreter
                     continue;
                 }
                 
-                if (displayAST)
-                    ast.printTree();
-
+                ast.setEvaluationMode(mode);
                 if (env != null)
                     ast.setEnvironment(env);
                     
@@ -124,6 +176,9 @@ public class Interpreter
                 try
                 {
                     String type = ast.getType();
+                    optimize(ast);
+                    if (displayAST)
+                        printTree(ast);
                     Object res = ast.evaluate();
                     System.out.println(res + " : " + type);
 
@@ -138,6 +193,8 @@ public class Interpreter
                 }
                 catch (TypeException tex)
                 {
+                    if (displayAST)
+                        ast.printTree();
                     System.out.println("Type Error " + tex.getMessage());
                 }
             }       
@@ -171,15 +228,25 @@ public class Interpreter
                 return;
             }
            
-            if (displayAST)
-                ast.printTree();
-
+            ast.setEvaluationMode(mode);
             try
             {
                 if (!ast.typeCheck())
+                {
+                    if (displayAST)
+                        ast.printTree();
                     System.exit(1);
+                }
+
+                // The type is taken before folding, which can lose the
+                // element type of an empty list.
+                String type = ast.getType();
+                ast.setRetainGlobals(false);
+                optimize(ast);
+                if (displayAST)
+                    printTree(ast);
                 Object res = ast.evaluate();
-                System.out.println(res + " : " + ast.getType());
+                System.out.println(res + " : " + type);
             }
             catch (EvaluationException ex)
             {
@@ -208,17 +275,24 @@ public class Interpreter
     {
         OptionParser parser;
 
-        LongOption[] opts = new LongOption[4];
+        LongOption[] opts = new LongOption[11];
         opts[0] = new LongOption("help", false, 'h');
         opts[1] = new LongOption("file", true, 'f');
         opts[2] = new LongOption("trace", false, 't');
         opts[3] = new LongOption("ast", false, 'a');
+        opts[4] = new LongOption("vm", false, 'v');
+        opts[5] = new LongOption("lazy", false, 'l');
+        opts[6] = new LongOption("parallel", false, 'p');
+        opts[7] = new LongOption("iterative", false, 'i');
+        opts[8] = new LongOption("tiered", false, 'j');
+        opts[9] = new LongOption("opt", true, 'O');
+        opts[10] = new LongOption("opt-stats", false, 's');
 
         Tuple<Character, String> currOpt;
 
         parser = new OptionParser(args);
         parser.setLongOpts(opts);
-        parser.setOptString("hf:ta");
+        parser.setOptString("hf:tavlpijO:s");
 
         while (parser.getOptIdx() != args.length)
         {
@@ -239,6 +313,36 @@ public class Interpreter
             case 'a':
                 displayAST = true;
                 break;
+            case 'v':
+                mode = EvaluationMode.BYTECODE;
+                break;
+            case 'l':
+                mode = EvaluationMode.LAZY;
+                break;
+            case 'p':
+                mode = EvaluationMode.PARALLEL;
+                break;
+            case 'i':
+                mode = EvaluationMode.ITERATIVE;
+                break;
+            case 'j':
+                mode = EvaluationMode.TIERED;
+                break;
+            case 'O':
+                try
+                {
+                    optLevel = Integer.parseInt(currOpt.getSecond());
+                }
+                catch (NumberFormatException ex)
+                {
+                    usage();
+                }
+                if (optLevel < 0 || optLevel > PassManager.MAX_LEVEL)
+                    usage();
+                break;
+            case 's':
+                showOptStats = true;
+                break;
             case '?':
                 usage();
                 break;
@@ -246,7 +350,9 @@ public class Interpreter
         }
 
         // Verify the options are not conflicting.
-        if (doFile && doHelp || doTracing && doHelp || displayAST && doHelp)
+        if (doFile && doHelp || doTracing && doHelp || displayAST && doHelp
+                || mode != EvaluationMode.TREE && doHelp
+                || showOptStats && doHelp)
             usage();
     }
 
@@ -259,7 +365,7 @@ public class Interpreter
     public static void main(String[] args)
     {
         // Determine if we are looking at file or command line.
-        if (args.length > 4)
+        if (args.length > 11)
             usage();
 
         // Determine what the user requested.
@@ -0,0 +1,145 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import ast.nodes.BinOpNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.SyntaxNode;
+
+/**
+ * Decides which parts of a syntax tree are worth evaluating in parallel.
+ * The cost of a subtree is estimated by the number of nodes in it, and work
+ * is only forked when every piece of the split costs at least the threshold,
+ * so small expressions are never burdened with the overhead of a task.
+ * <p>
+ * The operands of a binary operation are forked when both are expensive. The
+ * elements of a list are split into chunks of roughly the threshold cost and
+ * the chunks are evaluated concurrently. The top-level statements of a
+ * program are scheduled by their {@link DependencyGraph}, which must be
+ * built after the tree is resolved.
+ */
+public class CostModel
+{
+    /**
+     * The default minimum cost, in nodes, of a forked piece of work.
+     */
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private int threshold;  // The minimum cost of a forked piece of work.
+
+    /**
+     * Constructs a cost model that uses the default threshold.
+     */
+    public CostModel()
+    {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a cost model that only forks work costing at least
+     * {@code threshold} nodes.
+     * 
+     * @param threshold the minimum cost of a forked piece of work.
+     */
+    public CostModel(int threshold)
+    {
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Marks the nodes of the tree rooted at {@code root} that should fork
+     * their subexpressions.
+     * 
+     * @param root the root of the tree.
+     */
+    public void annotate(SyntaxNode root)
+    {
+        IdentityHashMap<SyntaxNode, Integer> sizes = new IdentityHashMap<>();
+        ArrayList<SyntaxNode> order = new ArrayList<>();
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+
+        // Collect the nodes parents first, then size them children first.
+        if (root != null)
+            work.push(root);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            order.add(node);
+            for (SyntaxNode child : node.getChildren())
+                work.push(child);
+        }
+
+        for (int i = order.size() - 1; i >= 0; i--)
+        {
+            SyntaxNode node = order.get(i);
+            List<SyntaxNode> children = node.getChildren();
+            int size = 1;
+
+            for (SyntaxNode child : children)
+                size = saturatedAdd(size, sizes.get(child));
+            sizes.put(node, size);
+
+            if (node instanceof BinOpNode bin)
+                bin.setForkOperands(
+                        Math.min(sizes.get(bin.getLeftTerm()),
+                                sizes.get(bin.getRightTerm())) >= threshold);
+            else if (node instanceof ListNode list)
+                list.setGrain(grain(children.size(), size - 1));
+            else if (node instanceof ProgNode prog)
+            {
+                int[] costs = new int[children.size()];
+                for (int j = 0; j < costs.length; j++)
+                    costs[j] = sizes.get(children.get(j));
+                prog.setSchedule(new DependencyGraph(children, costs,
+                        threshold));
+            }
+        }
+    }
+
+    /**
+     * Computes the number of elements per parallel chunk of a list.
+     * 
+     * @param count the number of elements.
+     * @param cost  the cost of all of the elements.
+     * @return the number of elements per chunk or 0 if the list should be
+     *         evaluated sequentially.
+     */
+    private int grain(int count, int cost)
+    {
+        if (count < 2 || cost < 2L * threshold)
+            return 0;
+        return (int) Math.max(1, ((long) count * threshold + cost - 1) / cost);
+    }
+
+    /**
+     * Adds two costs without overflowing.
+     * 
+     * @param a the first cost.
+     * @param b the second cost.
+     * @return the sum, capped at the largest integer.
+     */
+    private static int saturatedAdd(int a, int b)
+    {
+        return (int) Math.min(Integer.MAX_VALUE, (long) a + b);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+import lexer.TokenType;
+
+/**
+ * The def-use graph of the top-level statements of a resolved program. A
+ * statement depends on an earlier statement if it reads a global the earlier
+ * one defines, if it defines a global the earlier one reads, or if both
+ * define the same global. Every statement is placed on a level one past the
+ * deepest statement it depends on, so the statements of a level are
+ * independent and may be executed concurrently.
+ * <p>
+ * Execution reproduces the sequential outcome exactly. The errors each
+ * statement shows are held until every statement has run and are then shown
+ * in program order. If a statement fails, every earlier statement is still
+ * executed, every forked statement is waited for, the definitions made by
+ * later statements are undone, the errors of later statements are dropped,
+ * and the failure of the earliest failing statement is reported, whether it
+ * is an evaluation failure or an unchecked exception.
+ */
+public class DependencyGraph
+{
+    private List<SyntaxNode> statements;        // The statements in order.
+    private List<List<Integer>> levels;         // The statements by level.
+    private boolean[] costly;                   // True if worth forking.
+
+    /**
+     * Builds the graph of the resolved {@code statements}.
+     * 
+     * @param statements the top-level statements of the program.
+     * @param costs      the estimated cost of each statement.
+     * @param threshold  the minimum cost of a forked statement.
+     */
+    public DependencyGraph(List<SyntaxNode> statements, int[] costs,
+            int threshold)
+    {
+        HashMap<Integer, Integer> defLevel = new HashMap<>();
+        HashMap<Integer, Integer> useLevel = new HashMap<>();
+
+        this.statements = new ArrayList<>(statements);
+        this.levels = new ArrayList<>();
+        this.costly = new boolean[costs.length];
+
+        for (int i = 0; i < this.statements.size(); i++)
+        {
+            SyntaxNode stmt = this.statements.get(i);
+            HashSet<Integer> uses = globalsRead(stmt);
+            int level = 0;
+
+            for (int slot : uses)
+                level = Math.max(level, defLevel.getOrDefault(slot, -1) + 1);
+
+            if (stmt instanceof ValNode val)
+            {
+                level = Math.max(level,
+                        defLevel.getOrDefault(val.getSlot(), -1) + 1);
+                level = Math.max(level,
+                        useLevel.getOrDefault(val.getSlot(), -1) + 1);
+                defLevel.put(val.getSlot(), level);
+            }
+            for (int slot : uses)
+                useLevel.merge(slot, level, Math::max);
+
+            while (levels.size() <= level)
+                levels.add(new ArrayList<>());
+            levels.get(level).add(i);
+            costly[i] = costs[i] >= threshold;
+        }
+    }
+
+    /**
+     * Gets the number of levels in the graph, the length of its critical
+     * path.
+     * 
+     * @return the number of levels.
+     */
+    public int getDepth()
+    {
+        return levels.size();
+    }
+
+    /**
+     * Executes the statements level by level, forking the costly statements
+     * of each level.
+     * 
+     * @param env the environment to execute the statements under.
+     * @return the value of the last statement.
+     * @throws EvaluationException if a statement fails.
+     * @throws RuntimeException    if a statement fails with an unchecked
+     *                             exception, such as division by zero.
+     */
+    public Object execute(Environment env) throws EvaluationException
+    {
+        Object[] results = new Object[statements.size()];
+        ParallelEvaluation[] tasks =
+                new ParallelEvaluation[statements.size()];
+        Exception failure = null;      // The earliest failure, if any.
+        int failed = statements.size();
+
+        for (List<Integer> level : levels)
+        {
+            boolean fork = level.size() > 1;
+
+            // Statements after a failure are not run, as in sequential
+            // execution.
+            for (int i : level)
+                if (i < failed && fork && costly[i])
+                    tasks[i] = ParallelEvaluation.fork(statements.get(i), env);
+
+            for (int i : level)
+                if (i < failed && !(fork && costly[i]))
+                {
+                    tasks[i] = ParallelEvaluation.run(statements.get(i), env);
+                    if (!tasks[i].isCompletedNormally())
+                        failed = i;
+                }
+
+            // The forked statements are all awaited, so none is left
+            // running.
+            for (int i : level)
+            {
+                if (tasks[i] == null)
+                    continue;
+                try
+                {
+                    results[i] = tasks[i].result()[0];
+                }
+                catch (EvaluationException | RuntimeException ex)
+                {
+                    if (i <= failed)
+                    {
+                        failure = ex;
+                        failed = i;
+                    }
+                }
+            }
+        }
+
+        // Show the errors of the statements sequential execution runs.
+        for (int i = 0; i < statements.size() && i <= failed; i++)
+            if (tasks[i] != null)
+                tasks[i].publish();
+
+        if (failure != null)
+        {
+            // Undo the definitions sequential execution would not reach.
+            for (int i = failed + 1; i < statements.size(); i++)
+                if (tasks[i] != null && tasks[i].isCompletedNormally()
+                        && statements.get(i) instanceof ValNode val)
+                    env.setGlobal(val.getSlot(), null);
+            if (failure instanceof EvaluationException evalEx)
+                throw evalEx;
+            throw (RuntimeException) failure;
+        }
+
+        return results.length == 0 ? null : results[results.length - 1];
+    }
+
+    /**
+     * Finds the global slots read by a statement.
+     * 
+     * @param stmt the statement.
+     * @return the set of global slots.
+     */
+    private static HashSet<Integer> globalsRead(SyntaxNode stmt)
+    {
+        HashSet<Integer> slots = new HashSet<>();
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+
+        work.push(stmt);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            if (node instanceof TokenNode tok)
+            {
+                if (tok.getToken().getType() == TokenType.ID && tok.isGlobal())
+                    slots.add(tok.getSlot());
+            }
+            else
+                for (SyntaxNode child : node.getChildren())
+                    work.push(child);
+        }
+        return slots;
+    }
+}
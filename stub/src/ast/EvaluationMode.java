@@ -0,0 +1,57 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+/**
+ * An enumeration of the strategies that can be used to evaluate a syntax
+ * tree.
+ */
+public enum EvaluationMode {
+    /**
+     * Recursively walk the syntax tree calling {@code evaluate} on each node.
+     */
+    TREE,
+
+    /**
+     * Compile the syntax tree to bytecode and run it on the virtual machine.
+     */
+    BYTECODE,
+
+    /**
+     * Walk the syntax tree binding let and val names to thunks that are only
+     * evaluated when the name is first used (call-by-need).
+     */
+    LAZY,
+
+    /**
+     * Walk the syntax tree evaluating costly independent subexpressions in
+     * parallel on a fork/join pool.
+     */
+    PARALLEL,
+
+    /**
+     * Walk the syntax tree with an explicit continuation stack, so the depth
+     * of the tree is not limited by the Java stack.
+     */
+    ITERATIVE,
+
+    /**
+     * Walk the syntax tree until it has been evaluated often enough to be
+     * worth compiling, then run the bytecode compiled in the background.
+     */
+    TIERED
+}
@@ -0,0 +1,238 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.RangeNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.UnaryOpNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+
+/**
+ * Evaluates a syntax tree without recursion. The evaluator is a CEK-style
+ * machine: the control is the step being executed, each step carries its
+ * environment, and the continuation is an explicit stack of pending steps on
+ * the heap. The values of evaluated subexpressions are kept on a separate
+ * value stack until the node that needs them is applied.
+ * <p>
+ * The operations themselves are performed by the nodes, so the machine
+ * produces the same values and errors as {@link SyntaxNode#evaluate}, but
+ * the depth of the tree is limited only by the heap. Nodes the machine does
+ * not know are evaluated recursively.
+ */
+public class IterativeEvaluator
+{
+    // What a step of the machine does.
+    private static final int EVAL = 0;    // Evaluate the node.
+    private static final int APPLY = 1;   // Apply the node to its operands.
+    private static final int BIND = 2;    // Bind a let and run its body.
+    private static final int UNBIND = 3;  // Release the binding of a let.
+
+    /**
+     * A pending step of the machine.
+     */
+    private static final class Step
+    {
+        final int action;
+        final SyntaxNode node;
+        final Environment env;
+
+        Step(int action, SyntaxNode node, Environment env)
+        {
+            this.action = action;
+            this.node = node;
+            this.env = env;
+        }
+    }
+
+    private ArrayDeque<Step> kont;      // The continuation.
+    private ArrayList<Object> values;   // The evaluated operands.
+
+    /**
+     * Constructs a new evaluator.
+     */
+    public IterativeEvaluator()
+    {
+        this.kont = new ArrayDeque<>();
+        this.values = new ArrayList<>();
+    }
+
+    /**
+     * Evaluates the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @param env  the environment to evaluate the tree under.
+     * @return the value of the tree.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    public Object evaluate(SyntaxNode root, Environment env)
+            throws EvaluationException
+    {
+        kont.clear();
+        values.clear();
+        kont.push(new Step(EVAL, root, env));
+
+        while (!kont.isEmpty())
+        {
+            Step step = kont.pop();
+            switch (step.action)
+            {
+            case EVAL:
+                eval(step.node, step.env);
+                break;
+            case APPLY:
+                apply(step.node, step.env);
+                break;
+            case BIND:
+                LetNode let = (LetNode) step.node;
+                kont.push(new Step(UNBIND, let, step.env));
+                kont.push(new Step(EVAL, let.getExpr(),
+                        let.bind(step.env, pop())));
+                break;
+            case UNBIND:
+                ((LetNode) step.node).unbind(step.env);
+                break;
+            }
+        }
+        return pop();
+    }
+
+    /**
+     * Starts evaluating a node by scheduling its subexpressions, in
+     * evaluation order, followed by the node itself.
+     * 
+     * @param node the node to evaluate.
+     * @param env  the environment to evaluate the node under.
+     * @throws EvaluationException if the evaluation of a leaf fails.
+     */
+    private void eval(SyntaxNode node, Environment env)
+            throws EvaluationException
+    {
+        if (node instanceof LetNode let && !env.isLazy())
+        {
+            kont.push(new Step(BIND, let, env));
+            kont.push(new Step(EVAL, let.getVarExpr(), env));
+        }
+        else if (node instanceof BinOpNode || node instanceof RelOpNode
+                || node instanceof UnaryOpNode || node instanceof HeadNode
+                || node instanceof TailNode || node instanceof LenNode
+                || node instanceof ListNode list && !list.isLiteral()
+                || node instanceof ListAccessNode
+                || node instanceof RangeNode || node instanceof BuiltinNode
+                || node instanceof ProgNode
+                || node instanceof ValNode && !env.isLazy())
+        {
+            List<SyntaxNode> children = node.getChildren();
+            kont.push(new Step(APPLY, node, env));
+            for (int i = children.size() - 1; i >= 0; i--)
+                kont.push(new Step(EVAL, children.get(i), env));
+        }
+        else
+            values.add(node.evaluate(env));
+    }
+
+    /**
+     * Applies a node to the values of its subexpressions.
+     * 
+     * @param node the node to apply.
+     * @param env  the environment the node is evaluated under.
+     * @throws EvaluationException if the operation fails.
+     */
+    private void apply(SyntaxNode node, Environment env)
+            throws EvaluationException
+    {
+        Object result;
+
+        if (node instanceof BinOpNode bin)
+        {
+            Object rval = pop();
+            result = bin.apply(pop(), rval);
+        }
+        else if (node instanceof RelOpNode rel)
+        {
+            Object rval = pop();
+            result = rel.apply(pop(), rval);
+        }
+        else if (node instanceof UnaryOpNode unary)
+            result = unary.apply(pop());
+        else if (node instanceof HeadNode head)
+            result = head.apply(pop());
+        else if (node instanceof TailNode tail)
+            result = tail.apply(pop());
+        else if (node instanceof LenNode len)
+            result = len.apply(pop());
+        else if (node instanceof ValNode val)
+            result = val.define(env, pop());
+        else
+        {
+            // A list, list access, range, built-in call or program consumes
+            // the values of all its children.
+            List<Object> operands = pop(node.getChildren().size());
+            if (node instanceof ListNode list)
+                result = list.build(operands);
+            else if (node instanceof RangeNode range)
+                result = range.build(operands);
+            else if (node instanceof BuiltinNode builtin)
+                result = builtin.apply(operands);
+            else if (node instanceof ListAccessNode access)
+                result = access.getAccess().apply(operands);
+            else
+                result = operands.isEmpty() ? null
+                        : operands.get(operands.size() - 1);
+        }
+        values.add(result);
+    }
+
+    /**
+     * Pops the top value.
+     * 
+     * @return the value.
+     */
+    private Object pop()
+    {
+        return values.remove(values.size() - 1);
+    }
+
+    /**
+     * Pops the top {@code count} values.
+     * 
+     * @param count the number of values.
+     * @return the values in the order they were pushed.
+     */
+    private List<Object> pop(int count)
+    {
+        List<Object> top = values.subList(values.size() - count,
+                values.size());
+        List<Object> operands = new ArrayList<>(top);
+        top.clear();
+        return operands;
+    }
+}
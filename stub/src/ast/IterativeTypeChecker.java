@@ -0,0 +1,218 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.nodes.BinOpNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.UnaryOpNode;
+import ast.typesystem.TypeException;
+import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.Type;
+import environment.TypeEnvironment;
+
+/**
+ * Infers the type of a syntax tree without recursion. Like the
+ * {@link IterativeEvaluator}, the checker keeps the pending steps on an
+ * explicit stack on the heap, each step carrying its type environment, and
+ * keeps the types of checked subexpressions on a separate stack until the
+ * node that needs them is typed.
+ * <p>
+ * The typing rules themselves are applied by the nodes, in the same order as
+ * the recursive rules, so the checker infers the same types and reports the
+ * same errors. Nodes the checker does not know are typed recursively.
+ */
+public class IterativeTypeChecker
+{
+    // What a step of the checker does.
+    private static final int CHECK = 0;   // Check the node.
+    private static final int APPLY = 1;   // Type the node from its operands.
+    private static final int BIND = 2;    // Bind a let and check its body.
+    private static final int ELEMENT = 3; // Unify a list element with the first.
+
+    /**
+     * A pending step of the checker.
+     */
+    private static final class Step
+    {
+        final int action;
+        final SyntaxNode node;
+        final TypeEnvironment tenv;
+
+        Step(int action, SyntaxNode node, TypeEnvironment tenv)
+        {
+            this.action = action;
+            this.node = node;
+            this.tenv = tenv;
+        }
+    }
+
+    private ArrayDeque<Step> kont;  // The pending steps.
+    private ArrayList<Type> types;  // The types of the checked operands.
+
+    /**
+     * Constructs a new type checker.
+     */
+    public IterativeTypeChecker()
+    {
+        this.kont = new ArrayDeque<>();
+        this.types = new ArrayList<>();
+    }
+
+    /**
+     * Determines the type of the tree rooted at {@code root}.
+     * 
+     * @param root       the root of the tree.
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer.
+     * @return the type of the tree.
+     * @throws TypeException if there is a type error.
+     */
+    public Type typeOf(SyntaxNode root, TypeEnvironment tenv,
+            Inferencer inferencer) throws TypeException
+    {
+        kont.clear();
+        types.clear();
+        kont.push(new Step(CHECK, root, tenv));
+
+        while (!kont.isEmpty())
+        {
+            Step step = kont.pop();
+            switch (step.action)
+            {
+            case CHECK:
+                check(step.node, step.tenv, inferencer);
+                break;
+            case APPLY:
+                apply(step.node, step.tenv, inferencer);
+                break;
+            case BIND:
+                LetNode let = (LetNode) step.node;
+                kont.push(new Step(APPLY, let, step.tenv));
+                kont.push(new Step(CHECK, let.getExpr(),
+                        let.bind(step.tenv, inferencer, pop())));
+                break;
+            case ELEMENT:
+                Type nodeType = pop();
+                ((ListNode) step.node).unifyElement(
+                        types.get(types.size() - 1), nodeType, inferencer);
+                break;
+            }
+        }
+        return pop();
+    }
+
+    /**
+     * Starts checking a node by scheduling its subexpressions, in the order
+     * they are typed, followed by the node itself.
+     * 
+     * @param node       the node to check.
+     * @param tenv       the type environment to check the node under.
+     * @param inferencer the type inferencer.
+     * @throws TypeException if typing a leaf fails.
+     */
+    private void check(SyntaxNode node, TypeEnvironment tenv,
+            Inferencer inferencer) throws TypeException
+    {
+        if (node instanceof LetNode let)
+        {
+            kont.push(new Step(BIND, let, tenv));
+            kont.push(new Step(CHECK, let.getVarExpr(), tenv));
+        }
+        else if (node instanceof ListNode && !node.getChildren().isEmpty())
+        {
+            // Each element after the first is unified with the first as
+            // soon as it is typed.
+            List<SyntaxNode> elems = node.getChildren();
+            kont.push(new Step(APPLY, node, tenv));
+            for (int i = elems.size() - 1; i > 0; i--)
+            {
+                kont.push(new Step(ELEMENT, node, tenv));
+                kont.push(new Step(CHECK, elems.get(i), tenv));
+            }
+            kont.push(new Step(CHECK, elems.get(0), tenv));
+        }
+        else if (node instanceof BinOpNode || node instanceof RelOpNode
+                || node instanceof UnaryOpNode || node instanceof HeadNode
+                || node instanceof TailNode || node instanceof LenNode)
+        {
+            List<SyntaxNode> children = node.getChildren();
+            kont.push(new Step(APPLY, node, tenv));
+            for (int i = children.size() - 1; i >= 0; i--)
+                kont.push(new Step(CHECK, children.get(i), tenv));
+        }
+        else
+            types.add(node.typeOf(tenv, inferencer));
+    }
+
+    /**
+     * Types a node from the types of its subexpressions.
+     * 
+     * @param node       the node to type.
+     * @param tenv       the type environment the node is checked under.
+     * @param inferencer the type inferencer.
+     * @throws TypeException if there is a type error.
+     */
+    private void apply(SyntaxNode node, TypeEnvironment tenv,
+            Inferencer inferencer) throws TypeException
+    {
+        Type result;
+
+        if (node instanceof BinOpNode bin)
+        {
+            Type rightType = pop();
+            result = bin.typeOf(pop(), rightType, tenv, inferencer);
+        }
+        else if (node instanceof RelOpNode rel)
+        {
+            Type rightType = pop();
+            result = rel.typeOf(pop(), rightType, tenv, inferencer);
+        }
+        else if (node instanceof UnaryOpNode unary)
+            result = unary.typeOf(pop(), tenv, inferencer);
+        else if (node instanceof HeadNode head)
+            result = head.typeOf(pop(), tenv, inferencer);
+        else if (node instanceof TailNode tail)
+            result = tail.typeOf(pop(), tenv, inferencer);
+        else if (node instanceof LenNode len)
+            result = len.typeOf(pop(), tenv, inferencer);
+        else if (node instanceof LetNode let)
+            result = let.typeOf(pop(), inferencer);
+        else
+            result = ((ListNode) node).typeOf(pop(), inferencer);
+        types.add(result);
+    }
+
+    /**
+     * Pops the top type.
+     * 
+     * @return the type.
+     */
+    private Type pop()
+    {
+        return types.remove(types.size() - 1);
+    }
+}
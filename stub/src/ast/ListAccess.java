@@ -0,0 +1,188 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ast.lists.ConsList;
+import ast.lists.ListValue;
+import lexer.TokenType;
+
+/**
+ * A fused chain of {@code hd}, {@code tl}, {@code len} and {@code ++}
+ * operations. The chain concatenates a number of segments, each the tail
+ * of some list with a number of leading elements dropped, drops more
+ * elements from the front of the concatenation and then takes its head,
+ * its length or the list itself.
+ * <p>
+ * The result is computed by indexing into the original lists, so none of
+ * the intermediate lists of the chain are built, and a chain that yields a
+ * list shares what it can of the original lists. The chain fails exactly when one of
+ * the operations it replaces would, which is when a list has fewer
+ * elements than are dropped from it or when the head of an empty list is
+ * taken.
+ */
+public final class ListAccess
+{
+    private final TokenType op;     // HD, LEN or CONCAT for the list itself.
+    private final int[] drops;      // The elements dropped from each segment.
+    private final int drop;         // The elements dropped from the result.
+
+    /**
+     * Constructs a new list access.
+     * 
+     * @param op    {@code HD} or {@code LEN} to take the head or length of
+     *              the list, or {@code CONCAT} to take the list itself.
+     * @param drops the number of elements dropped from each segment.
+     * @param drop  the number of elements dropped from the concatenation.
+     */
+    public ListAccess(TokenType op, int[] drops, int drop)
+    {
+        this.op = op;
+        this.drops = drops.clone();
+        this.drop = drop;
+    }
+
+    /**
+     * Gets the operation applied to the list.
+     * 
+     * @return {@code HD}, {@code LEN} or {@code CONCAT}.
+     */
+    public TokenType getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Gets the number of segments that are concatenated.
+     * 
+     * @return the number of segments.
+     */
+    public int getSegmentCount()
+    {
+        return drops.length;
+    }
+
+    /**
+     * Gets the number of elements dropped from a segment.
+     * 
+     * @param segment the index of the segment.
+     * @return the number of elements dropped.
+     */
+    public int getDrop(int segment)
+    {
+        return drops[segment];
+    }
+
+    /**
+     * Gets the number of elements dropped from the concatenation.
+     * 
+     * @return the number of elements dropped.
+     */
+    public int getDrop()
+    {
+        return drop;
+    }
+
+    /**
+     * Checks the value of a segment before the next segment is evaluated.
+     * 
+     * @param segment the index of the segment.
+     * @param value   the list the segment is taken from.
+     * @return the list.
+     * @throws EvaluationException if the value is not a list with enough
+     *                             elements.
+     */
+    public ListValue segment(int segment, Object value)
+            throws EvaluationException
+    {
+        ListValue list = ListValue.from(value);
+        if (list == null || list.size() < drops[segment])
+            throw new EvaluationException();
+        return list;
+    }
+
+    /**
+     * Applies the chain to the lists its segments are taken from.
+     * 
+     * @param values the lists in segment order.
+     * @return the head, length or value of the list.
+     * @throws EvaluationException if an operation of the chain fails.
+     */
+    public Object apply(List<Object> values) throws EvaluationException
+    {
+        ListValue[] lists = new ListValue[drops.length];
+        int size = 0;
+
+        for (int i = 0; i < drops.length; i++)
+        {
+            lists[i] = segment(i, values.get(i));
+            size += lists[i].size() - drops[i];
+        }
+
+        if (size < drop || op == TokenType.HD && size == drop)
+            throw new EvaluationException();
+
+        switch (op)
+        {
+        case HD:
+        {
+            int index = drop;
+            for (int i = 0; i < lists.length; i++)
+            {
+                int count = lists[i].size() - drops[i];
+                if (index < count)
+                    return lists[i].get(drops[i] + index);
+                index -= count;
+            }
+            throw new EvaluationException();
+        }
+        case LEN:
+            return size - drop;
+        default:
+        {
+            // Find where each segment starts once the drop is applied.
+            int[] starts = new int[lists.length];
+            int skip = drop;
+            for (int i = 0; i < lists.length; i++)
+            {
+                int count = lists[i].size() - drops[i];
+                int skipped = Math.min(skip, count);
+                starts[i] = drops[i] + skipped;
+                skip -= skipped;
+            }
+
+            ListValue result = ConsList.EMPTY;
+            for (int i = lists.length - 1; i >= 0; i--)
+                result = lists[i].drop(starts[i]).concat(result);
+            return result;
+        }
+        }
+    }
+
+    /**
+     * Gets a description of the chain.
+     * 
+     * @return the operation followed by the elements dropped.
+     */
+    @Override
+    public String toString()
+    {
+        return op + " drop " + drop + " of " + Arrays.toString(drops);
+    }
+}
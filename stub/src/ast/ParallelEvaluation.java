@@ -0,0 +1,309 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import ast.nodes.SyntaxNode;
+import environment.Environment;
+
+/**
+ * A task that evaluates a run of independent expressions on a fork/join
+ * pool. Each task evaluates under its own fork of the environment, so the
+ * lets evaluated by concurrent tasks do not share frame slots.
+ * <p>
+ * The diagnostics reported while a task evaluates are held by the task and
+ * only shown once it is awaited. Awaiting tasks in program order therefore
+ * shows diagnostics in the order sequential evaluation would, and the
+ * diagnostics of a task that sequential evaluation would never have reached
+ * are discarded along with the task.
+ */
+public final class ParallelEvaluation extends RecursiveTask<Object[]>
+{
+    private static final long serialVersionUID = 1L;
+
+    // The diagnostics of the task evaluating on each thread.
+    private static final ThreadLocal<List<String>> REPORTS =
+            new ThreadLocal<>();
+
+    private List<SyntaxNode> nodes;    // The expressions to evaluate.
+    private Environment env;           // The environment to evaluate under.
+    private List<String> reports;      // The diagnostics held by the task.
+
+    /**
+     * Constructs a task evaluating each of {@code nodes} in order.
+     * 
+     * @param nodes the expressions to evaluate.
+     * @param env   the environment to evaluate the expressions under.
+     */
+    private ParallelEvaluation(List<SyntaxNode> nodes, Environment env)
+    {
+        this.nodes = nodes;
+        this.env = env;
+        this.reports = new ArrayList<>();
+    }
+
+    /**
+     * Evaluates {@code root} on the common pool so that the nodes of the
+     * tree may fork their subexpressions.
+     * 
+     * @param root the root of the tree to evaluate.
+     * @param env  the environment to evaluate the tree under.
+     * @return the value of the tree.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    public static Object invoke(SyntaxNode root, Environment env)
+            throws EvaluationException
+    {
+        ParallelEvaluation task = new ParallelEvaluation(List.of(root), env);
+        try
+        {
+            return ForkJoinPool.commonPool().invoke(task)[0];
+        }
+        catch (RuntimeException ex)
+        {
+            throw unwrap(ex);
+        }
+        finally
+        {
+            task.publish();
+        }
+    }
+
+    /**
+     * Starts evaluating {@code node} asynchronously.
+     * 
+     * @param node the expression to evaluate.
+     * @param env  the environment to evaluate the expression under.
+     * @return the running task.
+     */
+    public static ParallelEvaluation fork(SyntaxNode node, Environment env)
+    {
+        return fork(List.of(node), env);
+    }
+
+    /**
+     * Starts evaluating each of {@code nodes}, in order, asynchronously.
+     * 
+     * @param nodes the expressions to evaluate.
+     * @param env   the environment to evaluate the expressions under.
+     * @return the running task.
+     */
+    public static ParallelEvaluation fork(List<SyntaxNode> nodes,
+            Environment env)
+    {
+        ParallelEvaluation task = new ParallelEvaluation(nodes, env.fork());
+        task.fork();
+        return task;
+    }
+
+    /**
+     * Evaluates {@code node} on this thread, holding its diagnostics until
+     * the result is awaited.
+     * 
+     * @param node the expression to evaluate.
+     * @param env  the environment to evaluate the expression under.
+     * @return the finished task.
+     */
+    public static ParallelEvaluation run(SyntaxNode node, Environment env)
+    {
+        return run(List.of(node), env);
+    }
+
+    /**
+     * Evaluates each of {@code nodes}, in order, on this thread, holding
+     * their diagnostics until the result is awaited.
+     * 
+     * @param nodes the expressions to evaluate.
+     * @param env   the environment to evaluate the expressions under.
+     * @return the finished task.
+     */
+    public static ParallelEvaluation run(List<SyntaxNode> nodes,
+            Environment env)
+    {
+        ParallelEvaluation task = new ParallelEvaluation(nodes, env);
+        task.quietlyInvoke();
+        return task;
+    }
+
+    /**
+     * Waits for the task to finish and shows its diagnostics.
+     * 
+     * @return the values of the expressions in order.
+     * @throws EvaluationException if the evaluation of any expression fails.
+     */
+    public Object[] await() throws EvaluationException
+    {
+        try
+        {
+            return result();
+        }
+        finally
+        {
+            publish();
+        }
+    }
+
+    /**
+     * Waits for the task to finish, still holding its diagnostics.
+     * 
+     * @return the values of the expressions in order.
+     * @throws EvaluationException if the evaluation of any expression fails.
+     */
+    public Object[] result() throws EvaluationException
+    {
+        try
+        {
+            return join();
+        }
+        catch (RuntimeException ex)
+        {
+            throw unwrap(ex);
+        }
+    }
+
+    /**
+     * Waits for the task to finish, if it has started, and drops its result
+     * and diagnostics.
+     */
+    public void discard()
+    {
+        cancel(false);
+        quietlyJoin();
+        reports.clear();
+    }
+
+    /**
+     * Waits for each of {@code tasks} in order, as if their expressions had
+     * been evaluated one after another. If a task fails, the tasks after it
+     * are discarded and its failure is thrown.
+     * 
+     * @param tasks the tasks in program order.
+     * @return the values of the expressions of all the tasks in order.
+     * @throws EvaluationException if the evaluation of any expression fails.
+     */
+    public static List<Object> awaitAll(List<ParallelEvaluation> tasks)
+            throws EvaluationException
+    {
+        List<Object> values = new ArrayList<>();
+
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            try
+            {
+                values.addAll(Arrays.asList(tasks.get(i).await()));
+            }
+            catch (EvaluationException | RuntimeException ex)
+            {
+                for (ParallelEvaluation task : tasks.subList(i + 1,
+                        tasks.size()))
+                    task.discard();
+                throw ex;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reports a diagnostic. The diagnostic is held by the task evaluating on
+     * this thread, if any, and shown otherwise.
+     * 
+     * @param msg the diagnostic.
+     */
+    public static void report(String msg)
+    {
+        List<String> held = REPORTS.get();
+        if (held != null)
+            held.add(msg);
+        else
+            System.out.println(msg);
+    }
+
+    /**
+     * Reports the diagnostics held by this task, in order, once it has
+     * finished.
+     */
+    public void publish()
+    {
+        for (String msg : reports)
+            report(msg);
+        reports.clear();
+    }
+
+    /**
+     * Evaluates the expressions.
+     * 
+     * @return the values of the expressions in order.
+     */
+    @Override
+    protected Object[] compute()
+    {
+        Object[] values = new Object[nodes.size()];
+        List<String> outer = REPORTS.get();
+        int i = 0;
+
+        REPORTS.set(reports);
+        try
+        {
+            for (SyntaxNode node : nodes)
+                values[i++] = node.evaluate(env);
+        }
+        catch (EvaluationException ex)
+        {
+            throw new Failure(ex);
+        }
+        finally
+        {
+            REPORTS.set(outer);
+        }
+        return values;
+    }
+
+    /**
+     * Recovers the evaluation exception that caused a task to fail. The pool
+     * may wrap the exception thrown by the task, so the whole chain of causes
+     * is searched.
+     * 
+     * @param ex the exception thrown by the pool.
+     * @return the evaluation exception.
+     * @throws RuntimeException if the failure was not an evaluation failure.
+     */
+    private static EvaluationException unwrap(RuntimeException ex)
+    {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause())
+            if (cause instanceof EvaluationException evalEx)
+                return evalEx;
+        throw ex;
+    }
+
+    /**
+     * Carries an evaluation exception out of a task.
+     */
+    private static final class Failure extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        Failure(EvaluationException cause)
+        {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.nodes.LetNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Statically resolves every binding in a syntax tree to an address. A value
+ * bound by a {@code val} is given a global slot in the environment, and a
+ * variable bound by a {@code let} is given a slot in the local frame equal
+ * to the number of lets it is nested in. Each identifier is then annotated
+ * with the address of the binding it refers to, so evaluation can access
+ * variables by indexing an array rather than hashing names.
+ * <p>
+ * The tree is walked with an explicit work list so that deeply nested
+ * programs do not exhaust the Java stack.
+ */
+public class Resolver
+{
+    // Marks the end of a let body in the work list.
+    private static final Object EXIT_SCOPE = new Object();
+
+    private Environment env;           // The environment holding globals.
+    private ArrayList<String> scope;   // The let bound names, by slot.
+    private int frameSize;             // The number of local slots needed.
+
+    /**
+     * Constructs a new resolver whose global slots are drawn from
+     * {@code env}.
+     * 
+     * @param env the environment the tree will be evaluated under.
+     */
+    public Resolver(Environment env)
+    {
+        this.env = env;
+        this.scope = new ArrayList<>();
+        this.frameSize = 0;
+    }
+
+    /**
+     * Resolves the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree to resolve.
+     */
+    public void resolve(SyntaxNode root)
+    {
+        ArrayDeque<Object> work = new ArrayDeque<>();
+
+        if (root != null)
+            work.push(root);
+
+        while (!work.isEmpty())
+        {
+            Object item = work.pop();
+
+            if (item == EXIT_SCOPE)
+                scope.remove(scope.size() - 1);
+            else if (item instanceof LetNode let)
+            {
+                // The variable is bound once its expression is resolved, so
+                // the body sees it and the expression does not.
+                let.setSlot(scope.size());
+                frameSize = Math.max(frameSize, scope.size() + 1);
+                work.push(EXIT_SCOPE);
+                work.push(let.getExpr());
+                work.push(let.getVar());
+                work.push(let.getVarExpr());
+            }
+            else if (item instanceof Token var)
+                scope.add(var.getValue());
+            else if (item instanceof ValNode val)
+            {
+                val.setSlot(env.getGlobalSlot(val.getName()));
+                work.push(val.getExpr());
+            }
+            else if (item instanceof TokenNode tok)
+                resolveIdentifier(tok);
+            else
+            {
+                List<SyntaxNode> children = ((SyntaxNode) item).getChildren();
+                for (int i = children.size() - 1; i >= 0; i--)
+                    work.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of local slots needed to evaluate the resolved tree.
+     * 
+     * @return the size of the local frame.
+     */
+    public int getFrameSize()
+    {
+        return frameSize;
+    }
+
+    /**
+     * Resolves an identifier to the innermost let binding of the name, or to
+     * a global slot if no let binds it.
+     * 
+     * @param node the token node to resolve.
+     */
+    private void resolveIdentifier(TokenNode node)
+    {
+        if (node.getToken().getType() != TokenType.ID)
+            return;
+
+        int slot = scope.lastIndexOf(node.getToken().getValue());
+        if (slot >= 0)
+            node.setAddress(false, slot);
+        else
+            node.setAddress(true, env.getGlobalSlot(node.getToken()));
+    }
+}
@@ -18,11 +18,19 @@ package ast;
 
 import ast.nodes.ProgNode;
 import ast.nodes.SyntaxNode;
+import ast.opt.DeadBindingEliminator;
+import ast.opt.Pass;
+import ast.opt.PassManager;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
+import environment.ConstantPool;
 import environment.Environment;
 import environment.TypeEnvironment;
+import vm.CodeBlock;
+import vm.CompileException;
+import vm.Compiler;
+import vm.VirtualMachine;
 
 /**
  * Represents a syntax tree for the language.
@@ -35,6 +43,16 @@ public class SyntaxTree
     Environment env; // The executional environment.
     TypeEnvironment tenv; // The type environment.
     Inferencer inferencer;   // The type substitutions.
+    EvaluationMode mode;     // How the tree should be evaluated.
+    int forkThreshold;       // The minimum cost of parallel work.
+    int tierInvocations;     // The invocations before promotion.
+    long tierVisits;         // The node visits before promotion.
+    TierProfile profile;     // The profile used by tiered execution.
+    ConstantPool constants;  // The constants of the program.
+    boolean retainGlobals;   // True if the globals outlive the tree.
+    int optLevel;            // The optimization level.
+    PassManager passes;      // The passes run by the last optimization.
+    int removedNodes;        // The nodes removed by optimization.
 
     /**
      * Constructs a new syntax tree with root {@code root}.
@@ -45,8 +63,15 @@ public class SyntaxTree
     {
         this.root = root;
         this.env = new Environment();
+        this.constants = new ConstantPool();
         this.tenv = new TypeEnvironment();
         this.inferencer = new Inferencer();
+        this.mode = EvaluationMode.TREE;
+        this.forkThreshold = CostModel.DEFAULT_THRESHOLD;
+        this.tierInvocations = TierProfile.DEFAULT_INVOCATIONS;
+        this.tierVisits = TierProfile.DEFAULT_NODE_VISITS;
+        this.retainGlobals = true;
+        this.optLevel = PassManager.MAX_LEVEL;
     }
 
     /**
@@ -65,6 +90,8 @@ public class SyntaxTree
     public void setRootNode(SyntaxNode root)
     {
         this.root = root;
+        this.constants = new ConstantPool();
+        this.profile = null;
     }
 
     /**
@@ -77,6 +104,65 @@ public class SyntaxTree
         return this.root;
     }
 
+    /**
+     * Sets the strategy used to evaluate the tree.
+     * 
+     * @param mode the evaluation mode.
+     */
+    public void setEvaluationMode(EvaluationMode mode)
+    {
+        this.mode = mode;
+    }
+
+    /**
+     * Gets the strategy used to evaluate the tree.
+     * 
+     * @return the evaluation mode.
+     */
+    public EvaluationMode getEvaluationMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Sets the minimum cost, in nodes, of a subexpression that is evaluated
+     * in parallel by the parallel evaluation mode.
+     * 
+     * @param forkThreshold the minimum cost of parallel work.
+     */
+    public void setForkThreshold(int forkThreshold)
+    {
+        this.forkThreshold = forkThreshold;
+    }
+
+    /**
+     * Sets when tiered execution promotes the tree to compiled code. A
+     * profile gathered with other thresholds is discarded.
+     * 
+     * @param invocations the number of invocations before promotion.
+     * @param nodeVisits  the number of node visits before promotion.
+     */
+    public void setTierThresholds(int invocations, long nodeVisits)
+    {
+        this.tierInvocations = invocations;
+        this.tierVisits = nodeVisits;
+        this.profile = null;
+    }
+
+    /**
+     * Gets the profile gathered by tiered execution. The profile is shared
+     * with every tree of the same structure run under the same globals.
+     * 
+     * @return the execution profile of the tree.
+     */
+    public TierProfile getTierProfile()
+    {
+        if (profile == null)
+            profile = TierProfile.forTree(root, env, tierInvocations,
+                    tierVisits);
+        return profile;
+    }
+
     /**
      * Evaluate the syntax tree.
      * 
@@ -85,7 +171,140 @@ public class SyntaxTree
      */
     public Object evaluate() throws EvaluationException
     {
-         return root.evaluate(env);
+        env.setConstantPool(constants);
+        if (mode == EvaluationMode.BYTECODE)
+        {
+            CodeBlock block = compile();
+            if (block != null)
+                return new VirtualMachine(env).execute(block);
+        }
+        else if (mode == EvaluationMode.TIERED)
+        {
+            CodeBlock block = getTierProfile().getCompiled();
+            if (block != null)
+                return new VirtualMachine(env).execute(block);
+        }
+
+        Resolver resolver = new Resolver(env);
+        resolver.resolve(root);
+        env.allocateFrame(resolver.getFrameSize());
+        env.setLazy(mode == EvaluationMode.LAZY);
+        env.setParallel(mode == EvaluationMode.PARALLEL);
+
+        if (mode == EvaluationMode.PARALLEL)
+        {
+            new CostModel(forkThreshold).annotate(root);
+            return ParallelEvaluation.invoke(root, env);
+        }
+        if (mode == EvaluationMode.ITERATIVE)
+            return new IterativeEvaluator().evaluate(root, env);
+        if (mode == EvaluationMode.TIERED)
+            getTierProfile().recordInvocation(root, env,
+                    SyntaxTree::compile);
+        return root.evaluate(env);
+    }
+
+    /**
+     * Sets whether the globals defined by the tree are used after it is
+     * evaluated, as they are by later lines in interactive mode. Unused
+     * globals are only optimized away if they are not retained.
+     * 
+     * @param retainGlobals true if the globals outlive the tree.
+     */
+    public void setRetainGlobals(boolean retainGlobals)
+    {
+        this.retainGlobals = retainGlobals;
+    }
+
+    /**
+     * Sets how much the tree is optimized, from 0 for not at all to
+     * {@link PassManager#MAX_LEVEL} for the most optimization.
+     * 
+     * @param optLevel the optimization level.
+     */
+    public void setOptimizationLevel(int optLevel)
+    {
+        this.optLevel = optLevel;
+    }
+
+    /**
+     * Gets how much the tree is optimized.
+     * 
+     * @return the optimization level.
+     */
+    public int getOptimizationLevel()
+    {
+        return optLevel;
+    }
+
+    /**
+     * Optimizes the tree for evaluation under the current environment by
+     * running the pipeline of passes of the optimization level. The tree
+     * must type check before it is optimized.
+     */
+    public void optimize()
+    {
+        passes = PassManager.forLevel(optLevel, retainGlobals);
+        passes.run(this);
+
+        removedNodes = 0;
+        for (Pass pass : passes.getPasses())
+            if (pass instanceof DeadBindingEliminator dbe)
+                removedNodes += dbe.getRemoved();
+        profile = null;
+    }
+
+    /**
+     * Gets the pipeline of passes run by the last optimization, which
+     * holds the statistics of each pass.
+     * 
+     * @return the pass manager or null if the tree was not optimized.
+     */
+    public PassManager getPassManager()
+    {
+        return passes;
+    }
+
+    /**
+     * Gets the number of nodes removed by the last optimization because
+     * they were dead.
+     * 
+     * @return the number of dead nodes removed.
+     */
+    public int getRemovedNodeCount()
+    {
+        return removedNodes;
+    }
+
+    /**
+     * Compiles the tree to bytecode for the current environment.
+     * 
+     * @return the compiled code or null if the tree can not be compiled,
+     *         in which case the tree should be evaluated directly.
+     */
+    public CodeBlock compile()
+    {
+        env.setConstantPool(constants);
+        return compile(root, env);
+    }
+
+    /**
+     * Compiles a tree to bytecode for the environment {@code env}.
+     * 
+     * @param root the root of the tree.
+     * @param env  the environment the code will run under.
+     * @return the compiled code or null if the tree can not be compiled.
+     */
+    private static CodeBlock compile(SyntaxNode root, Environment env)
+    {
+        try
+        {
+            return new Compiler(env).compile(root);
+        }
+        catch (CompileException ex)
+        {
+            return null;
+        }
     }
 
     /**
@@ -116,6 +335,7 @@ public class SyntaxTree
     public void setEnvironment(Environment env)
     {
         this.env = env;
+        this.profile = null;
     }
 
     /**
@@ -0,0 +1,79 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import ast.nodes.SyntaxNode;
+import environment.Environment;
+
+/**
+ * A suspended evaluation used for call-by-need bindings. The expression is
+ * evaluated the first time the thunk is forced and the result is remembered
+ * for every later use.
+ */
+public final class Thunk
+{
+    private SyntaxNode expr;    // The expression, null once forced.
+    private Environment env;    // The environment to evaluate under.
+    private Object value;       // The value once forced.
+
+    /**
+     * Suspends the evaluation of {@code expr} under {@code env}.
+     * 
+     * @param expr the expression to evaluate.
+     * @param env  the environment to evaluate the expression under.
+     */
+    public Thunk(SyntaxNode expr, Environment env)
+    {
+        this.expr = expr;
+        this.env = env.copy();
+    }
+
+    /**
+     * Gets the value of the thunk, evaluating it if needed. The evaluation
+     * happens in a fork of the captured environment so it does not disturb
+     * the frame of the code that forced it.
+     * 
+     * @return the value of the expression.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    public Object force() throws EvaluationException
+    {
+        if (expr != null)
+        {
+            value = expr.evaluate(env.fork());
+
+            // Release the expression and environment, they are not needed.
+            expr = null;
+            env = null;
+        }
+        return value;
+    }
+
+    /**
+     * Forces {@code value} if it is a thunk.
+     * 
+     * @param value the value to force.
+     * @return the value itself or the value of the thunk.
+     * @throws EvaluationException if the evaluation of the thunk fails.
+     */
+    public static Object force(Object value) throws EvaluationException
+    {
+        if (value instanceof Thunk thunk)
+            return thunk.force();
+        return value;
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import ast.nodes.UnaryOpNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+import lexer.Token;
+import lexer.TokenType;
+import vm.CodeBlock;
+import vm.Compiler;
+
+/**
+ * The execution profile of a syntax tree used by tiered execution. A tree
+ * starts in the interpreter tier, where every invocation is counted along
+ * with the nodes it visits. Once either count crosses its threshold the tree
+ * is compiled in the background, and the compiled code is published
+ * atomically so later invocations switch to the faster tier.
+ * <p>
+ * MFL has neither loops nor functions, so an invocation visits each node of
+ * the tree once and the visits are counted by the size of the tree rather
+ * than by instrumenting every node.
+ * <p>
+ * Profiles are kept by the structure of the tree and the globals it runs
+ * under, so a program that is parsed again for every run, as a line is in
+ * interactive mode, is still promoted once it is hot.
+ */
+public class TierProfile
+{
+    /**
+     * The default number of invocations before a tree is promoted.
+     */
+    public static final int DEFAULT_INVOCATIONS = 8;
+
+    /**
+     * The default number of node visits before a tree is promoted.
+     */
+    public static final long DEFAULT_NODE_VISITS = 100000;
+
+    /**
+     * The most profiles kept for one set of globals. The least recently
+     * used profile is dropped first.
+     */
+    public static final int MAX_PROFILES = 256;
+
+    // The profiles of the trees run under each set of globals.
+    private static final Map<Object, ProfileCache> PROFILES =
+            new WeakHashMap<>();
+
+    // The tiers of a tree.
+    private static final int INTERPRETED = 0;  // Walked by the interpreter.
+    private static final int COMPILING = 1;    // Being compiled.
+    private static final int COMPILED = 2;     // Running compiled code.
+    private static final int FAILED = 3;       // Can not be compiled.
+
+    private final int invocationThreshold;
+    private final long visitThreshold;
+    private final AtomicLong invocations;
+    private final AtomicLong nodeVisits;
+    private final AtomicInteger tier;
+    private volatile CodeBlock compiled;
+    private volatile CompletableFuture<Void> promotion;
+    private int size;                      // Nodes in the tree, -1 if unknown.
+
+    /**
+     * Constructs an empty profile using the default thresholds.
+     */
+    public TierProfile()
+    {
+        this(DEFAULT_INVOCATIONS, DEFAULT_NODE_VISITS);
+    }
+
+    /**
+     * Constructs an empty profile.
+     * 
+     * @param invocationThreshold the invocations before promotion.
+     * @param visitThreshold      the node visits before promotion.
+     */
+    public TierProfile(int invocationThreshold, long visitThreshold)
+    {
+        this.invocationThreshold = invocationThreshold;
+        this.visitThreshold = visitThreshold;
+        this.invocations = new AtomicLong();
+        this.nodeVisits = new AtomicLong();
+        this.tier = new AtomicInteger(INTERPRETED);
+        this.size = -1;
+    }
+
+    /**
+     * Gets the profile of the tree rooted at {@code root} when run under
+     * {@code env}. Trees with the same structure that read globals of the
+     * same types share a profile. A shared profile with different
+     * thresholds is discarded.
+     * 
+     * @param root                the root of the tree.
+     * @param env                 the environment the tree runs under.
+     * @param invocationThreshold the invocations before promotion.
+     * @param visitThreshold      the node visits before promotion.
+     * @return the profile of the tree.
+     */
+    public static TierProfile forTree(SyntaxNode root, Environment env,
+            int invocationThreshold, long visitThreshold)
+    {
+        String key = keyOf(root, env);
+
+        synchronized (PROFILES)
+        {
+            ProfileCache cache = PROFILES.computeIfAbsent(
+                    env.getGlobalShape(), shape -> new ProfileCache());
+            TierProfile profile = cache.get(key);
+            if (profile == null
+                    || profile.invocationThreshold != invocationThreshold
+                    || profile.visitThreshold != visitThreshold)
+            {
+                profile = new TierProfile(invocationThreshold,
+                        visitThreshold);
+                cache.put(key, profile);
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * Gets the compiled code, if the tree has been promoted.
+     * 
+     * @return the compiled code or null if the tree is still interpreted.
+     */
+    public CodeBlock getCompiled()
+    {
+        return compiled;
+    }
+
+    /**
+     * Records an interpreted invocation of the tree rooted at {@code root}
+     * and starts compiling it in the background if it has become hot. The
+     * compiler resolves the tree it is given, so it is given a copy of the
+     * tree and a snapshot of {@code env} rather than racing the interpreter
+     * for them.
+     * 
+     * @param root     the root of the tree.
+     * @param env      the environment the tree runs under.
+     * @param compiler compiles a tree for an environment, returning null on
+     *                 failure.
+     */
+    public void recordInvocation(SyntaxNode root, Environment env,
+            BiFunction<SyntaxNode, Environment, CodeBlock> compiler)
+    {
+        if (size < 0)
+            size = size(root);
+
+        long calls = invocations.incrementAndGet();
+        long visits = nodeVisits.addAndGet(size);
+
+        if ((calls >= invocationThreshold || visits >= visitThreshold)
+                && tier.compareAndSet(INTERPRETED, COMPILING))
+        {
+            SyntaxNode tree = copy(root);
+            Environment snapshot = env.snapshot();
+            promotion = CompletableFuture.runAsync(() -> {
+                CodeBlock block = compiler.apply(tree, snapshot);
+                compiled = block;
+                tier.set(block == null ? FAILED : COMPILED);
+            });
+        }
+    }
+
+    /**
+     * Waits for a background promotion, if one was started, to finish.
+     * 
+     * @return true if the tree has been promoted to compiled code.
+     */
+    public boolean awaitPromotion()
+    {
+        CompletableFuture<Void> pending = promotion;
+        if (pending != null)
+            pending.join();
+        return compiled != null;
+    }
+
+    /**
+     * Gets the number of invocations recorded.
+     * 
+     * @return the number of invocations.
+     */
+    public long getInvocationCount()
+    {
+        return invocations.get();
+    }
+
+    /**
+     * Gets the number of node visits recorded.
+     * 
+     * @return the number of node visits.
+     */
+    public long getNodeVisitCount()
+    {
+        return nodeVisits.get();
+    }
+
+    /**
+     * Counts the nodes of a tree.
+     * 
+     * @param root the root of the tree.
+     * @return the number of nodes.
+     */
+    private static int size(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        int count = 0;
+
+        if (root != null)
+            work.push(root);
+        while (!work.isEmpty())
+        {
+            count++;
+            for (SyntaxNode child : work.pop().getChildren())
+                work.push(child);
+        }
+        return count;
+    }
+
+    /**
+     * Builds the key of a tree, a description of its structure and of the
+     * types of the globals it reads, which the compiled code depends on.
+     * 
+     * @param root the root of the tree.
+     * @param env  the environment the tree runs under.
+     * @return the key of the tree.
+     */
+    private static String keyOf(SyntaxNode root, Environment env)
+    {
+        StringBuilder key = new StringBuilder();
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+
+        if (root != null)
+            work.push(root);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            List<SyntaxNode> children = node.getChildren();
+
+            key.append(label(node, env)).append('/').append(children.size())
+                    .append('\n');
+            for (int i = children.size() - 1; i >= 0; i--)
+                work.push(children.get(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets the label of a node, everything but its children that the
+     * compiled code depends on.
+     * 
+     * @param node the node.
+     * @param env  the environment the tree runs under.
+     * @return the label.
+     */
+    private static String label(SyntaxNode node, Environment env)
+    {
+        String name = node.getClass().getSimpleName();
+
+        if (node instanceof TokenNode tok)
+        {
+            Token token = tok.getToken();
+            if (token.getType() != TokenType.ID)
+                return token.getType() + " " + token.getValue();
+            return "ID " + token.getValue() + " "
+                    + Compiler.typeOfValue(env.lookup(token));
+        }
+        if (node instanceof BinOpNode bin)
+            return name + " " + bin.getOp();
+        if (node instanceof RelOpNode rel)
+            return name + " " + rel.getOp();
+        if (node instanceof UnaryOpNode unary)
+            return name + " " + unary.getOp();
+        if (node instanceof BuiltinNode builtin)
+            return name + " " + builtin.getOp();
+        if (node instanceof LetNode let)
+            return name + " " + let.getVar().getValue();
+        if (node instanceof ValNode val)
+            return name + " " + val.getName().getValue();
+        if (node instanceof ListAccessNode access)
+            return name + " " + access.getAccess();
+        return name;
+    }
+
+    /**
+     * Copies a tree, so that resolving the copy does not change the
+     * original.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the copy.
+     */
+    private static SyntaxNode copy(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        ArrayDeque<SyntaxNode> copies = new ArrayDeque<>();
+
+        work.push(root);
+        expanded.push(false);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            List<SyntaxNode> children = node.getChildren();
+
+            if (!expanded.pop())
+            {
+                work.push(node);
+                expanded.push(true);
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    work.push(children.get(i));
+                    expanded.push(false);
+                }
+            }
+            else if (node instanceof TokenNode tok)
+                copies.push(new TokenNode(tok.getToken(),
+                        tok.getLineNumber()));
+            else
+            {
+                LinkedList<SyntaxNode> copied = new LinkedList<>();
+                for (int i = 0; i < children.size(); i++)
+                    copied.addFirst(copies.pop());
+                copies.push(node.withChildren(copied));
+            }
+        }
+        return copies.pop();
+    }
+
+    /**
+     * The profiles of the trees run under one set of globals, dropping the
+     * least recently used profile once there are too many.
+     */
+    private static class ProfileCache extends LinkedHashMap<String, TierProfile>
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Sets up an empty cache ordered by access.
+         */
+        public ProfileCache()
+        {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, TierProfile> eldest)
+        {
+            return size() > MAX_PROFILES;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Reductions of lists of numbers to a single number. Each reduction is a
+ * loop over the unboxed runs of the list, so it boxes nothing and leaves
+ * the loop in a form the JIT compiler can unroll and vectorize.
+ */
+public final class Aggregates
+{
+    /**
+     * This class only holds static methods.
+     */
+    private Aggregates()
+    {
+    }
+
+    /**
+     * Sums a list of integers, wrapping on overflow as addition does.
+     * 
+     * @param list the list.
+     * @return the sum, which is zero for the empty list.
+     */
+    public static int sumInt(ListValue list)
+    {
+        IntRuns runs = new IntRuns(list);
+        int sum = 0;
+
+        while (runs.next())
+        {
+            int[] values = runs.values;
+            for (int i = runs.from; i < runs.to; i++)
+                sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sums a list of reals in order.
+     * 
+     * @param list the list.
+     * @return the sum, which is zero for the empty list.
+     */
+    public static double sumReal(ListValue list)
+    {
+        RealRuns runs = new RealRuns(list);
+        double sum = 0;
+
+        while (runs.next())
+        {
+            double[] values = runs.values;
+            for (int i = runs.from; i < runs.to; i++)
+                sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the least or greatest element of a list of integers.
+     * 
+     * @param list the list.
+     * @param max  true for the greatest element, false for the least.
+     * @return the element.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public static int extremeInt(ListValue list, boolean max)
+    {
+        if (list.isEmpty())
+            throw new NoSuchElementException();
+
+        IntRuns runs = new IntRuns(list);
+        int best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        while (runs.next())
+        {
+            int[] values = runs.values;
+            if (max)
+                for (int i = runs.from; i < runs.to; i++)
+                    best = Math.max(best, values[i]);
+            else
+                for (int i = runs.from; i < runs.to; i++)
+                    best = Math.min(best, values[i]);
+        }
+        return best;
+    }
+
+    /**
+     * Finds the least or greatest element of a list of reals.
+     * 
+     * @param list the list.
+     * @param max  true for the greatest element, false for the least.
+     * @return the element.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public static double extremeReal(ListValue list, boolean max)
+    {
+        if (list.isEmpty())
+            throw new NoSuchElementException();
+
+        RealRuns runs = new RealRuns(list);
+        double best = max ? Double.NEGATIVE_INFINITY
+                : Double.POSITIVE_INFINITY;
+        while (runs.next())
+        {
+            double[] values = runs.values;
+            if (max)
+                for (int i = runs.from; i < runs.to; i++)
+                    best = Math.max(best, values[i]);
+            else
+                for (int i = runs.from; i < runs.to; i++)
+                    best = Math.min(best, values[i]);
+        }
+        return best;
+    }
+
+    /**
+     * Averages a list of integers. The integers are summed exactly, so the
+     * average is correct even when their sum does not fit an integer.
+     * 
+     * @param list the list.
+     * @return the average.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public static double averageInt(ListValue list)
+    {
+        if (list.isEmpty())
+            throw new NoSuchElementException();
+
+        IntRuns runs = new IntRuns(list);
+        long sum = 0;
+        while (runs.next())
+        {
+            int[] values = runs.values;
+            for (int i = runs.from; i < runs.to; i++)
+                sum += values[i];
+        }
+        return (double) sum / list.size();
+    }
+
+    /**
+     * Averages a list of reals.
+     * 
+     * @param list the list.
+     * @return the average.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public static double averageReal(ListValue list)
+    {
+        if (list.isEmpty())
+            throw new NoSuchElementException();
+        return sumReal(list) / list.size();
+    }
+
+    /**
+     * Counts the elements of a list equal to a value. Reals are equal as
+     * they are for {@code =}, so {@code NaN} equals itself and {@code 0.0}
+     * does not equal {@code -0.0}.
+     * 
+     * @param list  the list.
+     * @param value the value.
+     * @return the number of elements equal to the value.
+     */
+    public static int count(ListValue list, Object value)
+    {
+        int count = 0;
+
+        if (value instanceof Integer target)
+        {
+            IntRuns runs = new IntRuns(list);
+            int key = target;
+            while (runs.next())
+            {
+                int[] values = runs.values;
+                for (int i = runs.from; i < runs.to; i++)
+                    count += values[i] == key ? 1 : 0;
+            }
+        }
+        else if (value instanceof Double target)
+        {
+            RealRuns runs = new RealRuns(list);
+            double key = target;
+            while (runs.next())
+            {
+                double[] values = runs.values;
+                for (int i = runs.from; i < runs.to; i++)
+                    count += Double.compare(values[i], key) == 0 ? 1 : 0;
+            }
+        }
+        else
+        {
+            for (Object elem : list)
+                if (elem.equals(value))
+                    count++;
+        }
+        return count;
+    }
+
+    /**
+     * Computes the dot product of two lists of integers, wrapping on
+     * overflow.
+     * 
+     * @param left  the first list.
+     * @param right the second list.
+     * @return the sum of the products of corresponding elements.
+     * @throws IllegalArgumentException if the lists differ in length.
+     */
+    public static int dotInt(ListValue left, ListValue right)
+    {
+        checkLengths(left, right);
+
+        IntRuns lruns = new IntRuns(left);
+        IntRuns rruns = new IntRuns(right);
+        int l = 0;
+        int r = 0;
+        int sum = 0;
+
+        // The runs of the lists need not line up, so each step multiplies
+        // the overlap of the current runs.
+        while (true)
+        {
+            if (l == lruns.to)
+            {
+                if (!lruns.next())
+                    return sum;
+                l = lruns.from;
+            }
+            if (r == rruns.to)
+            {
+                rruns.next();
+                r = rruns.from;
+            }
+
+            int count = Math.min(lruns.to - l, rruns.to - r);
+            int[] lvalues = lruns.values;
+            int[] rvalues = rruns.values;
+            for (int i = 0; i < count; i++)
+                sum += lvalues[l + i] * rvalues[r + i];
+            l += count;
+            r += count;
+        }
+    }
+
+    /**
+     * Computes the dot product of two lists of reals.
+     * 
+     * @param left  the first list.
+     * @param right the second list.
+     * @return the sum of the products of corresponding elements.
+     * @throws IllegalArgumentException if the lists differ in length.
+     */
+    public static double dotReal(ListValue left, ListValue right)
+    {
+        checkLengths(left, right);
+
+        RealRuns lruns = new RealRuns(left);
+        RealRuns rruns = new RealRuns(right);
+        int l = 0;
+        int r = 0;
+        double sum = 0;
+
+        while (true)
+        {
+            if (l == lruns.to)
+            {
+                if (!lruns.next())
+                    return sum;
+                l = lruns.from;
+            }
+            if (r == rruns.to)
+            {
+                rruns.next();
+                r = rruns.from;
+            }
+
+            int count = Math.min(lruns.to - l, rruns.to - r);
+            double[] lvalues = lruns.values;
+            double[] rvalues = rruns.values;
+            for (int i = 0; i < count; i++)
+                sum += lvalues[l + i] * rvalues[r + i];
+            l += count;
+            r += count;
+        }
+    }
+
+    /**
+     * Checks that two lists have the same length.
+     * 
+     * @param left  the first list.
+     * @param right the second list.
+     * @throws IllegalArgumentException if the lists differ in length.
+     */
+    static void checkLengths(ListValue left, ListValue right)
+    {
+        if (left.size() != right.size())
+            throw new IllegalArgumentException("Lists of lengths "
+                    + left.size() + " and " + right.size()
+                    + " differ in length.");
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.List;
+
+/**
+ * A list of booleans stored as a bit set, one bit per element in a
+ * {@code long} array.
+ */
+public final class BoolList extends PrimitiveList
+{
+    private final long[] bits;      // The elements, 64 to a word.
+
+    /**
+     * Constructs a new list over part of a bit set.
+     * 
+     * @param bits   the bit set, which must not be changed.
+     * @param offset the index of the bit of the first element.
+     * @param size   the number of elements.
+     */
+    public BoolList(long[] bits, int offset, int size)
+    {
+        super(offset, size);
+        this.bits = bits;
+    }
+
+    /**
+     * Builds the list of the elements of a list of booleans.
+     * 
+     * @param elems the elements in order.
+     * @return the new list or null if an element is not a boolean.
+     */
+    public static BoolList of(List<?> elems)
+    {
+        long[] bits = new long[words(elems.size())];
+        int i = 0;
+
+        for (Object elem : elems)
+        {
+            if (!(elem instanceof Boolean value))
+                return null;
+            if (value)
+                bits[i >>> 6] |= 1L << i;
+            i++;
+        }
+        return new BoolList(bits, 0, elems.size());
+    }
+
+    /**
+     * Gets the number of words needed to hold a number of bits.
+     * 
+     * @param count the number of bits.
+     * @return the number of words.
+     */
+    private static int words(int count)
+    {
+        return (count + 63) >>> 6;
+    }
+
+    /**
+     * Gets an element of the list without boxing it.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public boolean getBool(int index)
+    {
+        checkIndex(index);
+        int bit = offset + index;
+        return (bits[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * Gets an element of the list.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    @Override
+    public Object get(int index)
+    {
+        return getBool(index);
+    }
+
+    /**
+     * Builds a list over part of the bit set of this list.
+     * 
+     * @param offset the index of the bit of the first element.
+     * @param size   the number of elements.
+     * @return the list sharing the bit set of this list.
+     */
+    @Override
+    protected BoolList slice(int offset, int size)
+    {
+        return new BoolList(bits, offset, size);
+    }
+
+    /**
+     * Copies the elements of this list into a bit set of their own.
+     * 
+     * @return the copy.
+     */
+    @Override
+    protected BoolList compact()
+    {
+        return append(new BoolList(bits, 0, 0));
+    }
+
+    /**
+     * Gets the number of elements the bit set of the list can hold.
+     * 
+     * @return the capacity of the bit set.
+     */
+    @Override
+    public long getCapacity()
+    {
+        return 64L * bits.length;
+    }
+
+    /**
+     * Builds the flat list of the elements of this list followed by those
+     * of another.
+     * 
+     * @param other the list that follows, of the same class.
+     * @return the concatenation, in a new bit set.
+     */
+    @Override
+    protected BoolList append(PrimitiveList other)
+    {
+        BoolList rest = (BoolList) other;
+        long[] joined = new long[words(size + rest.size)];
+
+        for (int i = 0; i < size; i++)
+            if (getBool(i))
+                joined[i >>> 6] |= 1L << i;
+        for (int i = 0; i < rest.size; i++)
+            if (rest.getBool(i))
+                joined[(size + i) >>> 6] |= 1L << (size + i);
+        return new BoolList(joined, 0, size + rest.size);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent singly linked list whose cells cache the length of the list
+ * they start. The head, tail and length of a list take constant time and
+ * the tail shares every cell with its list, so walking a list with
+ * repeated tails allocates nothing. Concatenating a short list onto a cons
+ * list copies the cells of the short list and shares those of the other,
+ * while longer concatenations build a {@link Rope}.
+ */
+public final class ConsList extends ListValue
+{
+    /**
+     * The empty list.
+     */
+    public static final ConsList EMPTY = new ConsList(null, null, 0);
+
+    private final Object first;     // The first element.
+    private final ConsList rest;    // The remaining elements.
+    private final int size;         // The number of elements.
+
+    /**
+     * Constructs a new cell.
+     * 
+     * @param first the first element.
+     * @param rest  the remaining elements.
+     * @param size  the number of elements.
+     */
+    private ConsList(Object first, ConsList rest, int size)
+    {
+        this.first = first;
+        this.rest = rest;
+        this.size = size;
+    }
+
+    /**
+     * Builds the list of an element followed by a list.
+     * 
+     * @param first the first element.
+     * @param rest  the remaining elements.
+     * @return the new list.
+     */
+    public static ConsList cons(Object first, ConsList rest)
+    {
+        return new ConsList(first, rest, rest.size + 1);
+    }
+
+    /**
+     * Builds the list of the elements of a collection.
+     * 
+     * @param values the elements in order.
+     * @return the new list.
+     */
+    public static ConsList of(Iterable<?> values)
+    {
+        ArrayList<Object> elems = new ArrayList<>();
+        for (Object value : values)
+            elems.add(value);
+        return of(elems.toArray(), 0, elems.size());
+    }
+
+    /**
+     * Builds the list of a range of an array.
+     * 
+     * @param values the array.
+     * @param from   the index of the first element.
+     * @param to     the index after the last element.
+     * @return the new list.
+     */
+    public static ConsList of(Object[] values, int from, int to)
+    {
+        return prepend(values, from, to, EMPTY);
+    }
+
+    /**
+     * Builds the list of a range of an array followed by a list.
+     * 
+     * @param values the array.
+     * @param from   the index of the first element.
+     * @param to     the index after the last element.
+     * @param rest   the list that follows.
+     * @return the new list.
+     */
+    private static ConsList prepend(Object[] values, int from, int to,
+            ConsList rest)
+    {
+        ConsList list = rest;
+        for (int i = to - 1; i >= from; i--)
+            list = cons(values[i], list);
+        return list;
+    }
+
+    /**
+     * Gets the first element of the list.
+     * 
+     * @return the first element.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    @Override
+    public Object head()
+    {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return first;
+    }
+
+    /**
+     * Gets the list of all but the first element, which shares its cells
+     * with this list.
+     * 
+     * @return the tail of the list.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    @Override
+    public ConsList tail()
+    {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return rest;
+    }
+
+    /**
+     * Builds the list of the elements of this list followed by those of
+     * another.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    @Override
+    public ListValue concat(ListValue other)
+    {
+        if (size == 0)
+            return other;
+        if (other.isEmpty())
+            return this;
+
+        if (other instanceof ConsList rest && size <= Rope.LEAF_SIZE)
+            return prepend(toArray(), 0, size, rest);
+        return Rope.join(this, other);
+    }
+
+    /**
+     * Gets an element of the list.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    @Override
+    public Object get(int index)
+    {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        ConsList list = this;
+        for (int i = 0; i < index; i++)
+            list = list.rest;
+        return list.first;
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * 
+     * @return the length of the list.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets an iterator that walks the cells of the list.
+     * 
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<Object> iterator()
+    {
+        return new Iterator<>()
+        {
+            private ConsList curr = ConsList.this;
+
+            @Override
+            public boolean hasNext()
+            {
+                return curr.size > 0;
+            }
+
+            @Override
+            public Object next()
+            {
+                Object value = curr.head();
+                curr = curr.rest;
+                return value;
+            }
+        };
+    }
+}
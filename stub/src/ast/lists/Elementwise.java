@@ -0,0 +1,221 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+/**
+ * Arithmetic on lists of numbers element by element. Either operand may be
+ * a single number, which is combined with each element of the other. The
+ * operands are walked as runs of primitive arrays and each run is combined
+ * by a plain loop, which the JIT compiler can unroll and vectorize.
+ */
+public final class Elementwise
+{
+    /**
+     * The arithmetic operations that apply element by element.
+     */
+    public enum Op
+    {
+        ADD, SUB, MULT, DIV
+    }
+
+    /**
+     * This class only holds static methods.
+     */
+    private Elementwise()
+    {
+    }
+
+    /**
+     * Combines two operands element by element, at least one of which is a
+     * list.
+     * 
+     * @param op    the operation.
+     * @param left  the left operand, a list or a number.
+     * @param right the right operand, a list or a number.
+     * @return the list of the results, of ints unless an operand holds
+     *         reals.
+     * @throws IllegalArgumentException if two lists differ in length.
+     * @throws ArithmeticException      if an int is divided by zero.
+     * @throws ClassCastException       if an operand is not a list of
+     *                                  numbers or a number.
+     */
+    public static ListValue apply(Op op, Object left, Object right)
+    {
+        ListValue llist = ListValue.from(left);
+        ListValue rlist = ListValue.from(right);
+        int size;
+
+        if (llist != null && rlist != null)
+        {
+            Aggregates.checkLengths(llist, rlist);
+            size = llist.size();
+        }
+        else
+            size = llist != null ? llist.size() : rlist.size();
+
+        if (isReal(llist, left) || isReal(rlist, right))
+        {
+            RealRuns lruns = llist != null ? new RealRuns(llist)
+                    : RealRuns.repeat(((Number) left).doubleValue());
+            RealRuns rruns = rlist != null ? new RealRuns(rlist)
+                    : RealRuns.repeat(((Number) right).doubleValue());
+            return RealList.of(reals(op, lruns, rruns, size));
+        }
+
+        IntRuns lruns = llist != null ? new IntRuns(llist)
+                : IntRuns.repeat((Integer) left);
+        IntRuns rruns = rlist != null ? new IntRuns(rlist)
+                : IntRuns.repeat((Integer) right);
+        return IntList.of(ints(op, lruns, rruns, size));
+    }
+
+    /**
+     * Determines if an operand holds reals.
+     * 
+     * @param list  the operand as a list or null if it is a number.
+     * @param value the operand.
+     * @return true if the operand is a real or a list of reals.
+     */
+    private static boolean isReal(ListValue list, Object value)
+    {
+        if (list == null)
+            return value instanceof Double;
+        return list instanceof RealList
+                || !list.isEmpty() && list.head() instanceof Double;
+    }
+
+    /**
+     * Combines the runs of two int operands.
+     * 
+     * @param op    the operation.
+     * @param lruns the runs of the left operand.
+     * @param rruns the runs of the right operand.
+     * @param size  the number of elements to combine.
+     * @return the array of the results.
+     */
+    private static int[] ints(Op op, IntRuns lruns, IntRuns rruns, int size)
+    {
+        int[] out = new int[size];
+        int l = 0;
+        int r = 0;
+        int pos = 0;
+
+        // The runs of the operands need not line up, so each step combines
+        // the overlap of the current runs.
+        while (pos < size)
+        {
+            if (l == lruns.to)
+            {
+                lruns.next();
+                l = lruns.from;
+            }
+            if (r == rruns.to)
+            {
+                rruns.next();
+                r = rruns.from;
+            }
+
+            int count = Math.min(size - pos,
+                    Math.min(lruns.to - l, rruns.to - r));
+            int[] a = lruns.values;
+            int[] b = rruns.values;
+            switch (op)
+            {
+            case ADD:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] + b[r + i];
+                break;
+            case SUB:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] - b[r + i];
+                break;
+            case MULT:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] * b[r + i];
+                break;
+            default:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] / b[r + i];
+                break;
+            }
+            l += count;
+            r += count;
+            pos += count;
+        }
+        return out;
+    }
+
+    /**
+     * Combines the runs of two real operands.
+     * 
+     * @param op    the operation.
+     * @param lruns the runs of the left operand.
+     * @param rruns the runs of the right operand.
+     * @param size  the number of elements to combine.
+     * @return the array of the results.
+     */
+    private static double[] reals(Op op, RealRuns lruns, RealRuns rruns,
+            int size)
+    {
+        double[] out = new double[size];
+        int l = 0;
+        int r = 0;
+        int pos = 0;
+
+        while (pos < size)
+        {
+            if (l == lruns.to)
+            {
+                lruns.next();
+                l = lruns.from;
+            }
+            if (r == rruns.to)
+            {
+                rruns.next();
+                r = rruns.from;
+            }
+
+            int count = Math.min(size - pos,
+                    Math.min(lruns.to - l, rruns.to - r));
+            double[] a = lruns.values;
+            double[] b = rruns.values;
+            switch (op)
+            {
+            case ADD:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] + b[r + i];
+                break;
+            case SUB:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] - b[r + i];
+                break;
+            case MULT:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] * b[r + i];
+                break;
+            default:
+                for (int i = 0; i < count; i++)
+                    out[pos + i] = a[l + i] / b[r + i];
+                break;
+            }
+            l += count;
+            r += count;
+            pos += count;
+        }
+        return out;
+    }
+}
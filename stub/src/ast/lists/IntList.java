@@ -0,0 +1,218 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * A list of integers stored unboxed in an {@code int} array, or off the
+ * heap if the list is large.
+ */
+public final class IntList extends PrimitiveList
+{
+    final int[] values;             // The elements on the heap, or null.
+    final IntBuffer buffer;         // The elements off the heap, or null.
+
+    /**
+     * Constructs a new list over part of an array.
+     * 
+     * @param values the array, which must not be changed.
+     * @param offset the index of the first element.
+     * @param size   the number of elements.
+     */
+    public IntList(int[] values, int offset, int size)
+    {
+        super(offset, size);
+        this.values = values;
+        this.buffer = null;
+    }
+
+    /**
+     * Constructs a new list over part of a buffer off the heap.
+     * 
+     * @param buffer the buffer, which must not be changed.
+     * @param offset the index of the first element.
+     * @param size   the number of elements.
+     */
+    private IntList(IntBuffer buffer, int offset, int size)
+    {
+        super(offset, size);
+        this.values = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Builds the list of the elements of a list of integers, off the heap
+     * if the list is large.
+     * 
+     * @param elems the elements in order.
+     * @return the new list or null if an element is not an integer.
+     */
+    public static IntList of(List<?> elems)
+    {
+        IntBuffer buffer = null;
+        int[] values = null;
+        int i = 0;
+
+        if (isLarge(elems.size()))
+            buffer = allocate(4L * elems.size()).asIntBuffer();
+        else
+            values = new int[elems.size()];
+
+        for (Object elem : elems)
+        {
+            if (!(elem instanceof Integer value))
+                return null;
+            if (buffer != null)
+                buffer.put(i++, value);
+            else
+                values[i++] = value;
+        }
+
+        if (buffer != null)
+            return new IntList(buffer, 0, elems.size());
+        return new IntList(values, 0, values.length);
+    }
+
+    /**
+     * Builds the list of the elements of an array, moving them off the
+     * heap if the list is large.
+     * 
+     * @param values the array, which must not be changed.
+     * @return the new list.
+     */
+    public static IntList of(int[] values)
+    {
+        if (!isLarge(values.length))
+            return new IntList(values, 0, values.length);
+
+        IntBuffer buffer = allocate(4L * values.length).asIntBuffer();
+        buffer.put(0, values);
+        return new IntList(buffer, 0, values.length);
+    }
+
+    /**
+     * Gets an element of the list without boxing it.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public int getInt(int index)
+    {
+        checkIndex(index);
+        if (values != null)
+            return values[offset + index];
+        return buffer.get(offset + index);
+    }
+
+    /**
+     * Gets an element of the list.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    @Override
+    public Object get(int index)
+    {
+        return getInt(index);
+    }
+
+    /**
+     * Copies the elements of the list into an array.
+     * 
+     * @param dest the array.
+     * @param pos  the index in the array of the first element.
+     */
+    public void copyTo(int[] dest, int pos)
+    {
+        if (values != null)
+            System.arraycopy(values, offset, dest, pos, size);
+        else
+            buffer.get(offset, dest, pos, size);
+    }
+
+    /**
+     * Checks whether the elements of the list are stored off the heap.
+     * 
+     * @return true if the list is stored off the heap.
+     */
+    @Override
+    public boolean isOffHeap()
+    {
+        return buffer != null;
+    }
+
+    /**
+     * Builds a list over part of the storage of this list.
+     * 
+     * @param offset the index of the first element in the storage.
+     * @param size   the number of elements.
+     * @return the list sharing the storage of this list.
+     */
+    @Override
+    protected IntList slice(int offset, int size)
+    {
+        if (buffer != null)
+            return new IntList(buffer, offset, size);
+        return new IntList(values, offset, size);
+    }
+
+    /**
+     * Copies the elements of this list into an array of their own.
+     * 
+     * @return the copy.
+     */
+    @Override
+    protected IntList compact()
+    {
+        int[] copy = new int[size];
+        copyTo(copy, 0);
+        return of(copy);
+    }
+
+    /**
+     * Gets the number of elements the storage of the list can hold.
+     * 
+     * @return the capacity of the storage.
+     */
+    @Override
+    public long getCapacity()
+    {
+        return values != null ? values.length : buffer.capacity();
+    }
+
+    /**
+     * Builds the flat list of the elements of this list followed by those
+     * of another.
+     * 
+     * @param other the list that follows, of the same class.
+     * @return the concatenation, in a new array.
+     */
+    @Override
+    protected IntList append(PrimitiveList other)
+    {
+        IntList rest = (IntList) other;
+        int[] joined = new int[size + rest.size];
+
+        copyTo(joined, 0);
+        rest.copyTo(joined, size);
+        return of(joined);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Walks the elements of a list of integers as runs of an {@code int}
+ * array, so bulk operations are written as plain loops over arrays. The
+ * runs of an integer list stored on the heap are its own array; the
+ * elements of other lists are copied into a chunk a run at a time.
+ * <pre>
+ * IntRuns runs = new IntRuns(list);
+ * while (runs.next())
+ *     for (int i = runs.from; i &lt; runs.to; i++)
+ *         ... runs.values[i] ...
+ * </pre>
+ */
+public final class IntRuns
+{
+    private static final int CHUNK = 4096;
+
+    /**
+     * The array holding the current run.
+     */
+    public int[] values;
+
+    /**
+     * The index in {@link #values} of the first element of the run.
+     */
+    public int from;
+
+    /**
+     * The index in {@link #values} after the last element of the run.
+     */
+    public int to;
+
+    private final Iterator<ListValue> leaves;   // The leaves not yet begun.
+    private ListValue leaf;         // The leaf being copied, or null.
+    private Iterator<Object> iter;  // The elements of a boxed leaf.
+    private int pos;                // The index in the leaf to copy next.
+    private int[] chunk;            // The array the leaf is copied into.
+
+    /**
+     * Constructs a new walk over the elements of a list of integers.
+     * 
+     * @param list the list.
+     */
+    public IntRuns(ListValue list)
+    {
+        this.leaves = list.leaves().iterator();
+    }
+
+    /**
+     * Constructs the runs of a value repeated without end.
+     * 
+     * @param values a chunk filled with the value.
+     */
+    private IntRuns(int[] values)
+    {
+        this.leaves = null;
+        this.values = values;
+        this.to = values.length;
+    }
+
+    /**
+     * Builds the runs of a value repeated without end, so the value can be
+     * combined with each element of a list in the same way as the elements
+     * of another list.
+     * 
+     * @param value the value.
+     * @return the runs, of which there is always a next one.
+     */
+    public static IntRuns repeat(int value)
+    {
+        int[] values = new int[CHUNK];
+        Arrays.fill(values, value);
+        return new IntRuns(values);
+    }
+
+    /**
+     * Moves to the next run, which is not empty.
+     * 
+     * @return true if there is another run, false if all the elements have
+     *         been walked.
+     */
+    public boolean next()
+    {
+        // A repeated value has a single run, which never runs out.
+        if (leaves == null)
+            return true;
+
+        while (true)
+        {
+            if (leaf != null && pos < leaf.size())
+            {
+                fill();
+                return true;
+            }
+            if (!leaves.hasNext())
+                return false;
+
+            ListValue list = leaves.next();
+            leaf = null;
+            if (list instanceof IntList ints && ints.values != null)
+            {
+                values = ints.values;
+                from = ints.offset;
+                to = ints.offset + ints.size;
+                if (from < to)
+                    return true;
+            }
+            else
+            {
+                leaf = list;
+                iter = list instanceof IntList || list instanceof RangeList
+                        ? null : list.iterator();
+                pos = 0;
+                if (chunk == null)
+                    chunk = new int[CHUNK];
+            }
+        }
+    }
+
+    /**
+     * Copies the next chunk of the current leaf.
+     */
+    private void fill()
+    {
+        int count = Math.min(CHUNK, leaf.size() - pos);
+
+        if (leaf instanceof IntList ints)
+            ints.buffer.get(ints.offset + pos, chunk, 0, count);
+        else if (leaf instanceof RangeList range)
+        {
+            int value = range.getInt(pos);
+            for (int i = 0; i < count; i++, value += range.getStep())
+                chunk[i] = value;
+        }
+        else
+            for (int i = 0; i < count; i++)
+                chunk[i] = (Integer) iter.next();
+
+        values = chunk;
+        from = 0;
+        to = count;
+        pos += count;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A list value of the language. Lists are immutable, so the operations on
+ * them share structure with their operands rather than copying them, and
+ * each representation makes the operations it is built for cheap.
+ * <p>
+ * A list value is a read-only {@link List}, so it prints and compares like
+ * any other list.
+ */
+public abstract class ListValue extends AbstractList<Object>
+{
+    /**
+     * Gets the first element of the list.
+     * 
+     * @return the first element.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public abstract Object head();
+
+    /**
+     * Gets the list of all but the first element.
+     * 
+     * @return the tail of the list.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    public abstract ListValue tail();
+
+    /**
+     * Gets the list of all but the first {@code count} elements.
+     * 
+     * @param count the number of elements to drop, at most the size of the
+     *              list.
+     * @return the remaining list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    public ListValue drop(int count)
+    {
+        ListValue list = this;
+        for (int i = 0; i < count; i++)
+            list = list.tail();
+        return list;
+    }
+
+    /**
+     * Gets the list of the first {@code count} elements. Along with
+     * {@link #drop} this splits the list in two.
+     * 
+     * @param count the number of elements to keep, at most the size of the
+     *              list.
+     * @return the prefix of the list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    public ListValue take(int count)
+    {
+        if (count > size())
+            throw new NoSuchElementException();
+        if (count == size())
+            return this;
+
+        ArrayList<Object> elems = new ArrayList<>(count);
+        Iterator<Object> iter = iterator();
+        for (int i = 0; i < count; i++)
+            elems.add(iter.next());
+        return copyOf(elems);
+    }
+
+    /**
+     * Builds the list of the elements of this list followed by those of
+     * another.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    public abstract ListValue concat(ListValue other);
+
+    /**
+     * Builds a single leaf of a {@link Rope} holding the elements of this
+     * list followed by those of another.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation, which is not a rope.
+     */
+    ListValue merged(ListValue other)
+    {
+        ArrayList<Object> elems = new ArrayList<>(this);
+        elems.addAll(other);
+        return copyOf(elems);
+    }
+
+    /**
+     * Gets the lists that hold the elements of this list, in order. Only a
+     * {@link Rope} is made of more than one.
+     * 
+     * @return the leaves of the list.
+     */
+    List<ListValue> leaves()
+    {
+        return List.of(this);
+    }
+
+    /**
+     * Builds the list of the given elements, stored unboxed if they are
+     * all integers, all reals or all booleans.
+     * 
+     * @param values the elements in order.
+     * @return the new list.
+     */
+    public static ListValue copyOf(List<?> values)
+    {
+        if (values.isEmpty() || values.get(0) == null)
+            return ConsList.of(values);
+        return copyOf(values, values.get(0).getClass());
+    }
+
+    /**
+     * Builds the list of the given elements, which are expected to be of a
+     * given class. The elements are stored unboxed if the class allows it
+     * and every element is of that class.
+     * 
+     * @param values the elements in order.
+     * @param kind   the expected class of the elements, or null if it is
+     *               not known.
+     * @return the new list.
+     */
+    public static ListValue copyOf(List<?> values, Class<?> kind)
+    {
+        PrimitiveList list = PrimitiveList.of(values, kind);
+        if (list != null)
+            return list;
+        return ConsList.of(values);
+    }
+
+    /**
+     * Gets a value as a list value, copying a list of another class.
+     * 
+     * @param value the value.
+     * @return the list value or null if the value is not a list.
+     */
+    public static ListValue from(Object value)
+    {
+        if (value instanceof ListValue list)
+            return list;
+        if (value instanceof List<?> list)
+            return copyOf(list);
+        return null;
+    }
+}
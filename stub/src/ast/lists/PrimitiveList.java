@@ -0,0 +1,328 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A list of numbers or booleans stored unboxed in an array. The list is a
+ * view of part of the array, so its tail, or any other suffix or prefix,
+ * shares the array rather than copying it, and its head, tail and length
+ * take constant time. A view that uses only a small part of a large array
+ * is compacted into an array of its own, so it does not keep the large
+ * array alive.
+ * <p>
+ * Storing the elements unboxed takes a small fraction of the memory of a
+ * cons list, which holds a cell and a boxed value for every element.
+ * Numbers of lists of at least {@link #getOffHeapThreshold} elements are
+ * stored off the heap in direct buffers, so the collector neither copies
+ * nor scans them. The memory of a buffer is released when the last list
+ * sharing it is collected.
+ */
+public abstract class PrimitiveList extends ListValue
+{
+    /**
+     * The system property that sets the default off-heap threshold.
+     */
+    public static final String OFF_HEAP_PROPERTY = "mfl.offheap.threshold";
+
+    /**
+     * The smallest capacity of storage that is compacted.
+     */
+    public static final int COMPACT_MIN = 1024;
+
+    /**
+     * The inverse of the fraction of its storage a list must use to keep
+     * sharing it.
+     */
+    public static final int COMPACT_RATIO = 4;
+
+    private static volatile int offHeapThreshold =
+            Integer.getInteger(OFF_HEAP_PROPERTY, 1 << 20);
+
+    protected final int offset;     // The index of the first element.
+    protected final int size;       // The number of elements.
+
+    /**
+     * Constructs a new window of the array of a list.
+     * 
+     * @param offset the index of the first element in the array.
+     * @param size   the number of elements.
+     */
+    protected PrimitiveList(int offset, int size)
+    {
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Builds a list over the elements of the given kind, stored unboxed.
+     * 
+     * @param values the elements in order.
+     * @param kind   the class of every element.
+     * @return the new list or null if the elements can not be stored
+     *         unboxed.
+     */
+    public static PrimitiveList of(List<?> values, Class<?> kind)
+    {
+        if (kind == Integer.class)
+            return IntList.of(values);
+        if (kind == Double.class)
+            return RealList.of(values);
+        if (kind == Boolean.class)
+            return BoolList.of(values);
+        return null;
+    }
+
+    /**
+     * Sets the number of elements at which lists of numbers are stored off
+     * the heap.
+     * 
+     * @param threshold the smallest length stored off the heap.
+     */
+    public static void setOffHeapThreshold(int threshold)
+    {
+        offHeapThreshold = threshold;
+    }
+
+    /**
+     * Gets the number of elements at which lists of numbers are stored off
+     * the heap, which defaults to the value of {@link #OFF_HEAP_PROPERTY}
+     * or about a million.
+     * 
+     * @return the smallest length stored off the heap.
+     */
+    public static int getOffHeapThreshold()
+    {
+        return offHeapThreshold;
+    }
+
+    /**
+     * Checks whether a list of numbers should be stored off the heap.
+     * 
+     * @param size the number of elements.
+     * @return true if the list is large enough to store off the heap.
+     */
+    protected static boolean isLarge(int size)
+    {
+        return size >= offHeapThreshold;
+    }
+
+    /**
+     * Allocates memory off the heap.
+     * 
+     * @param bytes the number of bytes.
+     * @return a direct buffer in the native byte order.
+     * @throws IllegalArgumentException if the list is too large for a
+     *                                  buffer.
+     */
+    protected static ByteBuffer allocate(long bytes)
+    {
+        if (bytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("List too large: " + bytes
+                    + " bytes.");
+        return ByteBuffer.allocateDirect((int) bytes)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Checks whether the elements of the list are stored off the heap.
+     * 
+     * @return true if the list is stored off the heap.
+     */
+    public boolean isOffHeap()
+    {
+        return false;
+    }
+
+    /**
+     * Builds a list over part of the storage of this list.
+     * 
+     * @param offset the index of the first element in the storage.
+     * @param size   the number of elements.
+     * @return the list sharing the storage of this list.
+     */
+    protected abstract PrimitiveList slice(int offset, int size);
+
+    /**
+     * Copies the elements of this list into storage of their own.
+     * 
+     * @return the copy.
+     */
+    protected abstract PrimitiveList compact();
+
+    /**
+     * Gets the number of elements the storage of the list can hold, which
+     * may be shared with other lists.
+     * 
+     * @return the capacity of the storage.
+     */
+    public abstract long getCapacity();
+
+    /**
+     * Builds the flat list of the elements of this list followed by those
+     * of another list of the same class.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation, in a new array.
+     */
+    protected abstract PrimitiveList append(PrimitiveList other);
+
+    /**
+     * Gets the first element of the list.
+     * 
+     * @return the first element.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    @Override
+    public Object head()
+    {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return get(0);
+    }
+
+    /**
+     * Gets the list of all but the first element, which shares the array
+     * of this list.
+     * 
+     * @return the tail of the list.
+     * @throws NoSuchElementException if the list is empty.
+     */
+    @Override
+    public ListValue tail()
+    {
+        return drop(1);
+    }
+
+    /**
+     * Gets the list of all but the first {@code count} elements in
+     * amortized constant time.
+     * 
+     * @param count the number of elements to drop.
+     * @return the remaining list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    @Override
+    public ListValue drop(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        return view(offset + count, size - count);
+    }
+
+    /**
+     * Gets the list of the first {@code count} elements in amortized
+     * constant time.
+     * 
+     * @param count the number of elements to keep.
+     * @return the prefix of the list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    @Override
+    public ListValue take(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        return view(offset, count);
+    }
+
+    /**
+     * Builds a list over part of the storage of this list, copying the
+     * part instead if it is a small fraction of a large storage. A small
+     * list then does not keep a large storage from being released.
+     * <p>
+     * A part is copied only once it is less than one
+     * {@link #COMPACT_RATIO}th of the storage, so walking a list with
+     * repeated tails copies a geometrically shrinking series of parts,
+     * which takes linear time in all.
+     * 
+     * @param offset the index of the first element in the storage.
+     * @param size   the number of elements.
+     * @return the list.
+     */
+    private PrimitiveList view(int offset, int size)
+    {
+        PrimitiveList list = slice(offset, size);
+        long capacity = getCapacity();
+        if (capacity >= COMPACT_MIN && (long) size * COMPACT_RATIO < capacity)
+            return list.compact();
+        return list;
+    }
+
+    /**
+     * Builds the list of the elements of this list followed by those of
+     * another. Short lists of the same class are copied into one array,
+     * others are joined as a {@link Rope}.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    @Override
+    public ListValue concat(ListValue other)
+    {
+        if (size == 0)
+            return other;
+        if (other.isEmpty())
+            return this;
+        if (other.getClass() == getClass()
+                && size + other.size() <= Rope.LEAF_SIZE)
+            return append((PrimitiveList) other);
+        return Rope.join(this, other);
+    }
+
+    /**
+     * Builds a single leaf of the elements of this list followed by those
+     * of another, keeping them unboxed if the lists are of the same class.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    @Override
+    ListValue merged(ListValue other)
+    {
+        if (other.getClass() == getClass())
+            return append((PrimitiveList) other);
+        return super.merged(other);
+    }
+
+    /**
+     * Checks that an index is within the list.
+     * 
+     * @param index the index.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    protected void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * 
+     * @return the length of the list.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+}
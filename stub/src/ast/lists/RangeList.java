@@ -0,0 +1,205 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An arithmetic sequence of integers, such as the value of the range
+ * {@code [1..n]}. Only the first element, the step and the length are
+ * stored, so the head, tail and length of a range, and any element of it,
+ * take constant time and no memory for the elements. A range is only
+ * copied into storage of its elements when it is merged into a leaf of a
+ * {@link Rope}.
+ */
+public final class RangeList extends ListValue
+{
+    private final int first;    // The first element.
+    private final int step;     // The difference between elements.
+    private final int size;     // The number of elements.
+
+    /**
+     * Constructs a new range.
+     * 
+     * @param first the first element.
+     * @param step  the difference between consecutive elements.
+     * @param size  the number of elements.
+     */
+    public RangeList(int first, int step, int size)
+    {
+        this.first = first;
+        this.step = step;
+        this.size = size;
+    }
+
+    /**
+     * Builds the range of the integers from {@code first} up to, or down
+     * to, at most {@code last}, in steps of {@code step}. The range is
+     * empty if {@code last} is before {@code first}.
+     * 
+     * @param first the first element.
+     * @param step  the difference between consecutive elements.
+     * @param last  the bound on the last element.
+     * @return the range.
+     * @throws IllegalArgumentException if the step is zero or the range is
+     *                                  too long.
+     */
+    public static RangeList of(int first, int step, int last)
+    {
+        if (step == 0)
+            throw new IllegalArgumentException(
+                    "A range can not have a step of zero.");
+
+        long count = ((long) last - first) / step + 1;
+        if (step > 0 && last < first || step < 0 && last > first)
+            count = 0;
+        if (count > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Range of " + count
+                    + " elements is too long.");
+        return new RangeList(first, step, (int) count);
+    }
+
+    /**
+     * Gets an element of the range without boxing it.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public int getInt(int index)
+    {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+        return first + index * step;
+    }
+
+    /**
+     * Gets the difference between consecutive elements of the range.
+     * 
+     * @return the step.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * Gets the first element of the range.
+     * 
+     * @return the first element.
+     * @throws NoSuchElementException if the range is empty.
+     */
+    @Override
+    public Object head()
+    {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return first;
+    }
+
+    /**
+     * Gets the range of all but the first element.
+     * 
+     * @return the tail of the range.
+     * @throws NoSuchElementException if the range is empty.
+     */
+    @Override
+    public ListValue tail()
+    {
+        return drop(1);
+    }
+
+    /**
+     * Gets the range of all but the first {@code count} elements in
+     * constant time.
+     * 
+     * @param count the number of elements to drop.
+     * @return the remaining range.
+     * @throws NoSuchElementException if the range is too short.
+     */
+    @Override
+    public ListValue drop(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        if (count == size)
+            return ConsList.EMPTY;
+        return new RangeList(first + count * step, step, size - count);
+    }
+
+    /**
+     * Gets the range of the first {@code count} elements in constant time.
+     * 
+     * @param count the number of elements to keep.
+     * @return the prefix of the range.
+     * @throws NoSuchElementException if the range is too short.
+     */
+    @Override
+    public ListValue take(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        return new RangeList(first, step, count);
+    }
+
+    /**
+     * Builds the list of the elements of this range followed by those of
+     * another list. A range continued by another range of the same step is
+     * extended, other lists are joined as a {@link Rope}.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    @Override
+    public ListValue concat(ListValue other)
+    {
+        if (size == 0)
+            return other;
+        if (other.isEmpty())
+            return this;
+
+        if (other instanceof RangeList range && range.step == step
+                && range.first == (long) first + (long) size * step
+                && (long) size + range.size <= Integer.MAX_VALUE)
+            return new RangeList(first, step, size + range.size);
+        return Rope.join(this, other);
+    }
+
+    /**
+     * Gets an element of the range.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    @Override
+    public Object get(int index)
+    {
+        return getInt(index);
+    }
+
+    /**
+     * Gets the number of elements in the range.
+     * 
+     * @return the length of the range.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+}
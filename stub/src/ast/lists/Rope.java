@@ -0,0 +1,384 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A list built by concatenation, represented as a balanced tree whose
+ * leaves are lists of other representations. The tree is kept balanced as
+ * an AVL tree, so the depths of the two sides of a node differ by at most
+ * one and the tree has logarithmic depth.
+ * <p>
+ * Concatenating, splitting and indexing take logarithmic time, and the
+ * length is cached. Small adjacent leaves are merged as they are joined, so
+ * a list built from many small fragments does not become a tree of tiny
+ * leaves.
+ */
+public final class Rope extends ListValue
+{
+    /**
+     * The most elements in a leaf built by merging two small leaves.
+     */
+    public static final int LEAF_SIZE = 32;
+
+    private final ListValue left;   // The elements that come first.
+    private final ListValue right;  // The elements that follow.
+    private final int size;         // The number of elements.
+    private final int depth;        // The height of the tree.
+
+    /**
+     * Constructs a new node of the tree.
+     * 
+     * @param left  the elements that come first.
+     * @param right the elements that follow.
+     */
+    private Rope(ListValue left, ListValue right)
+    {
+        this.left = left;
+        this.right = right;
+        this.size = left.size() + right.size();
+        this.depth = 1 + Math.max(depthOf(left), depthOf(right));
+    }
+
+    /**
+     * Concatenates two lists.
+     * 
+     * @param first  the list that comes first.
+     * @param second the list that follows.
+     * @return the concatenation of the lists.
+     */
+    public static ListValue join(ListValue first, ListValue second)
+    {
+        if (first.isEmpty())
+            return second;
+        if (second.isEmpty())
+            return first;
+
+        int d1 = depthOf(first);
+        int d2 = depthOf(second);
+        if (d1 > d2 + 1)
+            return joinRight((Rope) first, second);
+        if (d2 > d1 + 1)
+            return joinLeft(first, (Rope) second);
+        return merge(first, second);
+    }
+
+    /**
+     * Joins a list to the right of a deeper tree.
+     * 
+     * @param tree the deeper tree.
+     * @param list the list that follows the tree.
+     * @return the balanced concatenation.
+     */
+    private static ListValue joinRight(Rope tree, ListValue list)
+    {
+        ListValue joined;
+
+        if (depthOf(tree.right) <= depthOf(list) + 1)
+        {
+            joined = merge(tree.right, list);
+            if (depthOf(joined) <= depthOf(tree.left) + 1)
+                return new Rope(tree.left, joined);
+            return rotateLeft(new Rope(tree.left, rotateRight((Rope) joined)));
+        }
+
+        joined = joinRight((Rope) tree.right, list);
+        Rope node = new Rope(tree.left, joined);
+        if (depthOf(joined) <= depthOf(tree.left) + 1)
+            return node;
+        return rotateLeft(node);
+    }
+
+    /**
+     * Joins a list to the left of a deeper tree.
+     * 
+     * @param list the list that comes first.
+     * @param tree the deeper tree.
+     * @return the balanced concatenation.
+     */
+    private static ListValue joinLeft(ListValue list, Rope tree)
+    {
+        ListValue joined;
+
+        if (depthOf(tree.left) <= depthOf(list) + 1)
+        {
+            joined = merge(list, tree.left);
+            if (depthOf(joined) <= depthOf(tree.right) + 1)
+                return new Rope(joined, tree.right);
+            return rotateRight(new Rope(rotateLeft((Rope) joined), tree.right));
+        }
+
+        joined = joinLeft(list, (Rope) tree.left);
+        Rope node = new Rope(joined, tree.right);
+        if (depthOf(joined) <= depthOf(tree.right) + 1)
+            return node;
+        return rotateRight(node);
+    }
+
+    /**
+     * Joins two lists of similar depth, merging them into one leaf if they
+     * are small leaves.
+     * 
+     * @param first  the list that comes first.
+     * @param second the list that follows.
+     * @return the concatenation.
+     */
+    private static ListValue merge(ListValue first, ListValue second)
+    {
+        if (first instanceof Rope || second instanceof Rope
+                || first.size() + second.size() > LEAF_SIZE)
+            return new Rope(first, second);
+        return first.merged(second);
+    }
+
+    /**
+     * Rotates a tree whose right side is too deep.
+     * 
+     * @param tree the tree.
+     * @return the rotated tree.
+     */
+    private static Rope rotateLeft(Rope tree)
+    {
+        Rope r = (Rope) tree.right;
+        return new Rope(new Rope(tree.left, r.left), r.right);
+    }
+
+    /**
+     * Rotates a tree whose left side is too deep.
+     * 
+     * @param tree the tree.
+     * @return the rotated tree.
+     */
+    private static Rope rotateRight(Rope tree)
+    {
+        Rope l = (Rope) tree.left;
+        return new Rope(l.left, new Rope(l.right, tree.right));
+    }
+
+    /**
+     * Gets the height of a list, which is zero for a leaf.
+     * 
+     * @param list the list.
+     * @return the height of its tree.
+     */
+    private static int depthOf(ListValue list)
+    {
+        return list instanceof Rope rope ? rope.depth : 0;
+    }
+
+    /**
+     * Gets the first element of the list.
+     * 
+     * @return the first element.
+     */
+    @Override
+    public Object head()
+    {
+        ListValue list = this;
+        while (list instanceof Rope rope)
+            list = rope.left;
+        return list.head();
+    }
+
+    /**
+     * Gets the list of all but the first element.
+     * 
+     * @return the tail of the list.
+     */
+    @Override
+    public ListValue tail()
+    {
+        return drop(1);
+    }
+
+    /**
+     * Gets the list of all but the first {@code count} elements in
+     * logarithmic time.
+     * 
+     * @param count the number of elements to drop.
+     * @return the remaining list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    @Override
+    public ListValue drop(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        if (count == 0)
+            return this;
+        if (count < left.size())
+            return join(left.drop(count), right);
+        return right.drop(count - left.size());
+    }
+
+    /**
+     * Gets the list of the first {@code count} elements in logarithmic
+     * time.
+     * 
+     * @param count the number of elements to keep.
+     * @return the prefix of the list.
+     * @throws NoSuchElementException if the list is too short.
+     */
+    @Override
+    public ListValue take(int count)
+    {
+        if (count > size)
+            throw new NoSuchElementException();
+        if (count == size)
+            return this;
+        if (count <= left.size())
+            return left.take(count);
+        return join(left, right.take(count - left.size()));
+    }
+
+    /**
+     * Builds the list of the elements of this list followed by those of
+     * another in logarithmic time.
+     * 
+     * @param other the list that follows.
+     * @return the concatenation of the lists.
+     */
+    @Override
+    public ListValue concat(ListValue other)
+    {
+        return join(this, other);
+    }
+
+    /**
+     * Gets an element of the list.
+     * 
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    @Override
+    public Object get(int index)
+    {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+
+        ListValue list = this;
+        while (list instanceof Rope rope)
+        {
+            if (index < rope.left.size())
+                list = rope.left;
+            else
+            {
+                index -= rope.left.size();
+                list = rope.right;
+            }
+        }
+        return list.get(index);
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * 
+     * @return the length of the list.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Gets the leaves of the tree in order.
+     * 
+     * @return the leaves of the list.
+     */
+    @Override
+    List<ListValue> leaves()
+    {
+        ArrayList<ListValue> leaves = new ArrayList<>();
+        ArrayDeque<ListValue> pending = new ArrayDeque<>();
+
+        pending.push(this);
+        while (!pending.isEmpty())
+        {
+            ListValue list = pending.pop();
+            if (list instanceof Rope rope)
+            {
+                pending.push(rope.right);
+                pending.push(rope.left);
+            }
+            else
+                leaves.add(list);
+        }
+        return leaves;
+    }
+
+    /**
+     * Gets an iterator that walks the leaves of the tree in order.
+     * 
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<Object> iterator()
+    {
+        ArrayDeque<ListValue> pending = new ArrayDeque<>();
+        pending.push(this);
+
+        return new Iterator<>()
+        {
+            private Iterator<Object> leaf = nextLeaf();
+
+            /**
+             * Finds the next non-empty leaf.
+             * 
+             * @return an iterator over the leaf, or null if none remain.
+             */
+            private Iterator<Object> nextLeaf()
+            {
+                while (!pending.isEmpty())
+                {
+                    ListValue list = pending.pop();
+                    if (list instanceof Rope rope)
+                    {
+                        pending.push(rope.right);
+                        pending.push(rope.left);
+                    }
+                    else if (!list.isEmpty())
+                        return list.iterator();
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return leaf != null;
+            }
+
+            @Override
+            public Object next()
+            {
+                if (leaf == null)
+                    throw new NoSuchElementException();
+                Object value = leaf.next();
+                if (!leaf.hasNext())
+                    leaf = nextLeaf();
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+/**
+ * Sorting, deduplication and search of lists. Lists of ints and reals are
+ * copied into a primitive array, which is sorted in parallel once it is
+ * large; lists of booleans are sorted by counting.
+ */
+public final class Sorting
+{
+    /**
+     * The smallest array sorted in parallel. Below this the fork-join
+     * overhead of {@link Arrays#parallelSort} outweighs the gain.
+     */
+    public static final int PARALLEL_MIN = 1 << 13;
+
+    /**
+     * This class only holds static methods.
+     */
+    private Sorting()
+    {
+    }
+
+    /**
+     * Sorts a list of ints, reals or booleans, where false comes before
+     * true.
+     * 
+     * @param list       the list.
+     * @param descending true for the greatest element first, false for the
+     *                   least element first.
+     * @return the sorted list.
+     * @throws IllegalArgumentException if the elements can not be sorted.
+     */
+    public static ListValue sort(ListValue list, boolean descending)
+    {
+        if (list.isEmpty())
+            return list;
+
+        // A range with a positive step is already sorted.
+        if (list instanceof RangeList range
+                && range.getStep() != Integer.MIN_VALUE)
+        {
+            if (range.getStep() > 0 != descending)
+                return range;
+            int last = range.getInt(range.size() - 1);
+            return new RangeList(last, -range.getStep(), range.size());
+        }
+
+        Object head = list.head();
+        if (head instanceof Integer)
+        {
+            int[] values = toIntArray(list);
+            sort(values);
+            if (descending)
+                for (int i = 0, j = values.length - 1; i < j; i++, j--)
+                {
+                    int tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                }
+            return IntList.of(values);
+        }
+        if (head instanceof Double)
+        {
+            double[] values = toRealArray(list);
+            sort(values);
+            if (descending)
+                for (int i = 0, j = values.length - 1; i < j; i++, j--)
+                {
+                    double tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                }
+            return RealList.of(values);
+        }
+        if (head instanceof Boolean)
+        {
+            int trues = 0;
+            for (Object elem : list)
+                trues += (Boolean) elem ? 1 : 0;
+
+            int size = list.size();
+            int from = descending ? 0 : size - trues;
+            long[] bits = new long[(size + 63) >>> 6];
+            for (int i = from; i < from + trues; i++)
+                bits[i >>> 6] |= 1L << i;
+            return new BoolList(bits, 0, size);
+        }
+        throw new IllegalArgumentException(
+                "Only lists of ints, reals and bools can be sorted.");
+    }
+
+    /**
+     * Removes the repeated elements of a list, keeping the first occurrence
+     * of each element in order. Reals are compared as by
+     * {@link Double#equals}, so every NaN is the same element.
+     * 
+     * @param list the list.
+     * @return the list without repeated elements.
+     */
+    public static ListValue distinct(ListValue list)
+    {
+        if (list.isEmpty() || list instanceof RangeList)
+            return list;
+
+        // Each element is found in a sorted copy of the list, which marks
+        // it seen, so ints and reals are never boxed.
+        Object head = list.head();
+        if (head instanceof Integer)
+        {
+            int[] values = toIntArray(list);
+            int[] sorted = values.clone();
+            sort(sorted);
+            int unique = 0;
+            for (int value : sorted)
+                if (unique == 0 || sorted[unique - 1] != value)
+                    sorted[unique++] = value;
+
+            boolean[] seen = new boolean[unique];
+            int count = 0;
+            for (int value : values)
+            {
+                int idx = Arrays.binarySearch(sorted, 0, unique, value);
+                if (!seen[idx])
+                {
+                    seen[idx] = true;
+                    values[count++] = value;
+                }
+            }
+            return IntList.of(Arrays.copyOf(values, count));
+        }
+        if (head instanceof Double)
+        {
+            double[] values = toRealArray(list);
+            double[] sorted = values.clone();
+            sort(sorted);
+            int unique = 0;
+            for (double value : sorted)
+                if (unique == 0
+                        || Double.compare(sorted[unique - 1], value) != 0)
+                    sorted[unique++] = value;
+
+            boolean[] seen = new boolean[unique];
+            int count = 0;
+            for (double value : values)
+            {
+                int idx = Arrays.binarySearch(sorted, 0, unique, value);
+                if (!seen[idx])
+                {
+                    seen[idx] = true;
+                    values[count++] = value;
+                }
+            }
+            return RealList.of(Arrays.copyOf(values, count));
+        }
+        return ListValue.copyOf(new ArrayList<>(new LinkedHashSet<>(list)));
+    }
+
+    /**
+     * Finds the first occurrence of a value in a list. Reals are equal as
+     * they are for {@code =} and {@link #distinct}.
+     * 
+     * @param list  the list.
+     * @param value the value.
+     * @return the index of the first element equal to the value or -1 if
+     *         there is none.
+     */
+    public static int indexOf(ListValue list, Object value)
+    {
+        if (list instanceof RangeList range && value instanceof Integer key)
+        {
+            if (range.isEmpty())
+                return -1;
+            long offset = (long) key - range.getInt(0);
+            if (offset % range.getStep() != 0)
+                return -1;
+            long idx = offset / range.getStep();
+            return idx >= 0 && idx < range.size() ? (int) idx : -1;
+        }
+
+        int base = 0;
+        if (value instanceof Integer target)
+        {
+            IntRuns runs = new IntRuns(list);
+            int key = target;
+            while (runs.next())
+            {
+                int[] values = runs.values;
+                for (int i = runs.from; i < runs.to; i++)
+                    if (values[i] == key)
+                        return base + i - runs.from;
+                base += runs.to - runs.from;
+            }
+            return -1;
+        }
+        if (value instanceof Double target)
+        {
+            RealRuns runs = new RealRuns(list);
+            double key = target;
+            while (runs.next())
+            {
+                double[] values = runs.values;
+                for (int i = runs.from; i < runs.to; i++)
+                    if (Double.compare(values[i], key) == 0)
+                        return base + i - runs.from;
+                base += runs.to - runs.from;
+            }
+            return -1;
+        }
+        return list.indexOf(value);
+    }
+
+    /**
+     * Sorts an array of ints, in parallel if it is large.
+     * 
+     * @param values the array.
+     */
+    private static void sort(int[] values)
+    {
+        if (values.length >= PARALLEL_MIN)
+            Arrays.parallelSort(values);
+        else
+            Arrays.sort(values);
+    }
+
+    /**
+     * Sorts an array of reals, in parallel if it is large.
+     * 
+     * @param values the array.
+     */
+    private static void sort(double[] values)
+    {
+        if (values.length >= PARALLEL_MIN)
+            Arrays.parallelSort(values);
+        else
+            Arrays.sort(values);
+    }
+
+    /**
+     * Copies the elements of a list of ints into a new array.
+     * 
+     * @param list the list.
+     * @return the array of the elements.
+     */
+    private static int[] toIntArray(ListValue list)
+    {
+        int[] out = new int[list.size()];
+        IntRuns runs = new IntRuns(list);
+        int pos = 0;
+
+        while (runs.next())
+        {
+            System.arraycopy(runs.values, runs.from, out, pos,
+                    runs.to - runs.from);
+            pos += runs.to - runs.from;
+        }
+        return out;
+    }
+
+    /**
+     * Copies the elements of a list of reals into a new array.
+     * 
+     * @param list the list.
+     * @return the array of the elements.
+     */
+    private static double[] toRealArray(ListValue list)
+    {
+        double[] out = new double[list.size()];
+        RealRuns runs = new RealRuns(list);
+        int pos = 0;
+
+        while (runs.next())
+        {
+            System.arraycopy(runs.values, runs.from, out, pos,
+                    runs.to - runs.from);
+            pos += runs.to - runs.from;
+        }
+        return out;
+    }
+}
@@ -16,9 +16,19 @@
  */
 package ast.nodes;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
+import ast.ParallelEvaluation;
+import ast.lists.Elementwise;
+import ast.lists.ListValue;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.ListType;
+import ast.typesystem.types.RealType;
 import ast.typesystem.types.Type;
 import environment.Environment;
 import environment.TypeEnvironment;
@@ -33,6 +43,8 @@ public final class BinOpNode extends SyntaxNode {
     private TokenType op;
     private SyntaxNode leftTerm;
     private SyntaxNode rightTerm;
+    private boolean forkOperands;   // True if the operands run in parallel.
+    private boolean elementwise;    // True if an operand is a list.
 
     /**
      * Constructs a new binary operation syntax node.
@@ -50,6 +62,67 @@ public final class BinOpNode extends SyntaxNode {
         this.rightTerm = rterm;
     }
 
+    /**
+     * Gets the binary operation performed by the node.
+     * 
+     * @return the operation.
+     */
+    public TokenType getOp() {
+        return op;
+    }
+
+    /**
+     * Gets the left operand.
+     * 
+     * @return the left operand.
+     */
+    public SyntaxNode getLeftTerm() {
+        return leftTerm;
+    }
+
+    /**
+     * Gets the right operand.
+     * 
+     * @return the right operand.
+     */
+    public SyntaxNode getRightTerm() {
+        return rightTerm;
+    }
+
+    /**
+     * Determines if the operation is arithmetic applied element by element
+     * to a list, as found by {@link #typeOf}.
+     * 
+     * @return true if an operand of the arithmetic operation is a list.
+     */
+    public boolean isElementwise() {
+        return elementwise;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren() {
+        return List.of(leftTerm, rightTerm);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children) {
+        BinOpNode copy = new BinOpNode(children.get(0), op, children.get(1),
+                getLineNumber());
+        copy.elementwise = elementwise;
+        return copy;
+    }
+
     /**
      * Display a AST inferencertree with the indentation specified.
      * 
@@ -62,6 +135,16 @@ public final class BinOpNode extends SyntaxNode {
         printIndented(")", indentAmt);
     }
 
+    /**
+     * Sets whether the operands are costly enough to evaluate in parallel.
+     * 
+     * @param forkOperands true if the operands should be evaluated in
+     *                     parallel.
+     */
+    public void setForkOperands(boolean forkOperands) {
+        this.forkOperands = forkOperands;
+    }
+
     /**
      * Evaluate the node.
      * 
@@ -71,28 +154,55 @@ public final class BinOpNode extends SyntaxNode {
      */
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        Object lval = leftTerm.evaluate(env);
-        Object rval = rightTerm.evaluate(env);
+        Object lval;
+        Object rval;
 
+        if (forkOperands && env.isParallel()
+                && ForkJoinTask.inForkJoinPool()) {
+            // The left operand is awaited first, so its failure is the one
+            // reported, as in sequential evaluation.
+            ParallelEvaluation left = ParallelEvaluation.fork(leftTerm, env);
+            ParallelEvaluation right = ParallelEvaluation.run(rightTerm, env);
+            List<Object> operands = ParallelEvaluation.awaitAll(
+                    List.of(left, right));
+            lval = operands.get(0);
+            rval = operands.get(1);
+        } else {
+            lval = leftTerm.evaluate(env);
+            rval = rightTerm.evaluate(env);
+        }
+        return apply(lval, rval);
+    }
+
+    /**
+     * Applies the operation to evaluated operands.
+     * 
+     * @param lval the value of the left operand.
+     * @param rval the value of the right operand.
+     * @return the result of the operation.
+     * @throws EvaluationException if the operands have the wrong types.
+     */
+    public Object apply(Object lval, Object rval) throws EvaluationException {
         if (op == TokenType.CONCAT) {
             if (lval instanceof java.util.List<?> leftList && rval instanceof java.util.List<?> rightList) {
                 if (!leftList.isEmpty() && !rightList.isEmpty()) {
-                    Class<?> leftType = leftList.get(0).getClass();
-                    Class<?> rightType = rightList.get(0).getClass();
+                    Class<?> leftType = kindOf(leftList.get(0));
+                    Class<?> rightType = kindOf(rightList.get(0));
                     if (!leftType.equals(rightType)) {
                         logError("Error: Concatenation requires lists of the same element type.");
                         throw new EvaluationException();
                     }
                 }
-                java.util.List<Object> newList = new java.util.ArrayList<>(leftList);
-                newList.addAll(rightList);
-                return newList;
+                return ListValue.from(leftList).concat(ListValue.from(rightList));
             } else {
                 logError("Error: Concatenation requires two list operands.");
                 throw new EvaluationException();
             }
         }
 
+        if (lval instanceof java.util.List<?> || rval instanceof java.util.List<?>)
+            return applyElementwise(lval, rval);
+
         if (!(lval instanceof Integer || lval instanceof Double || lval instanceof Boolean) ||
             !(rval instanceof Integer || rval instanceof Double || rval instanceof Boolean)) {
             logError("Invalid operands for binary operation.");
@@ -133,9 +243,55 @@ public final class BinOpNode extends SyntaxNode {
         }
     }
 
+    /**
+     * Applies an arithmetic operation element by element to a list and a
+     * list or scalar.
+     * 
+     * @param lval the value of the left operand.
+     * @param rval the value of the right operand.
+     * @return the list of the results.
+     * @throws EvaluationException if the operation is not arithmetic or the
+     *                             operands can not be combined.
+     */
+    private Object applyElementwise(Object lval, Object rval) throws EvaluationException {
+        Elementwise.Op vop;
+        switch (op) {
+            case ADD:
+                vop = Elementwise.Op.ADD;
+                break;
+            case SUB:
+                vop = Elementwise.Op.SUB;
+                break;
+            case MULT:
+                vop = Elementwise.Op.MULT;
+                break;
+            case DIV:
+                vop = Elementwise.Op.DIV;
+                break;
+            default:
+                logError("Invalid operands for binary operation.");
+                throw new EvaluationException();
+        }
+
+        try {
+            return Elementwise.apply(vop, lval, rval);
+        } catch (IllegalArgumentException ex) {
+            logError("Error: " + ex.getMessage());
+            throw new EvaluationException();
+        } catch (ArithmeticException ex) {
+            logError("Error: Division by zero.");
+            throw new EvaluationException();
+        } catch (ClassCastException ex) {
+            logError("Invalid operands for binary operation.");
+            throw new EvaluationException();
+        }
+    }
+
     /**
      * Determine the type of the syntax node. In particluar bool, int, real,
-     * generic, or function.
+     * generic, or function. The operands are typed by an
+     * {@link IterativeTypeChecker} so deeply nested expressions do not exhaust
+     * the stack.
      * 
      * @param tenv       the type environment.
      * @param inferencer the type inferencer
@@ -144,9 +300,34 @@ public final class BinOpNode extends SyntaxNode {
      */
     @Override
     public Type typeOf(TypeEnvironment tenv, Inferencer inferencer) throws TypeException {
-        // Infer the type of both operands
-        Type leftType = leftTerm.typeOf(tenv, inferencer);
-        Type rightType = rightTerm.typeOf(tenv, inferencer);
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
+
+    /**
+     * Determine the type of the operation given the types of its operands.
+     * 
+     * @param leftType   the type of the left operand.
+     * @param rightType  the type of the right operand.
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    public Type typeOf(Type leftType, Type rightType, TypeEnvironment tenv,
+            Inferencer inferencer) throws TypeException {
+        // Arithmetic applies element by element when an operand is a list.
+        if (op == TokenType.ADD || op == TokenType.SUB
+                || op == TokenType.MULT || op == TokenType.DIV) {
+            Type type = inferencer.unifyElementwise(leftType, rightType,
+                    "Binary operation operand mismatch");
+            elementwise = type instanceof ListType;
+            Type elemType = elementwise ? ((ListType) type).getElementType()
+                    : type;
+            if (elemType instanceof IntType || elemType instanceof RealType)
+                return type;
+            throw new TypeException(buildErrorMessage(
+                    "Arithmetic operations require Int or Real types, got: " + type));
+        }
 
         // Attempt to unify them
         inferencer.unify(leftType, rightType, "Binary operation operand mismatch");
@@ -156,20 +337,7 @@ public final class BinOpNode extends SyntaxNode {
         rightType = inferencer.getSubstitutions().apply(rightType);
 
         switch (op) {
-            // Arithmetic operators
-            case ADD:
-            case SUB:
-            case MULT:
-            case DIV:
-                if (leftType instanceof ast.typesystem.types.IntType)
-                    return new ast.typesystem.types.IntType();
-                else if (leftType instanceof ast.typesystem.types.RealType)
-                    return new ast.typesystem.types.RealType();
-                else
-                    throw new TypeException(buildErrorMessage(
-                            "Arithmetic operations require Int or Real types, got: " + leftType));
-
-                // Modulus
+            // Modulus
             case MOD:
                 if (leftType instanceof ast.typesystem.types.IntType)
                     return new ast.typesystem.types.IntType();
@@ -0,0 +1,377 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import ast.EvaluationException;
+import ast.lists.Aggregates;
+import ast.lists.ListValue;
+import ast.lists.RealList;
+import ast.lists.Sorting;
+import ast.typesystem.TypeException;
+import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.BoolType;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.ListType;
+import ast.typesystem.types.RealType;
+import ast.typesystem.types.Type;
+import ast.typesystem.types.VarType;
+import environment.Environment;
+import environment.TypeEnvironment;
+import lexer.TokenType;
+
+/**
+ * This node represents a call of a built-in function on lists, such as
+ * {@code sum(xs)}, {@code dot(xs, ys)} or {@code sort(xs)}. The built-in
+ * functions are written in Java against the unboxed storage of the lists,
+ * so they work on a list as a whole rather than recursing through
+ * {@code tl}.
+ */
+public final class BuiltinNode extends SyntaxNode
+{
+    private TokenType op;           // The built-in function.
+    private List<SyntaxNode> args;  // The arguments.
+    private Class<?> elementKind;   // The element class of the list or null.
+
+    /**
+     * Constructs a new built-in call.
+     * 
+     * @param op   the token naming the built-in function.
+     * @param args the arguments, of which there are {@link #arity} many.
+     * @param line the line of code the node is associated with.
+     */
+    public BuiltinNode(TokenType op, List<SyntaxNode> args, long line)
+    {
+        super(line);
+        this.op = op;
+        this.args = List.copyOf(args);
+    }
+
+    /**
+     * Determines if a token names a built-in function.
+     * 
+     * @param type the type of the token.
+     * @return true if the token names a built-in function.
+     */
+    public static boolean isBuiltin(TokenType type)
+    {
+        switch (type)
+        {
+        case SUM:
+        case MIN:
+        case MAX:
+        case AVG:
+        case COUNT:
+        case DOT:
+        case SORT:
+        case SORTDESC:
+        case DISTINCT:
+        case INDEXOF:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Finds the built-in function called by a name. The names are not
+     * reserved, so an identifier only calls the function when it is
+     * followed by an argument list.
+     * 
+     * @param name the name.
+     * @return the built-in function or null if no function has the name.
+     */
+    public static TokenType named(String name)
+    {
+        for (TokenType op : TokenType.values())
+            if (isBuiltin(op) && nameOf(op).equals(name))
+                return op;
+        return null;
+    }
+
+    /**
+     * Gets the number of arguments a built-in function takes.
+     * 
+     * @param op the built-in function.
+     * @return the number of arguments.
+     */
+    public static int arity(TokenType op)
+    {
+        switch (op)
+        {
+        case COUNT:
+        case DOT:
+        case INDEXOF:
+            return 2;
+        default:
+            return 1;
+        }
+    }
+
+    /**
+     * Gets the name a built-in function is called by.
+     * 
+     * @param op the built-in function.
+     * @return the name of the function.
+     */
+    public static String nameOf(TokenType op)
+    {
+        switch (op)
+        {
+        case SORTDESC:
+            return "sortDesc";
+        case INDEXOF:
+            return "indexOf";
+        default:
+            return op.name().toLowerCase();
+        }
+    }
+
+    /**
+     * Gets the built-in function called.
+     * 
+     * @return the token type naming the function.
+     */
+    public TokenType getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the arguments.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        return args;
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        BuiltinNode copy = new BuiltinNode(op, children, getLineNumber());
+        copy.elementKind = elementKind;
+        return copy;
+    }
+
+    /**
+     * Evaluate the node.
+     * 
+     * @param env the executional environment we should evaluate the node
+     *            under.
+     * @return the object representing the result of the evaluation.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    @Override
+    public Object evaluate(Environment env) throws EvaluationException
+    {
+        List<Object> values = new ArrayList<>(args.size());
+        for (SyntaxNode arg : args)
+            values.add(arg.evaluate(env));
+        return apply(values);
+    }
+
+    /**
+     * Calls the built-in function on evaluated arguments.
+     * 
+     * @param values the values of the arguments in order.
+     * @return the result of the call.
+     * @throws EvaluationException if an argument is not suitable.
+     */
+    public Object apply(List<Object> values) throws EvaluationException
+    {
+        ListValue list = ListValue.from(values.get(0));
+        if (list == null)
+        {
+            logError(nameOf(op) + " requires a list argument.");
+            throw new EvaluationException();
+        }
+
+        try
+        {
+            switch (op)
+            {
+            case COUNT:
+                return Aggregates.count(list, values.get(1));
+            case INDEXOF:
+                return Sorting.indexOf(list, values.get(1));
+            case SORT:
+            case SORTDESC:
+                return Sorting.sort(list, op == TokenType.SORTDESC);
+            case DISTINCT:
+                return Sorting.distinct(list);
+            case DOT:
+                ListValue other = ListValue.from(values.get(1));
+                if (other == null)
+                {
+                    logError("dot requires two list arguments.");
+                    throw new EvaluationException();
+                }
+                if (isReal(list) || isReal(other))
+                    return Aggregates.dotReal(list, other);
+                return Aggregates.dotInt(list, other);
+            default:
+                return aggregate(list);
+            }
+        }
+        catch (NoSuchElementException ex)
+        {
+            logError(nameOf(op) + " of an empty list.");
+            throw new EvaluationException();
+        }
+        catch (ClassCastException ex)
+        {
+            logError(nameOf(op) + " requires a list of numbers.");
+            throw new EvaluationException();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            logError(ex.getMessage());
+            throw new EvaluationException();
+        }
+    }
+
+    /**
+     * Reduces a list of numbers with a one argument built-in function.
+     * 
+     * @param list the list.
+     * @return the result of the reduction.
+     */
+    private Object aggregate(ListValue list)
+    {
+        boolean real = isReal(list);
+
+        switch (op)
+        {
+        case SUM:
+            if (real)
+                return Aggregates.sumReal(list);
+            return Aggregates.sumInt(list);
+        case MIN:
+        case MAX:
+            if (real)
+                return Aggregates.extremeReal(list, op == TokenType.MAX);
+            return Aggregates.extremeInt(list, op == TokenType.MAX);
+        default:
+            if (real)
+                return Aggregates.averageReal(list);
+            return Aggregates.averageInt(list);
+        }
+    }
+
+    /**
+     * Determines if a list holds reals. The elements decide for a list that
+     * has some, so the node works on lists that were never type checked;
+     * the type recorded by {@link #typeOf} decides for an empty list.
+     * 
+     * @param list the list.
+     * @return true if the list holds reals.
+     */
+    private boolean isReal(ListValue list)
+    {
+        if (list instanceof RealList)
+            return true;
+        if (list.isEmpty())
+            return elementKind == Double.class;
+        return list.head() instanceof Double;
+    }
+
+    /**
+     * Determine the type of the syntax node. The first argument is a list
+     * whose elements must be ints or reals for the arithmetic functions,
+     * and ints, reals or bools for sorting.
+     * 
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    @Override
+    public Type typeOf(TypeEnvironment tenv, Inferencer inferencer)
+            throws TypeException
+    {
+        String name = nameOf(op);
+        VarType elemVar = tenv.getTypeVariable();
+        ListType listType = new ListType(elemVar);
+
+        inferencer.unify(args.get(0).typeOf(tenv, inferencer), listType,
+                name + " requires a list argument");
+        if (op == TokenType.COUNT || op == TokenType.INDEXOF)
+            inferencer.unify(args.get(1).typeOf(tenv, inferencer), elemVar,
+                    name + " requires a value of the element type");
+        else if (op == TokenType.DOT)
+            inferencer.unify(args.get(1).typeOf(tenv, inferencer), listType,
+                    "dot requires lists of the same element type");
+
+        Type elemType = inferencer.getSubstitutions().apply(elemVar);
+        if (elemType instanceof IntType)
+            elementKind = Integer.class;
+        else if (elemType instanceof RealType)
+            elementKind = Double.class;
+        else if (elemType instanceof BoolType)
+            elementKind = Boolean.class;
+        else
+            elementKind = null;
+
+        switch (op)
+        {
+        case COUNT:
+        case INDEXOF:
+            return new IntType();
+        case DISTINCT:
+            return new ListType(elemType);
+        case SORT:
+        case SORTDESC:
+            if (elementKind == null)
+                throw new TypeException(buildErrorMessage(name
+                        + " requires a list of Int, Real or Bool, got: "
+                        + new ListType(elemType)));
+            return new ListType(elemType);
+        default:
+            if (elementKind == null || elementKind == Boolean.class)
+                throw new TypeException(buildErrorMessage(name
+                        + " requires a list of Int or Real, got: "
+                        + new ListType(elemType)));
+            return op == TokenType.AVG ? new RealType() : elemType;
+        }
+    }
+
+    /**
+     * Display a AST subtree with the indentation specified.
+     * 
+     * @param indentAmt the amout of indentation to perform.
+     */
+    @Override
+    public void displaySubtree(int indentAmt)
+    {
+        printIndented(nameOf(op) + "(", indentAmt);
+        for (SyntaxNode arg : args)
+            arg.displaySubtree(indentAmt + 2);
+        printIndented(")", indentAmt);
+    }
+}
@@ -16,9 +16,11 @@
  */
 package ast.nodes;
 
-import java.util.LinkedList;
+import java.util.List;
 
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
+import ast.Thunk;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -36,6 +38,7 @@ public final class LetNode extends SyntaxNode
     private Token var;
     private SyntaxNode varExpr;
     private SyntaxNode expr;
+    private int slot = -1;  // The resolved slot of the variable.
 
     /**
      * Constructs a new binary operation syntax node.
@@ -53,6 +56,80 @@ public final class LetNode extends SyntaxNode
         this.expr = expr;
     }
 
+    /**
+     * Gets the variable bound by the let.
+     * 
+     * @return the variable identifier.
+     */
+    public Token getVar()
+    {
+        return var;
+    }
+
+    /**
+     * Gets the expression that gives the variable its value.
+     * 
+     * @return the variable expression.
+     */
+    public SyntaxNode getVarExpr()
+    {
+        return varExpr;
+    }
+
+    /**
+     * Gets the body of the let.
+     * 
+     * @return the body expression.
+     */
+    public SyntaxNode getExpr()
+    {
+        return expr;
+    }
+
+    /**
+     * Sets the local slot the variable is stored in.
+     * 
+     * @param slot the slot of the variable.
+     */
+    public void setSlot(int slot)
+    {
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the local slot the variable is stored in.
+     * 
+     * @return the slot or -1 if the let has not been resolved.
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        return List.of(varExpr, expr);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        return new LetNode(var, children.get(0), children.get(1),
+                getLineNumber());
+    }
+
     /**
      * Evaluate the node.
      * 
@@ -62,22 +139,51 @@ public final class LetNode extends SyntaxNode
      */
     public Object evaluate(Environment env) throws EvaluationException
     {
+        Object varVal = env.isLazy() ? new Thunk(varExpr, env)
+                : varExpr.evaluate(env);
+        Object value = expr.evaluate(bind(env, varVal));
+        unbind(env);
+        return value;
+    }
+
+    /**
+     * Binds the variable to an evaluated value.
+     * 
+     * @param env    the executional environment.
+     * @param varVal the value of the variable.
+     * @return the environment to evaluate the body under.
+     */
+    public Environment bind(Environment env, Object varVal)
+    {
+        // A resolved let just fills its slot in the frame.
+        if (slot >= 0)
+        {
+            env.setLocal(slot, varVal);
+            return env;
+        }
 
-        Object varVal = null;
         Environment envCopy = env.copy(); // Copy the environment to create a
                                           // new scope.
-
-        varVal = varExpr.evaluate(env);
-
         if (varVal instanceof Integer || varVal instanceof Double
-                || varVal instanceof Boolean || varVal instanceof LinkedList)
+                || varVal instanceof Boolean || varVal instanceof List
+                || varVal instanceof Thunk)
             envCopy.updateEnvironment(var, varVal);
         else
             logError("[Internal] Failed to add " + var + " with  value "
                     + varVal.getClass());
+        return envCopy;
+    }
 
-        Object value = expr.evaluate(envCopy);
-        return value;
+    /**
+     * Releases the binding made by {@link #bind} once the body has been
+     * evaluated.
+     * 
+     * @param env the executional environment passed to {@link #bind}.
+     */
+    public void unbind(Environment env)
+    {
+        if (slot >= 0)
+            env.setLocal(slot, null);
     }
 
     /**
@@ -104,9 +210,20 @@ public final class LetNode extends SyntaxNode
      */
     @Override
     public Type typeOf(TypeEnvironment tenv, Inferencer inferencer) throws TypeException {
-        // Determine the type of the variable expression
-        Type boundType = varExpr.typeOf(tenv, inferencer);
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
 
+    /**
+     * Binds the variable to the type of its expression for typing the body.
+     * 
+     * @param tenv       the type environment of the let.
+     * @param inferencer the type inferencer
+     * @param boundType  the type of the variable expression.
+     * @return the type environment to type the body under.
+     */
+    public TypeEnvironment bind(TypeEnvironment tenv, Inferencer inferencer,
+            Type boundType)
+    {
         // Apply any substitutions inferred so far to the bound type
         Type appliedType = inferencer.getSubstitutions().apply(boundType);
 
@@ -115,14 +232,19 @@ public final class LetNode extends SyntaxNode
 
         // Add the variable with its inferred type to the local environment
         localEnv.updateEnvironment(var, appliedType);
+        return localEnv;
+    }
 
-        // Determine the type of the body expression using the updated environment
-        Type bodyType = expr.typeOf(localEnv, inferencer);
-
+    /**
+     * Determine the type of the let given the type of its body.
+     * 
+     * @param bodyType   the type of the body.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     */
+    public Type typeOf(Type bodyType, Inferencer inferencer)
+    {
         // Apply any substitutions to the body type to get the result type
-        Type resultType = inferencer.getSubstitutions().apply(bodyType);
-
-        // return the result type
-        return resultType;
+        return inferencer.getSubstitutions().apply(bodyType);
     }
 }
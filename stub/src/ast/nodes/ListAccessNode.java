@@ -0,0 +1,162 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.ListAccess;
+import ast.typesystem.TypeException;
+import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.ListType;
+import ast.typesystem.types.Type;
+import ast.typesystem.types.VarType;
+import environment.Environment;
+import environment.TypeEnvironment;
+import lexer.TokenType;
+
+/**
+ * This node represents a fused chain of {@code hd}, {@code tl}, {@code len}
+ * and {@code ++} operations over the lists given by its segments. It is
+ * only built by the optimizer.
+ */
+public final class ListAccessNode extends SyntaxNode
+{
+    private List<SyntaxNode> segments;  // The lists that are concatenated.
+    private ListAccess access;          // The operations applied to them.
+
+    /**
+     * Constructs a new list access node.
+     * 
+     * @param segments the expressions giving the lists that are
+     *                 concatenated.
+     * @param access   the operations applied to the lists.
+     * @param line     the line of code the node is associated with.
+     */
+    public ListAccessNode(List<SyntaxNode> segments, ListAccess access,
+            long line)
+    {
+        super(line);
+        this.segments = segments;
+        this.access = access;
+    }
+
+    /**
+     * Gets the operations applied to the lists.
+     * 
+     * @return the list access.
+     */
+    public ListAccess getAccess()
+    {
+        return access;
+    }
+
+    /**
+     * Gets the expressions giving the lists that are concatenated.
+     * 
+     * @return the segments in order.
+     */
+    public List<SyntaxNode> getSegments()
+    {
+        return segments;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the segments.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        return segments;
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        return new ListAccessNode(children, access, getLineNumber());
+    }
+
+    /**
+     * Evaluate the node.
+     * 
+     * @param env the executional environment we should evaluate the node
+     *            under.
+     * @return the object representing the result of the evaluation.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    @Override
+    public Object evaluate(Environment env) throws EvaluationException
+    {
+        List<Object> values = new ArrayList<>(segments.size());
+
+        // A segment that is too short fails before the next is evaluated.
+        for (int i = 0; i < segments.size(); i++)
+            values.add(access.segment(i, segments.get(i).evaluate(env)));
+        return access.apply(values);
+    }
+
+    /**
+     * Determine the type of the syntax node. In particluar bool, int, real,
+     * generic, or function.
+     * 
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    @Override
+    public Type typeOf(TypeEnvironment tenv, Inferencer inferencer)
+            throws TypeException
+    {
+        VarType elemVar = tenv.getTypeVariable();
+        ListType listType = new ListType(elemVar);
+
+        for (SyntaxNode segment : segments)
+            inferencer.unify(segment.typeOf(tenv, inferencer), listType,
+                    "List operation requires a list argument");
+
+        if (access.getOp() == TokenType.LEN)
+            return new IntType();
+        if (access.getOp() == TokenType.HD)
+            return inferencer.getSubstitutions().apply(elemVar);
+        return inferencer.getSubstitutions().apply(listType);
+    }
+
+    /**
+     * Display a AST subtree with the indentation specified.
+     * 
+     * @param indentAmt the amout of indentation to perform.
+     */
+    @Override
+    public void displaySubtree(int indentAmt)
+    {
+        printIndented("access[" + access + "](", indentAmt);
+        for (SyntaxNode segment : segments)
+            segment.displaySubtree(indentAmt + 2);
+        printIndented(")", indentAmt);
+    }
+}
@@ -1,17 +1,30 @@
 package ast.nodes;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
+import ast.ParallelEvaluation;
+import ast.lists.ListValue;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.BoolType;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.RealType;
 import ast.typesystem.types.Type;
 import environment.Environment;
 import environment.TypeEnvironment;
+import lexer.TokenType;
 
 public class ListNode extends SyntaxNode {
     private LinkedList<SyntaxNode> exprs;
+    private int grain;  // The elements per parallel chunk, 0 if sequential.
+    private Class<?> elementKind;   // The inferred class of the elements.
+    private final boolean literal;  // True if every element is a literal.
+    private volatile Object constant;   // The pooled value of a literal.
 
     /**
      * Constructor for a ListNode.
@@ -22,6 +35,78 @@ public class ListNode extends SyntaxNode {
     public ListNode(LinkedList<SyntaxNode> exprs, long line) {
         super(line);
         this.exprs = exprs;
+        this.literal = exprs.stream().allMatch(ListNode::isLiteral);
+    }
+
+    /**
+     * Determines if an element is a literal: an int, real or bool token, or
+     * a list of literals.
+     * 
+     * @param node The element expression.
+     * @return true if the element is a literal.
+     */
+    private static boolean isLiteral(SyntaxNode node) {
+        if (node instanceof ListNode list)
+            return list.literal;
+        if (!(node instanceof TokenNode tok))
+            return false;
+        TokenType type = tok.getToken().getType();
+        return type == TokenType.INT || type == TokenType.REAL
+                || type == TokenType.TRUE || type == TokenType.FALSE;
+    }
+
+    /**
+     * Determines if the list is a literal, whose every element is a
+     * literal. A literal list is evaluated only once, to a value shared
+     * through the constant pool of the environment.
+     * 
+     * @return true if the list is a literal.
+     */
+    public boolean isLiteral() {
+        return literal;
+    }
+
+    /**
+     * Gets the element expressions of the list.
+     * 
+     * @return the element expressions.
+     */
+    public LinkedList<SyntaxNode> getExprs() {
+        return exprs;
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children) {
+        ListNode node = new ListNode(new LinkedList<>(children),
+                getLineNumber());
+        node.elementKind = elementKind;
+        return node;
+    }
+
+    /**
+     * Sets the number of elements evaluated by each parallel chunk.
+     * 
+     * @param grain the number of elements per chunk, or 0 if the elements
+     *              should be evaluated sequentially.
+     */
+    public void setGrain(int grain) {
+        this.grain = grain;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren() {
+        return exprs;
     }
 
     /**
@@ -39,7 +124,9 @@ public class ListNode extends SyntaxNode {
     }
 
     /**
-     * Evaluates this list node in the given environment.
+     * Evaluates this list node in the given environment. A literal list is
+     * built on its first evaluation and pooled, and later evaluations return
+     * the pooled value.
      * 
      * @param env The runtime environment for variable lookup.
      * @return A List containing the evaluated elements.
@@ -47,22 +134,92 @@ public class ListNode extends SyntaxNode {
      */
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        List<Object> evaluatedList = new LinkedList<>();
+        Object value = constant;
+        if (value != null)
+            return value;
+
+        value = build(values(env));
+        if (literal) {
+            value = env.getConstantPool().intern(value);
+            constant = value;
+        }
+        return value;
+    }
+
+    /**
+     * Builds the list from the evaluated elements. The representation of
+     * the list is chosen by the inferred element type, or by the class of
+     * the elements if the list was not type checked.
+     * 
+     * @param values The values of the elements in order.
+     * @return A list value containing the values.
+     * @throws EvaluationException if elements are of different types.
+     */
+    public Object build(Iterable<Object> values) throws EvaluationException {
+        List<Object> evaluatedList = new ArrayList<>();
         Class<?> firstType = null;
 
-        for (SyntaxNode node : exprs) {
-            Object value = node.evaluate(env);
+        for (Object value : values) {
 
             if (firstType == null && value != null)
-                firstType = value.getClass();
+                firstType = kindOf(value);
 
-            if (value != null && firstType != null && !firstType.equals(value.getClass())) {
+            if (value != null && firstType != null && !firstType.equals(kindOf(value))) {
                 logError("Type error: all elements in a list must be of the same type.");
                 throw new EvaluationException();
             }
             evaluatedList.add(value);
         }
-        return evaluatedList;
+        return ListValue.copyOf(evaluatedList,
+                elementKind != null ? elementKind : firstType);
+    }
+
+    /**
+     * Evaluates the elements of the list, in parallel chunks if the list is
+     * costly enough.
+     * 
+     * @param env The runtime environment for variable lookup.
+     * @return The values of the elements in order.
+     * @throws EvaluationException if the evaluation of an element fails.
+     */
+    private Iterable<Object> values(Environment env) throws EvaluationException {
+        if (grain == 0 || !env.isParallel() || !ForkJoinTask.inForkJoinPool()) {
+            List<Object> values = new ArrayList<>(exprs.size());
+            for (SyntaxNode node : exprs)
+                values.add(node.evaluate(env));
+            return values;
+        }
+
+        // Fork every chunk but the first, which this thread evaluates. The
+        // chunks are awaited in order, so the failure of the earliest is the
+        // one reported, as in sequential evaluation.
+        List<ParallelEvaluation> forked = new ArrayList<>();
+        for (int i = grain; i < exprs.size(); i += grain)
+            forked.add(ParallelEvaluation.fork(
+                    exprs.subList(i, Math.min(i + grain, exprs.size())), env));
+
+        List<ParallelEvaluation> chunks = new ArrayList<>();
+        chunks.add(ParallelEvaluation.run(exprs.subList(0, grain), env));
+        chunks.addAll(forked);
+
+        return ParallelEvaluation.awaitAll(chunks);
+    }
+
+    /**
+     * Gets the class of the runtime values of a type that lists store
+     * unboxed.
+     * 
+     * @param type the element type.
+     * @return the class of the values or null if they are stored boxed.
+     */
+    private static Class<?> unboxedKind(Type type) {
+        if (type instanceof IntType)
+            return Integer.class;
+        if (type instanceof RealType)
+            return Double.class;
+        if (type instanceof BoolType)
+            return Boolean.class;
+        return null;
     }
 
     /**
@@ -81,20 +238,35 @@ public class ListNode extends SyntaxNode {
             return new ast.typesystem.types.ListType(elemType);
         }
 
-        // Determine the type of the first element
-        SyntaxNode firstNode = exprs.getFirst();
-        Type firstType = firstNode.typeOf(tenv, inferencer);
-
-        // Ensure all other elements unify with the type of the first element
-        for (int i = 1; i < exprs.size(); i++) {
-            SyntaxNode node = exprs.get(i);
-            Type nodeType = node.typeOf(tenv, inferencer);
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
 
-            inferencer.unify(firstType, nodeType, "All elements in a list must have the same type.");
-        }
+    /**
+     * Unifies the type of an element after the first with the type of the
+     * first element.
+     * 
+     * @param firstType  the type of the first element.
+     * @param nodeType   the type of the element.
+     * @param inferencer The type inferencer for unification.
+     * @throws TypeException if the types do not unify.
+     */
+    public void unifyElement(Type firstType, Type nodeType, Inferencer inferencer)
+            throws TypeException {
+        inferencer.unify(firstType, nodeType, "All elements in a list must have the same type.");
+    }
 
+    /**
+     * Determines the type of a non-empty list once all of its elements have
+     * been unified with the first.
+     * 
+     * @param firstType  the type of the first element.
+     * @param inferencer The type inferencer for unification.
+     * @return A ListType representing the type of the list elements.
+     */
+    public Type typeOf(Type firstType, Inferencer inferencer) {
         // Apply any substitutions resulting from unification to get the final element type
         Type elementType = inferencer.getSubstitutions().apply(firstType);
+        elementKind = unboxedKind(elementType);
 
         // Return the type of the list as a ListType of the element type
         return new ast.typesystem.types.ListType(elementType);
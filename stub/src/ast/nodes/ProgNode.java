@@ -17,7 +17,10 @@
 package ast.nodes;
 
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 
+import ast.DependencyGraph;
 import ast.EvaluationException;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
@@ -33,6 +36,7 @@ import environment.TypeEnvironment;
 public final class ProgNode extends SyntaxNode
 {
     private LinkedList<SyntaxNode> exprs;
+    private DependencyGraph schedule;   // The parallel schedule, if any.
 
     /**
      * Constructs a new program node which represents a list of expressions.
@@ -45,6 +49,60 @@ public final class ProgNode extends SyntaxNode
         super(line);
         this.exprs = exprs;
     }
+
+    /**
+     * Gets the expressions that make up the program.
+     * 
+     * @return the list of expressions.
+     */
+    public LinkedList<SyntaxNode> getExprs()
+    {
+        return exprs;
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        return new ProgNode(new LinkedList<>(children), getLineNumber());
+    }
+
+    /**
+     * Sets the schedule used to execute the statements in parallel.
+     * 
+     * @param schedule the dependency graph of the statements.
+     */
+    public void setSchedule(DependencyGraph schedule)
+    {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Gets the schedule used to execute the statements in parallel.
+     * 
+     * @return the dependency graph of the statements or null if the program
+     *         has not been scheduled.
+     */
+    public DependencyGraph getSchedule()
+    {
+        return schedule;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        return exprs;
+    }
     
     /**
      * Display a AST inferencertree with the indentation specified.
@@ -70,6 +128,10 @@ public final class ProgNode extends SyntaxNode
     public Object evaluate(Environment env) throws EvaluationException {
          Object res = null;
 
+        if (schedule != null && env.isParallel()
+                && ForkJoinTask.inForkJoinPool())
+            return schedule.execute(env);
+
         // Loop over the expressions evaluating every node.
         for (SyntaxNode expr : exprs)
             res = expr.evaluate(env);
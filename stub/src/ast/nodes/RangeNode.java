@@ -0,0 +1,172 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.lists.RangeList;
+import ast.typesystem.TypeException;
+import ast.typesystem.inferencer.Inferencer;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.ListType;
+import ast.typesystem.types.Type;
+import environment.Environment;
+import environment.TypeEnvironment;
+
+/**
+ * This node represents a range of integers, either {@code [a..b]}, the
+ * integers from a to b, or {@code [a, b..c]}, the integers from a to at
+ * most c in steps of b - a. The range evaluates to a {@link RangeList},
+ * whose elements are computed as they are used.
+ */
+public final class RangeNode extends SyntaxNode
+{
+    private SyntaxNode first;   // The first element.
+    private SyntaxNode next;    // The second element, or null.
+    private SyntaxNode last;    // The bound on the last element.
+
+    /**
+     * Constructs a new range node.
+     * 
+     * @param first the expression giving the first element.
+     * @param next  the expression giving the second element, or null if the
+     *              elements are consecutive.
+     * @param last  the expression giving the bound on the last element.
+     * @param line  the line of code the node is associated with.
+     */
+    public RangeNode(SyntaxNode first, SyntaxNode next, SyntaxNode last,
+            long line)
+    {
+        super(line);
+        this.first = first;
+        this.next = next;
+        this.last = last;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the first element, the second element if any, and the bound.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        if (next == null)
+            return List.of(first, last);
+        return List.of(first, next, last);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        if (children.size() == 2)
+            return new RangeNode(children.get(0), null, children.get(1),
+                    getLineNumber());
+        return new RangeNode(children.get(0), children.get(1),
+                children.get(2), getLineNumber());
+    }
+
+    /**
+     * Evaluate the node.
+     * 
+     * @param env the executional environment we should evaluate the node
+     *            under.
+     * @return the object representing the result of the evaluation.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    @Override
+    public Object evaluate(Environment env) throws EvaluationException
+    {
+        List<Object> values = new ArrayList<>(3);
+        for (SyntaxNode child : getChildren())
+            values.add(child.evaluate(env));
+        return build(values);
+    }
+
+    /**
+     * Builds the range from the evaluated children.
+     * 
+     * @param values the values of the children in order.
+     * @return the range.
+     * @throws EvaluationException if a bound is not an integer or the range
+     *                             is not valid.
+     */
+    public Object build(List<Object> values) throws EvaluationException
+    {
+        for (Object value : values)
+        {
+            if (!(value instanceof Integer))
+            {
+                logError("Error: The bounds of a range must be integers.");
+                throw new EvaluationException();
+            }
+        }
+
+        int start = (Integer) values.get(0);
+        int end = (Integer) values.get(values.size() - 1);
+        int step = values.size() == 2 ? 1 : (Integer) values.get(1) - start;
+        try
+        {
+            return RangeList.of(start, step, end);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            logError("Error: " + ex.getMessage());
+            throw new EvaluationException();
+        }
+    }
+
+    /**
+     * Determine the type of the syntax node, which is a list of integers.
+     * 
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    @Override
+    public Type typeOf(TypeEnvironment tenv, Inferencer inferencer)
+            throws TypeException
+    {
+        for (SyntaxNode child : getChildren())
+            inferencer.unify(child.typeOf(tenv, inferencer), new IntType(),
+                    "The bounds of a range must be integers.");
+        return new ListType(new IntType());
+    }
+
+    /**
+     * Display a AST subtree with the indentation specified.
+     * 
+     * @param indentAmt the amout of indentation to perform.
+     */
+    @Override
+    public void displaySubtree(int indentAmt)
+    {
+        printIndented("Range[", indentAmt);
+        for (SyntaxNode child : getChildren())
+            child.displaySubtree(indentAmt + 2);
+        printIndented("]", indentAmt);
+    }
+}
@@ -16,7 +16,10 @@
  */
 package ast.nodes;
 
+import java.util.List;
+
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -50,6 +53,55 @@ public final class RelOpNode extends SyntaxNode {
         this.rightExpr = rexpr;
     }
 
+    /**
+     * Gets the relational operation performed by the node.
+     * 
+     * @return the operation.
+     */
+    public TokenType getOp() {
+        return op;
+    }
+
+    /**
+     * Gets the left operand.
+     * 
+     * @return the left operand.
+     */
+    public SyntaxNode getLeftExpr() {
+        return leftExpr;
+    }
+
+    /**
+     * Gets the right operand.
+     * 
+     * @return the right operand.
+     */
+    public SyntaxNode getRightExpr() {
+        return rightExpr;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren() {
+        return List.of(leftExpr, rightExpr);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children) {
+        return new RelOpNode(children.get(0), op, children.get(1),
+                getLineNumber());
+    }
+
     /**
      * Display a AST inferencertree with the indentation specified.
      * 
@@ -71,12 +123,20 @@ public final class RelOpNode extends SyntaxNode {
      */
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        Object lval;
-        Object rval;
-        boolean useDouble = false;
+        Object lval = leftExpr.evaluate(env);
+        return apply(lval, rightExpr.evaluate(env));
+    }
 
-        lval = leftExpr.evaluate(env);
-        rval = rightExpr.evaluate(env);
+    /**
+     * Applies the relation to evaluated operands.
+     * 
+     * @param lval the value of the left operand.
+     * @param rval the value of the right operand.
+     * @return the result of the comparison.
+     * @throws EvaluationException if the operands can not be compared.
+     */
+    public Object apply(Object lval, Object rval) throws EvaluationException {
+        boolean useDouble = false;
 
         // Make sure the type is sound.
         if (!(lval instanceof Integer || lval instanceof Double)
@@ -129,9 +189,21 @@ public final class RelOpNode extends SyntaxNode {
      */
     @Override
     public Type typeOf(TypeEnvironment tenv, Inferencer inferencer) throws TypeException {
-        // Infer operand types
-        Type leftType = leftExpr.typeOf(tenv, inferencer);
-        Type rightType = rightExpr.typeOf(tenv, inferencer);
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
+
+    /**
+     * Determine the type of the operation given the types of its operands.
+     * 
+     * @param leftType   the type of the left operand.
+     * @param rightType  the type of the right operand.
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    public Type typeOf(Type leftType, Type rightType, TypeEnvironment tenv,
+            Inferencer inferencer) throws TypeException {
 
         // Unify them
         inferencer.unify(leftType, rightType, "Relational operand type mismatch");
@@ -16,7 +16,10 @@
  */
 package ast.nodes;
 
+import java.util.List;
+
 import ast.EvaluationException;
+import ast.ParallelEvaluation;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -46,13 +49,62 @@ public abstract class SyntaxNode
     }
 
     /**
-     * Logs an error to the screen
+     * Gets the line number the syntax node is associated with.
+     * 
+     * @return the line number of the node.
+     */
+    public long getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children, which is empty for leaf nodes.
+     */
+    public List<SyntaxNode> getChildren()
+    {
+        return List.of();
+    }
+
+    /**
+     * Builds a copy of the node with different children. Leaf nodes have no
+     * children and are returned as is.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        return this;
+    }
+
+    /**
+     * Gets the kind of a runtime value, which values must share to be
+     * elements of the same list. Lists are of one kind whatever operation
+     * built them.
+     * 
+     * @param value the value.
+     * @return the class of the value, or {@code List} for any list.
+     */
+    public static Class<?> kindOf(Object value)
+    {
+        if (value instanceof List<?>)
+            return List.class;
+        return value.getClass();
+    }
+
+    /**
+     * Logs an error to the screen. Errors logged during a parallel
+     * evaluation are shown in the order sequential evaluation would show
+     * them.
      * 
      * @param msg the error message to display.
      */
     protected void logError(String msg)
     {
-        System.out.println("Error (line " + lineNumber + "): " + msg);
+        ParallelEvaluation.report("Error (line " + lineNumber + "): " + msg);
     }
 
     /**
@@ -3,10 +3,11 @@ package ast.nodes;
 import environment.Environment;
 import environment.TypeEnvironment;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
+import ast.lists.ListValue;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.ListType;
@@ -22,6 +23,36 @@ public class TailNode extends SyntaxNode {
         this.expr = expr;
     }
 
+    /**
+     * Gets the list expression the tail is taken of.
+     * 
+     * @return the list expression.
+     */
+    public SyntaxNode getExpr() {
+        return expr;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren() {
+        return List.of(expr);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children) {
+        return new TailNode(children.get(0), getLineNumber());
+    }
+
     public void displaySubtree(int indentAmt) {
         printIndented("tl(", indentAmt);
         expr.displaySubtree(indentAmt + 2);
@@ -30,23 +61,40 @@ public class TailNode extends SyntaxNode {
 
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        Object value = expr.evaluate(env);
+        return apply(expr.evaluate(env));
+    }
 
-        if (value instanceof List<?>) {
-            List<?> list = (List<?>) value;
-            if (list.isEmpty()) {
-                throw new EvaluationException();
-            }
-            return new ArrayList<>(list.subList(1, list.size()));
+    /**
+     * Takes the tail of an evaluated list.
+     * 
+     * @param value the value of the operand.
+     * @return the result of the operation.
+     * @throws EvaluationException if the operand is not a suitable list.
+     */
+    public Object apply(Object value) throws EvaluationException {
+        ListValue list = ListValue.from(value);
+        if (list == null || list.isEmpty()) {
+            throw new EvaluationException();
         }
-        throw new EvaluationException();
+        return list.tail();
     }
 
     @Override
     public Type typeOf(TypeEnvironment tenv, Inferencer inferencer) throws TypeException {
-        // Get the type of the expression (should be a list)
-        Type exprType = expr.typeOf(tenv, inferencer);
-        
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
+
+    /**
+     * Determine the type of the operation given the type of its operand.
+     * 
+     * @param exprType   the type of the operand.
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    public Type typeOf(Type exprType, TypeEnvironment tenv, Inferencer inferencer)
+            throws TypeException {
         // Create a fresh type variable for the list element type
         VarType elemVar = tenv.getTypeVariable();
         
@@ -17,6 +17,7 @@
 package ast.nodes;
 
 import ast.EvaluationException;
+import ast.Thunk;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -31,6 +32,8 @@ import lexer.Token;
  */
 public final class TokenNode extends SyntaxNode {
     private Token token; // The token type.
+    private boolean global; // True if the identifier names a global value.
+    private int slot = -1;  // The resolved slot of the identifier.
 
     /**
      * Constructs a new token node.
@@ -43,6 +46,45 @@ public final class TokenNode extends SyntaxNode {
         this.token = token;
     }
 
+    /**
+     * Gets the token associated with the node.
+     * 
+     * @return the token.
+     */
+    public Token getToken() {
+        return token;
+    }
+
+    /**
+     * Sets the resolved address of an identifier.
+     * 
+     * @param global true if the identifier is a global value; false if it is
+     *               let bound.
+     * @param slot   the global or local slot holding the value.
+     */
+    public void setAddress(boolean global, int slot) {
+        this.global = global;
+        this.slot = slot;
+    }
+
+    /**
+     * Determines if the identifier was resolved to a global value.
+     * 
+     * @return true if the identifier is a global value.
+     */
+    public boolean isGlobal() {
+        return global;
+    }
+
+    /**
+     * Gets the resolved slot of the identifier.
+     * 
+     * @return the slot or -1 if the identifier has not been resolved.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
     /**
      * Display a AST inferencertree with the indentation specified.
      * 
@@ -71,7 +113,14 @@ public final class TokenNode extends SyntaxNode {
             case FALSE:
                 return Boolean.valueOf(false);
             case ID:
-                Object val = env.lookup(token);
+                Object val;
+                if (slot < 0)
+                    val = env.lookup(token);
+                else if (global)
+                    val = env.getGlobal(slot);
+                else
+                    val = env.getLocal(slot);
+                val = Thunk.force(val);
                 if (val == null) {
                     logError("undefined value " + token.getValue() + ".");
                     throw new EvaluationException();
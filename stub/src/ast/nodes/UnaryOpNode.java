@@ -16,7 +16,10 @@
  */
 package ast.nodes;
 
+import java.util.List;
+
 import ast.EvaluationException;
+import ast.IterativeTypeChecker;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -46,6 +49,45 @@ public final class UnaryOpNode extends SyntaxNode {
         this.expr = expr;
     }
 
+    /**
+     * Gets the unary operation performed by the node.
+     * 
+     * @return the operation.
+     */
+    public TokenType getOp() {
+        return op;
+    }
+
+    /**
+     * Gets the operand.
+     * 
+     * @return the operand.
+     */
+    public SyntaxNode getExpr() {
+        return expr;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren() {
+        return List.of(expr);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children) {
+        return new UnaryOpNode(children.get(0), op, getLineNumber());
+    }
+
     /**
      * Display a AST inferencertree with the indentation specified.
      * 
@@ -66,10 +108,17 @@ public final class UnaryOpNode extends SyntaxNode {
      */
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        Object val;
-
-        val = expr.evaluate(env);
+        return apply(expr.evaluate(env));
+    }
 
+    /**
+     * Applies the operation to an evaluated operand.
+     * 
+     * @param val the value of the operand.
+     * @return the result of the operation.
+     * @throws EvaluationException if the operand has the wrong type.
+     */
+    public Object apply(Object val) throws EvaluationException {
         // Perform the operation based on the type.
         switch (op) {
             case NOT:
@@ -103,8 +152,20 @@ public final class UnaryOpNode extends SyntaxNode {
      */
     @Override
     public Type typeOf(TypeEnvironment tenv, Inferencer inferencer) throws TypeException {
-        // Determine the type of the operand
-        Type exprType = expr.typeOf(tenv, inferencer);
+        return new IterativeTypeChecker().typeOf(this, tenv, inferencer);
+    }
+
+    /**
+     * Determine the type of the operation given the type of its operand.
+     * 
+     * @param exprType   the type of the operand.
+     * @param tenv       the type environment.
+     * @param inferencer the type inferencer
+     * @return The type of the syntax node.
+     * @throws TypeException if there is a type error.
+     */
+    public Type typeOf(Type exprType, TypeEnvironment tenv, Inferencer inferencer)
+            throws TypeException {
 
         switch (op) {
             case NOT:
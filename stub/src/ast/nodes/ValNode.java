@@ -16,7 +16,10 @@
  */
 package ast.nodes;
 
+import java.util.List;
+
 import ast.EvaluationException;
+import ast.Thunk;
 import ast.typesystem.TypeException;
 import ast.typesystem.inferencer.Inferencer;
 import ast.typesystem.types.Type;
@@ -33,6 +36,7 @@ public final class ValNode extends SyntaxNode
 {
     private Token name;
     private SyntaxNode expr;
+    private int slot = -1;  // The resolved global slot of the value.
 
     /**
      * Constructs a new value node that represents a global value.
@@ -48,6 +52,69 @@ public final class ValNode extends SyntaxNode
         this.expr = expr;
     }
 
+    /**
+     * Gets the name of the value.
+     * 
+     * @return the name of the value.
+     */
+    public Token getName()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the expression that gives the value.
+     * 
+     * @return the value expression.
+     */
+    public SyntaxNode getExpr()
+    {
+        return expr;
+    }
+
+    /**
+     * Sets the global slot the value is stored in.
+     * 
+     * @param slot the global slot of the value.
+     */
+    public void setSlot(int slot)
+    {
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the global slot the value is stored in.
+     * 
+     * @return the slot or -1 if the value has not been resolved.
+     */
+    public int getSlot()
+    {
+        return slot;
+    }
+
+    /**
+     * Gets the direct children of the node in evaluation order.
+     * 
+     * @return the list of children.
+     */
+    @Override
+    public List<SyntaxNode> getChildren()
+    {
+        return List.of(expr);
+    }
+
+    /**
+     * Builds a copy of the node with different children.
+     * 
+     * @param children the new children in the order of {@link #getChildren}.
+     * @return the new node.
+     */
+    @Override
+    public SyntaxNode withChildren(List<SyntaxNode> children)
+    {
+        return new ValNode(name, children.get(0), getLineNumber());
+    }
+
     /**
      * Display a AST inferencertree with the indentation specified.
      * 
@@ -69,9 +136,24 @@ public final class ValNode extends SyntaxNode
      */
     @Override
     public Object evaluate(Environment env) throws EvaluationException {
-        Object val = expr.evaluate(env);
-        if (env.lookup(name) == null)
-            env.updateEnvironment(name, val);
+        return define(env,
+                env.isLazy() ? new Thunk(expr, env) : expr.evaluate(env));
+    }
+
+    /**
+     * Binds the name to an evaluated value in the global environment.
+     * 
+     * @param env the executional environment.
+     * @param val the value of the expression.
+     * @return the name of the value.
+     * @throws EvaluationException if the name is already defined.
+     */
+    public Object define(Environment env, Object val) throws EvaluationException
+    {
+        if (slot >= 0 && env.getGlobal(slot) == null)
+            env.setGlobal(slot, val);
+        else if (slot < 0 && env.lookup(name) == null)
+            env.defineGlobal(name, val);
         else 
         {
             logError(name.getValue() + " already defined.");
@@ -0,0 +1,319 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.LinkedList;
+
+import ast.SyntaxTree;
+import ast.nodes.BinOpNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.ListNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.nodes.UnaryOpNode;
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Simplifies a well typed tree using algebraic identities of the MFL
+ * operators, such as {@code x * 1 = x}, {@code not not b = b} and
+ * {@code len(a ++ b) = len(a) + len(b)}.
+ * <p>
+ * Each rule replaces a subtree by one with the same type under the
+ * inferencer. An arithmetic identity is only used when its literal has the
+ * type of the operation, which the inferencer forces the other operand to
+ * share, and an identity that does not hold for every real, such as
+ * {@code x + 0.0 = x} when {@code x} is {@code -0.0}, is only used for
+ * integers. A rule that drops a subexpression is only used when that
+ * subexpression cannot fail, so the rewritten program fails exactly when
+ * the original does.
+ */
+public class AlgebraicSimplifier extends TreeRewriter implements Pass
+{
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "algebraic-simplification";
+    }
+
+    /**
+     * Simplifies the tree.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes simplified.
+     */
+    @Override
+    public int run(SyntaxTree tree)
+    {
+        int before = getChanges();
+        tree.setRootNode(simplify(tree.getRootNode()));
+        return getChanges() - before;
+    }
+
+    /**
+     * Simplifies the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the simplified tree.
+     */
+    public SyntaxNode simplify(SyntaxNode root)
+    {
+        return rewrite(root);
+    }
+
+    /**
+     * Simplifies a node whose children are already simplified until no rule
+     * applies to it.
+     * 
+     * @param original the node in the tree being simplified.
+     * @param node     the node with its simplified children.
+     * @return the replacement for the node.
+     */
+    @Override
+    protected SyntaxNode rewriteNode(SyntaxNode original, SyntaxNode node)
+    {
+        SyntaxNode simpler = apply(node);
+        while (simpler != node)
+        {
+            node = simpler;
+            simpler = apply(node);
+        }
+        return node;
+    }
+
+    /**
+     * Applies the first rule that matches a node.
+     * 
+     * @param node the node.
+     * @return the rewritten node, or {@code node} if no rule matches.
+     */
+    private SyntaxNode apply(SyntaxNode node)
+    {
+        if (node instanceof BinOpNode bin)
+            return simplifyBinOp(bin);
+        if (node instanceof UnaryOpNode unary)
+            return simplifyUnaryOp(unary);
+        if (node instanceof HeadNode head)
+            return simplifyHead(head);
+        if (node instanceof TailNode tail)
+            return simplifyTail(tail);
+        if (node instanceof LenNode len)
+            return simplifyLen(len);
+        return node;
+    }
+
+    /**
+     * Removes identity elements from a binary operation.
+     * 
+     * @param bin the binary operation.
+     * @return the simplified operation.
+     */
+    private SyntaxNode simplifyBinOp(BinOpNode bin)
+    {
+        SyntaxNode left = bin.getLeftTerm();
+        SyntaxNode right = bin.getRightTerm();
+
+        switch (bin.getOp())
+        {
+        case ADD:
+            if (isInt(right, 0))
+                return left;
+            if (isInt(left, 0))
+                return right;
+            break;
+        case SUB:
+            if (isInt(right, 0) || isReal(right, 0.0))
+                return left;
+            break;
+        case MULT:
+            if (isInt(right, 1) || isReal(right, 1.0))
+                return left;
+            if (isInt(left, 1) || isReal(left, 1.0))
+                return right;
+            break;
+        case DIV:
+            if (isInt(right, 1) || isReal(right, 1.0))
+                return left;
+            break;
+        case AND:
+            if (isBool(right, true))
+                return left;
+            if (isBool(left, true))
+                return right;
+            break;
+        case OR:
+            if (isBool(right, false))
+                return left;
+            if (isBool(left, false))
+                return right;
+            break;
+        case CONCAT:
+            if (isEmptyList(right))
+                return left;
+            if (isEmptyList(left))
+                return right;
+            break;
+        default:
+            break;
+        }
+        return bin;
+    }
+
+    /**
+     * Removes a double negation.
+     * 
+     * @param unary the unary operation.
+     * @return the simplified operation.
+     */
+    private SyntaxNode simplifyUnaryOp(UnaryOpNode unary)
+    {
+        if (unary.getExpr() instanceof UnaryOpNode inner
+                && inner.getOp() == unary.getOp())
+            return inner.getExpr();
+        return unary;
+    }
+
+    /**
+     * Takes the head of a list literal whose other elements cannot fail.
+     * 
+     * @param head the head operation.
+     * @return the first element or {@code head}.
+     */
+    private SyntaxNode simplifyHead(HeadNode head)
+    {
+        if (!(head.getExpr() instanceof ListNode list)
+                || list.getExprs().isEmpty())
+            return head;
+
+        for (SyntaxNode elem : list.getExprs().subList(1,
+                list.getExprs().size()))
+            if (Effects.mayFail(elem))
+                return head;
+        return list.getExprs().getFirst();
+    }
+
+    /**
+     * Takes the tail of a list literal whose first element cannot fail. The
+     * tail must not be empty, as the empty list literal would lose the
+     * element type.
+     * 
+     * @param tail the tail operation.
+     * @return the list of the remaining elements or {@code tail}.
+     */
+    private SyntaxNode simplifyTail(TailNode tail)
+    {
+        if (!(tail.getExpr() instanceof ListNode list)
+                || list.getExprs().size() < 2
+                || Effects.mayFail(list.getExprs().getFirst()))
+            return tail;
+
+        LinkedList<SyntaxNode> rest = new LinkedList<>(list.getExprs());
+        rest.removeFirst();
+        return new ListNode(rest, tail.getLineNumber());
+    }
+
+    /**
+     * Counts the elements of a list literal whose elements cannot fail, or
+     * distributes the length over a concatenation.
+     * 
+     * @param len the length operation.
+     * @return the simplified operation.
+     */
+    private SyntaxNode simplifyLen(LenNode len)
+    {
+        long line = len.getLineNumber();
+
+        if (len.getExpr() instanceof ListNode list)
+        {
+            for (SyntaxNode elem : list.getExprs())
+                if (Effects.mayFail(elem))
+                    return len;
+            return new TokenNode(new Token(TokenType.INT,
+                    Integer.toString(list.getExprs().size())), line);
+        }
+
+        if (len.getExpr() instanceof BinOpNode bin
+                && bin.getOp() == TokenType.CONCAT)
+            return new BinOpNode(
+                    rewriteNode(null, new LenNode(bin.getLeftTerm(), line)),
+                    TokenType.ADD,
+                    rewriteNode(null, new LenNode(bin.getRightTerm(), line)),
+                    line);
+        return len;
+    }
+
+    /**
+     * Determines if a node is a particular integer literal.
+     * 
+     * @param node  the node.
+     * @param value the integer.
+     * @return true if the node is the literal {@code value}.
+     */
+    private static boolean isInt(SyntaxNode node, int value)
+    {
+        return node instanceof TokenNode tok
+                && tok.getToken().getType() == TokenType.INT
+                && Integer.parseInt(tok.getToken().getValue()) == value;
+    }
+
+    /**
+     * Determines if a node is a particular real literal.
+     * 
+     * @param node  the node.
+     * @param value the real.
+     * @return true if the node is the literal {@code value}, where zero
+     *         and negative zero differ.
+     */
+    private static boolean isReal(SyntaxNode node, double value)
+    {
+        return node instanceof TokenNode tok
+                && tok.getToken().getType() == TokenType.REAL
+                && Double.compare(Double.parseDouble(tok.getToken().getValue()),
+                        value) == 0;
+    }
+
+    /**
+     * Determines if a node is a particular boolean literal.
+     * 
+     * @param node  the node.
+     * @param value the boolean.
+     * @return true if the node is the literal {@code value}.
+     */
+    private static boolean isBool(SyntaxNode node, boolean value)
+    {
+        return node instanceof TokenNode tok && tok.getToken().getType()
+                == (value ? TokenType.TRUE : TokenType.FALSE);
+    }
+
+    /**
+     * Determines if a node is the empty list literal.
+     * 
+     * @param node the node.
+     * @return true if the node is {@code []}.
+     */
+    private static boolean isEmptyList(SyntaxNode node)
+    {
+        return node instanceof ListNode list && list.getExprs().isEmpty();
+    }
+}
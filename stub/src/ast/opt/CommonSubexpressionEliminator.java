@@ -0,0 +1,334 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import ast.SyntaxTree;
+import ast.nodes.LetNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import ast.nodes.ValNode;
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Evaluates each repeated subexpression of a statement once. The subtrees
+ * of a statement are numbered by a {@link HashConsTable}, and every
+ * subexpression occurring more than once is bound to a hidden temporary by
+ * a let wrapped around the smallest subtree holding all of its occurrences.
+ * The occurrences are replaced by the temporary. Temporaries are named
+ * {@code $t0}, {@code $t1}, ..., which no program can spell.
+ * <p>
+ * MFL evaluates every subexpression, so hoisting an expression only changes
+ * when it is evaluated. An expression that may fail is only hoisted when
+ * nothing evaluated before its first occurrence may fail, so the failure
+ * reported stays the same.
+ */
+public class CommonSubexpressionEliminator implements Pass
+{
+    private int temporaries;   // The number of temporaries introduced.
+    private int replaced;      // The number of occurrences replaced.
+
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "common-subexpressions";
+    }
+
+    /**
+     * Eliminates the common subexpressions of the tree.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes replaced by temporaries.
+     */
+    @Override
+    public int run(SyntaxTree tree)
+    {
+        int before = getChanges();
+        tree.setRootNode(eliminate(tree.getRootNode()));
+        return getChanges() - before;
+    }
+
+    /**
+     * Eliminates the common subexpressions of each statement in the tree
+     * rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the new tree.
+     */
+    public SyntaxNode eliminate(SyntaxNode root)
+    {
+        // A tree optimized before may already bind temporaries, which new
+        // ones must not capture.
+        temporaries = Math.max(temporaries, nextTemporary(root));
+        if (!(root instanceof ProgNode prog))
+            return root == null ? null : eliminateStatement(root);
+
+        List<SyntaxNode> stmts = new ArrayList<>();
+        boolean changed = false;
+        for (SyntaxNode stmt : prog.getExprs())
+        {
+            SyntaxNode newStmt = eliminateStatement(stmt);
+            changed |= newStmt != stmt;
+            stmts.add(newStmt);
+        }
+        return changed ? prog.withChildren(stmts) : prog;
+    }
+
+    /**
+     * Finds the first temporary number that is unused in a tree.
+     * 
+     * @param root the root of the tree.
+     * @return one more than the largest temporary number in the tree.
+     */
+    private static int nextTemporary(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        int next = 0;
+
+        if (root != null)
+            work.push(root);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            String name = null;
+            if (node instanceof TokenNode tok)
+                name = tok.getToken().getValue();
+            else if (node instanceof LetNode let)
+                name = let.getVar().getValue();
+            if (name != null && name.startsWith("$t"))
+                next = Math.max(next,
+                        Integer.parseInt(name.substring(2)) + 1);
+            for (SyntaxNode child : node.getChildren())
+                work.push(child);
+        }
+        return next;
+    }
+
+    /**
+     * Gets the number of occurrences replaced by temporaries so far.
+     * 
+     * @return the number of replaced occurrences.
+     */
+    public int getChanges()
+    {
+        return replaced;
+    }
+
+    /**
+     * Eliminates common subexpressions from a statement until none remain.
+     * 
+     * @param stmt the statement.
+     * @return the new statement.
+     */
+    private SyntaxNode eliminateStatement(SyntaxNode stmt)
+    {
+        SyntaxNode next = round(stmt);
+        while (next != stmt)
+        {
+            stmt = next;
+            next = round(stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Hoists the largest repeated subexpressions of a statement whose
+     * occurrences do not overlap.
+     * 
+     * @param stmt the statement.
+     * @return the new statement or {@code stmt} if nothing was hoisted.
+     */
+    private SyntaxNode round(SyntaxNode stmt)
+    {
+        HashConsTable table = new HashConsTable(stmt);
+        List<SyntaxNode> order = table.getOrder();
+
+        // Group the candidate subexpressions by number.
+        HashMap<Integer, List<SyntaxNode>> classes = new HashMap<>();
+        for (SyntaxNode node : order)
+            if (isCandidate(node))
+                classes.computeIfAbsent(table.getNumber(node),
+                        k -> new ArrayList<>()).add(node);
+
+        List<List<SyntaxNode>> repeated = new ArrayList<>();
+        for (List<SyntaxNode> occurrences : classes.values())
+            if (occurrences.size() > 1)
+                repeated.add(occurrences);
+        if (repeated.isEmpty())
+            return stmt;
+        repeated.sort(Comparator.comparingInt(
+                (List<SyntaxNode> occ) -> table.getSize(occ.get(0))).reversed()
+                .thenComparingInt(occ -> table.getPosition(occ.get(0))));
+
+        boolean[] covered = new boolean[order.size()];
+        boolean hoistedFailure = false;
+        IdentityHashMap<SyntaxNode, SyntaxNode> replacements =
+                new IdentityHashMap<>();
+        IdentityHashMap<SyntaxNode, List<SyntaxNode[]>> wraps =
+                new IdentityHashMap<>();
+
+        for (List<SyntaxNode> occurrences : repeated)
+        {
+            List<SyntaxNode> free = new ArrayList<>();
+            for (SyntaxNode occ : occurrences)
+                if (!covered[table.getPosition(occ)])
+                    free.add(occ);
+            if (free.size() < 2)
+                continue;
+
+            SyntaxNode first = free.get(0);
+            SyntaxNode region = table.commonAncestor(free);
+            boolean fails = Effects.mayFail(first);
+            if (fails && (hoistedFailure
+                    || failsBefore(table, region, first)))
+                continue;
+            hoistedFailure |= fails;
+
+            TokenNode temp = new TokenNode(
+                    new Token(TokenType.ID, "$t" + temporaries++),
+                    region.getLineNumber());
+            for (SyntaxNode occ : free)
+            {
+                int end = table.getPosition(occ);
+                for (int i = end - table.getSize(occ) + 1; i <= end; i++)
+                    covered[i] = true;
+                replacements.put(occ, temp);
+                replaced++;
+            }
+            wraps.computeIfAbsent(region, k -> new ArrayList<>())
+                    .add(new SyntaxNode[] { temp, first });
+        }
+
+        if (replacements.isEmpty())
+            return stmt;
+        return rebuild(stmt, replacements, wraps);
+    }
+
+    /**
+     * Determines if a node evaluated in a region before an occurrence may
+     * fail.
+     * 
+     * @param table      the numbering of the statement.
+     * @param region     the region the occurrence will be hoisted to.
+     * @param occurrence the first occurrence.
+     * @return true if hoisting the occurrence could change which failure is
+     *         reported.
+     */
+    private boolean failsBefore(HashConsTable table, SyntaxNode region,
+            SyntaxNode occurrence)
+    {
+        int start = table.getPosition(region) - table.getSize(region) + 1;
+        int end = table.getPosition(occurrence) - table.getSize(occurrence) + 1;
+        for (int i = start; i < end; i++)
+            if (Effects.canFail(table.getOrder().get(i)))
+                return true;
+        return false;
+    }
+
+    /**
+     * Determines if a subtree is worth sharing. Identifiers and literals are
+     * as cheap to evaluate as a temporary, and definitions can not be shared.
+     * 
+     * @param node the root of the subtree.
+     * @return true if the subtree may be bound to a temporary.
+     */
+    private boolean isCandidate(SyntaxNode node)
+    {
+        if (node instanceof TokenNode || node instanceof ValNode
+                || node instanceof ProgNode)
+            return false;
+        return !(node instanceof ListNode list && list.getExprs().isEmpty());
+    }
+
+    /**
+     * Builds the statement with occurrences replaced by their temporaries
+     * and lets binding the temporaries wrapped around their regions.
+     * 
+     * @param stmt         the statement.
+     * @param replacements the temporary replacing each occurrence.
+     * @param wraps        the temporaries and expressions bound around each
+     *                     region.
+     * @return the new statement.
+     */
+    private SyntaxNode rebuild(SyntaxNode stmt,
+            IdentityHashMap<SyntaxNode, SyntaxNode> replacements,
+            IdentityHashMap<SyntaxNode, List<SyntaxNode[]>> wraps)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        ArrayList<SyntaxNode> results = new ArrayList<>();
+
+        work.push(stmt);
+        expanded.push(false);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            boolean done = expanded.pop();
+            List<SyntaxNode> children = node.getChildren();
+            SyntaxNode result;
+
+            if (replacements.containsKey(node))
+                result = replacements.get(node);
+            else if (!done)
+            {
+                work.push(node);
+                expanded.push(true);
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    work.push(children.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+            else
+            {
+                List<SyntaxNode> top = results.subList(
+                        results.size() - children.size(), results.size());
+                boolean changed = false;
+                for (int i = 0; i < children.size() && !changed; i++)
+                    changed = top.get(i) != children.get(i);
+                result = changed ? node.withChildren(new ArrayList<>(top))
+                        : node;
+                top.clear();
+            }
+
+            // Bind the temporaries, the first hoisted being outermost.
+            List<SyntaxNode[]> bound = wraps.get(node);
+            if (bound != null)
+                for (int i = bound.size() - 1; i >= 0; i--)
+                    result = new LetNode(
+                            ((TokenNode) bound.get(i)[0]).getToken(),
+                            bound.get(i)[1], result, node.getLineNumber());
+            results.add(result);
+        }
+        return results.get(0);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.Resolver;
+import ast.SyntaxTree;
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.nodes.UnaryOpNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+import lexer.TokenType;
+
+/**
+ * Folds subtrees made only of literals into the literal they evaluate to and
+ * propagates the values of constant top-level {@code val}s into the
+ * statements that follow them.
+ * <p>
+ * Folding evaluates the subtree, so the tree must type check first. A
+ * subtree whose evaluation fails, such as the head of an empty list, is left
+ * alone so that the failure still happens when the program runs.
+ */
+public class ConstantFolder extends TreeRewriter implements Pass
+{
+    /**
+     * The largest list constant copied into the uses of its name.
+     */
+    public static final int MAX_PROPAGATED_LIST = 32;
+
+    private HashMap<Integer, Object> constants;  // The values by global slot.
+
+    /**
+     * Constructs a new constant folder.
+     */
+    public ConstantFolder()
+    {
+        this.constants = new HashMap<>();
+    }
+
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "constant-folding";
+    }
+
+    /**
+     * Folds the tree under its environment.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes replaced by literals.
+     */
+    @Override
+    public int run(SyntaxTree tree)
+    {
+        int before = getChanges();
+        tree.setRootNode(fold(tree.getRootNode(), tree.getEnvironment()));
+        return getChanges() - before;
+    }
+
+    /**
+     * Folds the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @param env  the environment the tree will be evaluated under.
+     * @return the root of the folded tree.
+     */
+    public SyntaxNode fold(SyntaxNode root, Environment env)
+    {
+        // Resolution tells which identifiers refer to globals.
+        new Resolver(env).resolve(root);
+        constants.clear();
+        if (!(root instanceof ProgNode prog))
+            return rewrite(root);
+
+        HashMap<String, Integer> definitions = new HashMap<>();
+        for (SyntaxNode stmt : prog.getExprs())
+            if (stmt instanceof ValNode val)
+                definitions.merge(val.getName().getValue(), 1, Integer::sum);
+
+        List<SyntaxNode> stmts = new ArrayList<>();
+        boolean changed = false;
+        for (SyntaxNode stmt : prog.getExprs())
+        {
+            SyntaxNode folded = rewrite(stmt);
+            changed |= folded != stmt;
+            stmts.add(folded);
+
+            // A name defined more than once, or already defined, fails when
+            // it is defined so its value is not known.
+            if (stmt instanceof ValNode val && folded instanceof ValNode fval
+                    && definitions.get(val.getName().getValue()) == 1
+                    && env.getGlobal(val.getSlot()) == null)
+                remember(val.getSlot(), fval.getExpr());
+        }
+        return changed ? prog.withChildren(stmts) : prog;
+    }
+
+    /**
+     * Replaces a constant global by its value, or an operation on literals by
+     * its result.
+     * 
+     * @param original the node in the tree being folded.
+     * @param node     the node with its folded children.
+     * @return the replacement for the node.
+     */
+    @Override
+    protected SyntaxNode rewriteNode(SyntaxNode original, SyntaxNode node)
+    {
+        if (node instanceof TokenNode tok)
+        {
+            if (tok.getToken().getType() == TokenType.ID && tok.isGlobal()
+                    && constants.containsKey(tok.getSlot()))
+                return Literals.toNode(constants.get(tok.getSlot()),
+                        node.getLineNumber());
+            return node;
+        }
+
+        // A built-in call or element-wise operation that may fail is left
+        // to report its error when the program runs.
+        if (!(node instanceof BinOpNode bin && !bin.isElementwise()
+                || node instanceof RelOpNode || node instanceof UnaryOpNode
+                || node instanceof HeadNode || node instanceof TailNode
+                || node instanceof LenNode
+                || node instanceof BuiltinNode && !Effects.canFail(node)))
+            return node;
+
+        for (SyntaxNode child : node.getChildren())
+            if (!Literals.isLiteral(child))
+                return node;
+
+        try
+        {
+            SyntaxNode literal = Literals.toNode(Literals.valueOf(node),
+                    node.getLineNumber());
+            return literal == null ? node : literal;
+        }
+        catch (EvaluationException | RuntimeException ex)
+        {
+            return node;
+        }
+    }
+
+    /**
+     * Remembers the value of a global if it is a constant small enough to
+     * copy into its uses.
+     * 
+     * @param slot the global slot.
+     * @param expr the folded expression bound to the global.
+     */
+    private void remember(int slot, SyntaxNode expr)
+    {
+        if (!Literals.isLiteral(expr) || expr instanceof ListNode list
+                && list.getExprs().size() > MAX_PROPAGATED_LIST)
+            return;
+
+        try
+        {
+            constants.put(slot, Literals.valueOf(expr));
+        }
+        catch (EvaluationException ex)
+        {
+            // Not a well formed literal, so it is not propagated.
+        }
+    }
+}
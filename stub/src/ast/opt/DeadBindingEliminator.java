@@ -0,0 +1,215 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import ast.SyntaxTree;
+import ast.nodes.LetNode;
+import ast.nodes.ProgNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.ValNode;
+import environment.Environment;
+
+/**
+ * Removes bindings that are never referenced. A let whose variable its body
+ * does not use is replaced by its body, and a top-level val that no later
+ * statement uses is dropped, unless it is the last statement. A binding is
+ * only removed when evaluating its expression cannot fail, so removing it
+ * cannot hide an error.
+ * <p>
+ * A val also defines a global that outlives the program when the
+ * environment is kept, as it is between lines of interactive mode, so vals
+ * are only removed when the globals are not retained.
+ */
+public class DeadBindingEliminator extends TreeRewriter
+        implements Pass
+{
+    private ScopeAnalysis scopes;   // The bindings of the current tree.
+    private boolean retainGlobals;  // True if globals outlive the program.
+    private int removed;            // The number of nodes removed.
+
+    /**
+     * Constructs a new eliminator.
+     * 
+     * @param retainGlobals true if the globals defined by the program are
+     *                      used after it runs.
+     */
+    public DeadBindingEliminator(boolean retainGlobals)
+    {
+        this.retainGlobals = retainGlobals;
+    }
+
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "dead-bindings";
+    }
+
+    /**
+     * Removes the dead bindings of the tree.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes removed.
+     */
+    @Override
+    public int run(SyntaxTree tree)
+    {
+        int before = getRemoved();
+        tree.setRootNode(eliminate(tree.getRootNode(),
+                tree.getEnvironment()));
+        return getRemoved() - before;
+    }
+
+    /**
+     * Removes the dead bindings of the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @param env  the environment the tree will be evaluated under.
+     * @return the root of the new tree.
+     */
+    public SyntaxNode eliminate(SyntaxNode root, Environment env)
+    {
+        // Removing a binding can make the bindings it used dead.
+        SyntaxNode next = removeDeadLets(root);
+        while (next != root)
+        {
+            root = next;
+            next = removeDeadLets(root);
+        }
+
+        if (!retainGlobals && root instanceof ProgNode prog)
+            return removeDeadVals(prog, env);
+        return root;
+    }
+
+    /**
+     * Gets the number of nodes removed so far.
+     * 
+     * @return the number of removed nodes.
+     */
+    public int getRemoved()
+    {
+        return removed;
+    }
+
+    /**
+     * Replaces each dead let by its body.
+     * 
+     * @param original the node in the analyzed tree.
+     * @param node     the node with its rewritten children.
+     * @return the body of a dead let, otherwise the node.
+     */
+    @Override
+    protected SyntaxNode rewriteNode(SyntaxNode original, SyntaxNode node)
+    {
+        if (node instanceof LetNode let && !scopes.isUsed((LetNode) original)
+                && !Effects.mayFail(let.getVarExpr()))
+        {
+            removed += 1 + size(let.getVarExpr());
+            return let.getExpr();
+        }
+        return node;
+    }
+
+    /**
+     * Performs one round of let removal.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the new tree.
+     */
+    private SyntaxNode removeDeadLets(SyntaxNode root)
+    {
+        scopes = new ScopeAnalysis(root);
+        return rewrite(root);
+    }
+
+    /**
+     * Drops the vals no later statement uses, working back from the end of
+     * the program so a val used only by dropped vals is dropped as well.
+     * 
+     * @param prog the program.
+     * @param env  the environment the program will be evaluated under.
+     * @return the new program.
+     */
+    private SyntaxNode removeDeadVals(ProgNode prog, Environment env)
+    {
+        List<SyntaxNode> stmts = prog.getExprs();
+        HashMap<String, Integer> definitions = new HashMap<>();
+        HashSet<String> live = new HashSet<>();
+        List<SyntaxNode> kept = new ArrayList<>();
+
+        for (SyntaxNode stmt : stmts)
+            if (stmt instanceof ValNode val)
+                definitions.merge(val.getName().getValue(), 1, Integer::sum);
+
+        for (int i = stmts.size() - 1; i >= 0; i--)
+        {
+            SyntaxNode stmt = stmts.get(i);
+
+            // A name defined twice, or already defined, fails when it is
+            // defined, so the definition must stay.
+            if (i < stmts.size() - 1 && stmt instanceof ValNode val
+                    && !live.contains(val.getName().getValue())
+                    && definitions.get(val.getName().getValue()) == 1
+                    && env.lookup(val.getName()) == null
+                    && !Effects.mayFail(val.getExpr()))
+            {
+                removed += size(stmt);
+                continue;
+            }
+            live.addAll(new ScopeAnalysis(stmt).getGlobals());
+            kept.add(stmt);
+        }
+
+        if (kept.size() == stmts.size())
+            return prog;
+        Collections.reverse(kept);
+        return prog.withChildren(kept);
+    }
+
+    /**
+     * Counts the nodes of a subtree.
+     * 
+     * @param root the root of the subtree.
+     * @return the number of nodes.
+     */
+    private static int size(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        int count = 0;
+
+        work.push(root);
+        while (!work.isEmpty())
+        {
+            count++;
+            for (SyntaxNode child : work.pop().getChildren())
+                work.push(child);
+        }
+        return count;
+    }
+}
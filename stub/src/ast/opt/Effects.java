@@ -0,0 +1,163 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+
+import ast.ListAccess;
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.HeadNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.ListNode;
+import ast.nodes.RangeNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.nodes.ValNode;
+import lexer.TokenType;
+
+/**
+ * Decides which nodes of a well typed tree may fail when evaluated. MFL has
+ * no side effects besides defining values, so an expression that cannot
+ * fail may be shared, moved or dropped without changing the program.
+ * <p>
+ * The runtime checks that list elements are of one kind, which a well typed
+ * tree always satisfies, so building and concatenating lists cannot fail.
+ */
+public final class Effects
+{
+    /**
+     * Prevents instantiation.
+     */
+    private Effects()
+    {
+    }
+
+    /**
+     * Determines if any node of a subtree may fail.
+     * 
+     * @param root the root of the subtree.
+     * @return true if evaluating the subtree may fail.
+     */
+    public static boolean mayFail(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+
+        work.push(root);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            if (canFail(node))
+                return true;
+            for (SyntaxNode child : node.getChildren())
+                work.push(child);
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a node may fail once its children have been evaluated.
+     * 
+     * @param node the node.
+     * @return true if the operation performed by the node may fail.
+     */
+    public static boolean canFail(SyntaxNode node)
+    {
+        if (node instanceof HeadNode || node instanceof TailNode)
+            return !isNonEmptyList(node.getChildren().get(0));
+        if (node instanceof ListAccessNode fused)
+            return canFail(fused.getAccess());
+        if (node instanceof RangeNode)
+            return true;
+        if (node instanceof BuiltinNode builtin)
+        {
+            // Only the functions undefined on some lists may fail.
+            switch (builtin.getOp())
+            {
+            case MIN:
+            case MAX:
+            case AVG:
+            case DOT:
+                return true;
+            default:
+                return false;
+            }
+        }
+        if (node instanceof BinOpNode bin)
+        {
+            // Lists of different lengths can not be combined.
+            if (bin.isElementwise())
+                return true;
+            switch (bin.getOp())
+            {
+            case DIV:
+            case MOD:
+                return !isNonZero(bin.getRightTerm());
+            default:
+                return false;
+            }
+        }
+
+        // Redefining a value fails.
+        return node instanceof ValNode;
+    }
+
+    /**
+     * Determines if a fused chain of list operations may fail, which it may
+     * unless it neither drops elements nor takes a head.
+     * 
+     * @param access the chain.
+     * @return true if the chain may fail.
+     */
+    private static boolean canFail(ListAccess access)
+    {
+        if (access.getOp() == TokenType.HD || access.getDrop() > 0)
+            return true;
+        for (int i = 0; i < access.getSegmentCount(); i++)
+            if (access.getDrop(i) > 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Determines if a node is a non-empty list literal.
+     * 
+     * @param node the node.
+     * @return true if the node is a non-empty list literal.
+     */
+    private static boolean isNonEmptyList(SyntaxNode node)
+    {
+        return node instanceof ListNode list && !list.getExprs().isEmpty();
+    }
+
+    /**
+     * Determines if a node is a non-zero number literal.
+     * 
+     * @param node the node.
+     * @return true if the node is a literal other than zero.
+     */
+    private static boolean isNonZero(SyntaxNode node)
+    {
+        if (!(node instanceof TokenNode tok))
+            return false;
+        if (tok.getToken().getType() == TokenType.REAL)
+            return true;
+        return tok.getToken().getType() == TokenType.INT
+                && Integer.parseInt(tok.getToken().getValue()) != 0;
+    }
+}
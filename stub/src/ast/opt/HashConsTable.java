@@ -0,0 +1,254 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListNode;
+import ast.nodes.RangeNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.nodes.UnaryOpNode;
+import lexer.TokenType;
+
+/**
+ * Numbers the subtrees of a syntax tree so that two subtrees get the same
+ * number exactly when they are structurally identical and their identifiers
+ * refer to the same bindings. Each distinct subtree is interned once in a
+ * table keyed on the label of its root and the numbers of its children, so
+ * numbering the whole tree takes linear time.
+ * <p>
+ * The numbering also records, for every node, its parent, its size and its
+ * position in evaluation (post) order. The nodes of a subtree occupy a
+ * contiguous range of positions ending at the position of its root.
+ */
+public class HashConsTable
+{
+    private ArrayList<SyntaxNode> order;                    // Post order.
+    private IdentityHashMap<SyntaxNode, Integer> numbers;   // By node.
+    private IdentityHashMap<SyntaxNode, Integer> positions; // By node.
+    private IdentityHashMap<SyntaxNode, Integer> sizes;     // By node.
+    private IdentityHashMap<SyntaxNode, SyntaxNode> parents;
+    private ScopeAnalysis scopes;                           // Bindings.
+
+    /**
+     * Numbers the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     */
+    public HashConsTable(SyntaxNode root)
+    {
+        order = new ArrayList<>();
+        numbers = new IdentityHashMap<>();
+        positions = new IdentityHashMap<>();
+        sizes = new IdentityHashMap<>();
+        parents = new IdentityHashMap<>();
+        scopes = new ScopeAnalysis(root);
+
+        number(root);
+    }
+
+    /**
+     * Gets the nodes of the tree in evaluation order.
+     * 
+     * @return the nodes, children before their parents.
+     */
+    public List<SyntaxNode> getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * Gets the number of a subtree.
+     * 
+     * @param node the root of the subtree.
+     * @return the number shared by all identical subtrees.
+     */
+    public int getNumber(SyntaxNode node)
+    {
+        return numbers.get(node);
+    }
+
+    /**
+     * Gets the position of a node in evaluation order.
+     * 
+     * @param node the node.
+     * @return the position of the node.
+     */
+    public int getPosition(SyntaxNode node)
+    {
+        return positions.get(node);
+    }
+
+    /**
+     * Gets the number of nodes in a subtree.
+     * 
+     * @param node the root of the subtree.
+     * @return the size of the subtree.
+     */
+    public int getSize(SyntaxNode node)
+    {
+        return sizes.get(node);
+    }
+
+    /**
+     * Gets the parent of a node.
+     * 
+     * @param node the node.
+     * @return the parent or null for the root.
+     */
+    public SyntaxNode getParent(SyntaxNode node)
+    {
+        return parents.get(node);
+    }
+
+    /**
+     * Finds the lowest common ancestor of a set of nodes.
+     * 
+     * @param nodes the nodes.
+     * @return the deepest node that has every node in its subtree.
+     */
+    public SyntaxNode commonAncestor(List<SyntaxNode> nodes)
+    {
+        SyntaxNode lca = nodes.get(0);
+        for (SyntaxNode node : nodes)
+            while (!contains(lca, node))
+                lca = parents.get(lca);
+        return lca;
+    }
+
+    /**
+     * Determines if a subtree contains a node.
+     * 
+     * @param root the root of the subtree.
+     * @param node the node.
+     * @return true if {@code node} is in the subtree rooted at {@code root}.
+     */
+    public boolean contains(SyntaxNode root, SyntaxNode node)
+    {
+        int end = positions.get(root);
+        int pos = positions.get(node);
+        return pos <= end && pos > end - sizes.get(root);
+    }
+
+    /**
+     * Numbers every subtree, children first.
+     * 
+     * @param root the root of the tree.
+     */
+    private void number(SyntaxNode root)
+    {
+        HashMap<List<Object>, Integer> table = new HashMap<>();
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+
+        work.push(root);
+        expanded.push(false);
+        while (!work.isEmpty())
+        {
+            SyntaxNode node = work.pop();
+            List<SyntaxNode> children = node.getChildren();
+
+            if (!expanded.pop())
+            {
+                work.push(node);
+                expanded.push(true);
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    parents.put(children.get(i), node);
+                    work.push(children.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+
+            ArrayList<Object> key = new ArrayList<>(children.size() + 1);
+            int size = 1;
+            key.add(label(node));
+            for (SyntaxNode child : children)
+            {
+                key.add(numbers.get(child));
+                size += sizes.get(child);
+            }
+
+            Integer num = table.get(key);
+            if (num == null)
+            {
+                num = table.size();
+                table.put(key, num);
+            }
+            numbers.put(node, num);
+            sizes.put(node, size);
+            positions.put(node, order.size());
+            order.add(node);
+        }
+    }
+
+    /**
+     * Gets the label of a node, everything but its children that determines
+     * its value.
+     * 
+     * @param node the node.
+     * @return the label.
+     */
+    private Object label(SyntaxNode node)
+    {
+        if (node instanceof TokenNode tok)
+        {
+            if (tok.getToken().getType() == TokenType.ID)
+            {
+                LetNode binder = scopes.getBinder(tok);
+                if (binder != null)
+                    return binder;
+                return "global " + tok.getToken().getValue();
+            }
+            return tok.getToken().getType() + " " + tok.getToken().getValue();
+        }
+        if (node instanceof BinOpNode bin)
+            return bin.getOp();
+        if (node instanceof RelOpNode rel)
+            return rel.getOp();
+        if (node instanceof UnaryOpNode unary)
+            return "unary " + unary.getOp();
+        if (node instanceof HeadNode)
+            return "hd";
+        if (node instanceof TailNode)
+            return "tl";
+        if (node instanceof LenNode)
+            return "len";
+        if (node instanceof ListNode)
+            return "list";
+        if (node instanceof RangeNode)
+            return "range";
+        if (node instanceof BuiltinNode builtin)
+            return "builtin " + builtin.getOp();
+
+        // Anything else, such as a let, is only identical to itself.
+        return node;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.ListAccess;
+import ast.SyntaxTree;
+import ast.nodes.BinOpNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import lexer.TokenType;
+
+/**
+ * Fuses chains of {@code hd}, {@code tl}, {@code len} and {@code ++}
+ * operations into a single {@link ListAccessNode}, so that an expression
+ * such as {@code hd(tl(tl(a ++ b)))} reads one element of {@code a} or
+ * {@code b} rather than building four intermediate lists.
+ * <p>
+ * Only operations whose operand is itself a list operation are fused, as a
+ * lone {@code tl} or {@code ++} builds its result either way.
+ */
+public class ListFusion extends TreeRewriter implements Pass
+{
+    /**
+     * The segments, drops and final drop of a chain being built.
+     */
+    private static final class Chain
+    {
+        List<SyntaxNode> segments = new ArrayList<>();
+        List<Integer> drops = new ArrayList<>();
+        int drop;
+
+        /**
+         * Builds the chain that computes the list given by a node.
+         * 
+         * @param node the node.
+         * @return the chain.
+         */
+        static Chain of(SyntaxNode node)
+        {
+            Chain chain = new Chain();
+
+            if (node instanceof ListAccessNode fused && isList(fused))
+            {
+                chain.segments.addAll(fused.getSegments());
+                for (int i = 0; i < fused.getSegments().size(); i++)
+                    chain.drops.add(fused.getAccess().getDrop(i));
+                chain.drop = fused.getAccess().getDrop();
+            }
+            else if (node instanceof TailNode tail)
+            {
+                chain.segments.add(tail.getExpr());
+                chain.drops.add(1);
+            }
+            else if (node instanceof BinOpNode bin
+                    && bin.getOp() == TokenType.CONCAT)
+            {
+                chain.append(bin.getLeftTerm());
+                chain.append(bin.getRightTerm());
+            }
+            else
+            {
+                chain.segments.add(node);
+                chain.drops.add(0);
+            }
+            return chain;
+        }
+
+        /**
+         * Appends the list given by a node to the chain. A chain that drops
+         * elements from a concatenation can not be split into segments, so
+         * it becomes a single segment.
+         * 
+         * @param node the node.
+         */
+        void append(SyntaxNode node)
+        {
+            Chain chain = of(node);
+            chain.normalize();
+            if (chain.drop > 0)
+            {
+                segments.add(node);
+                drops.add(0);
+                return;
+            }
+            segments.addAll(chain.segments);
+            drops.addAll(chain.drops);
+        }
+
+        /**
+         * Moves the final drop of a chain with one segment into the
+         * segment.
+         */
+        void normalize()
+        {
+            if (segments.size() == 1)
+            {
+                drops.set(0, drops.get(0) + drop);
+                drop = 0;
+            }
+        }
+
+        /**
+         * Builds the node that applies an operation to the chain.
+         * 
+         * @param op   {@code HD}, {@code LEN} or {@code CONCAT}.
+         * @param line the line the node is associated with.
+         * @return the node.
+         */
+        SyntaxNode build(TokenType op, long line)
+        {
+            normalize();
+            int[] segmentDrops = new int[drops.size()];
+            for (int i = 0; i < segmentDrops.length; i++)
+                segmentDrops[i] = drops.get(i);
+            return new ListAccessNode(segments,
+                    new ListAccess(op, segmentDrops, drop), line);
+        }
+    }
+
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "list-fusion";
+    }
+
+    /**
+     * Fuses the list operations of the tree.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes fused.
+     */
+    @Override
+    public int run(SyntaxTree tree)
+    {
+        int before = getChanges();
+        tree.setRootNode(fuse(tree.getRootNode()));
+        return getChanges() - before;
+    }
+
+    /**
+     * Fuses the list operations of the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the fused tree.
+     */
+    public SyntaxNode fuse(SyntaxNode root)
+    {
+        return rewrite(root);
+    }
+
+    /**
+     * Fuses a list operation with the list operations that compute its
+     * operands.
+     * 
+     * @param original the node in the tree being fused.
+     * @param node     the node with its fused children.
+     * @return the replacement for the node.
+     */
+    @Override
+    protected SyntaxNode rewriteNode(SyntaxNode original, SyntaxNode node)
+    {
+        long line = node.getLineNumber();
+
+        if (node instanceof HeadNode head && isChain(head.getExpr()))
+            return Chain.of(head.getExpr()).build(TokenType.HD, line);
+        if (node instanceof LenNode len && isChain(len.getExpr()))
+            return Chain.of(len.getExpr()).build(TokenType.LEN, line);
+        if (node instanceof TailNode tail && isChain(tail.getExpr()))
+        {
+            Chain chain = Chain.of(tail.getExpr());
+            chain.drop++;
+            return chain.build(TokenType.CONCAT, line);
+        }
+        if (node instanceof BinOpNode bin && bin.getOp() == TokenType.CONCAT
+                && (isChain(bin.getLeftTerm()) || isChain(bin.getRightTerm())))
+            return Chain.of(bin).build(TokenType.CONCAT, line);
+        return node;
+    }
+
+    /**
+     * Determines if a node is a list operation that builds a list.
+     * 
+     * @param node the node.
+     * @return true if the node is a {@code tl}, {@code ++} or fused chain
+     *         giving a list.
+     */
+    private static boolean isChain(SyntaxNode node)
+    {
+        return node instanceof TailNode
+                || node instanceof BinOpNode bin
+                        && bin.getOp() == TokenType.CONCAT
+                || node instanceof ListAccessNode fused && isList(fused);
+    }
+
+    /**
+     * Determines if a fused chain gives a list.
+     * 
+     * @param fused the fused chain.
+     * @return true if the chain gives a list.
+     */
+    private static boolean isList(ListAccessNode fused)
+    {
+        return fused.getAccess().getOp() == TokenType.CONCAT;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.nodes.ListNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import environment.Environment;
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Converts between literal subtrees and the values they denote. A literal
+ * is an integer, real or boolean token, or a list whose elements are all
+ * literals.
+ */
+public final class Literals
+{
+    /**
+     * Prevents instantiation.
+     */
+    private Literals()
+    {
+    }
+
+    /**
+     * Determines if a subtree is a literal.
+     * 
+     * @param node the root of the subtree.
+     * @return true if the subtree is a literal.
+     */
+    public static boolean isLiteral(SyntaxNode node)
+    {
+        if (node instanceof TokenNode tok)
+        {
+            TokenType type = tok.getToken().getType();
+            return type == TokenType.INT || type == TokenType.REAL
+                    || type == TokenType.TRUE || type == TokenType.FALSE;
+        }
+        return node instanceof ListNode list && list.isLiteral();
+    }
+
+    /**
+     * Gets the value of a literal.
+     * 
+     * @param literal the literal.
+     * @return the value the literal denotes.
+     * @throws EvaluationException if the literal is not well formed.
+     */
+    public static Object valueOf(SyntaxNode literal) throws EvaluationException
+    {
+        // Literals do not refer to any names, so any environment serves. A
+        // fresh one keeps the values out of the constant pool of the
+        // program.
+        return literal.evaluate(new Environment());
+    }
+
+    /**
+     * Builds the literal denoting {@code value}.
+     * 
+     * @param value the value.
+     * @param line  the line the literal is associated with.
+     * @return the literal or null if the value has no literal form.
+     */
+    public static SyntaxNode toNode(Object value, long line)
+    {
+        if (value instanceof Integer)
+            return new TokenNode(new Token(TokenType.INT, value.toString()),
+                    line);
+        else if (value instanceof Double)
+            return new TokenNode(new Token(TokenType.REAL, value.toString()),
+                    line);
+        else if (value instanceof Boolean b)
+            return new TokenNode(new Token(b ? TokenType.TRUE : TokenType.FALSE,
+                    value.toString()), line);
+        else if (value instanceof List<?> list)
+        {
+            LinkedList<SyntaxNode> elems = new LinkedList<>();
+            for (Object elem : list)
+            {
+                SyntaxNode node = toNode(elem, line);
+                if (node == null)
+                    return null;
+                elems.add(node);
+            }
+            return new ListNode(elems, line);
+        }
+        return null;
+    }
+}
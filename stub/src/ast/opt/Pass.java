@@ -0,0 +1,44 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import ast.SyntaxTree;
+
+/**
+ * An optimization pass over a syntax tree. A pass replaces the root of the
+ * tree with an equivalent one, and must preserve the type and value of the
+ * tree, including whether its evaluation fails. The tree must type check
+ * before any pass is run.
+ */
+public interface Pass
+{
+    /**
+     * Gets the name of the pass, as shown in optimization statistics.
+     * 
+     * @return the name of the pass.
+     */
+    String getName();
+
+    /**
+     * Runs the pass over a tree.
+     * 
+     * @param tree the syntax tree.
+     * @return the number of nodes the pass changed, which is zero if the
+     *         tree is unchanged.
+     */
+    int run(SyntaxTree tree);
+}
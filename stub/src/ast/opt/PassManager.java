@@ -0,0 +1,163 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.SyntaxTree;
+
+/**
+ * Runs an ordered pipeline of optimization passes over a syntax tree,
+ * recording the time spent in and the nodes changed by each pass. A
+ * pipeline can be run once or repeated until it reaches a fixed point, as
+ * one pass often enables another, such as a simplification exposing a
+ * constant to fold.
+ * <p>
+ * The pipelines of the optimization levels are
+ * <ul>
+ * <li>{@code -O0}: no passes.</li>
+ * <li>{@code -O1}: constant folding, algebraic simplification and dead
+ * binding elimination, run once.</li>
+ * <li>{@code -O2}: the {@code -O1} passes along with common subexpression
+ * elimination and list fusion, run to a fixed point.</li>
+ * </ul>
+ */
+public class PassManager
+{
+    /**
+     * The highest optimization level.
+     */
+    public static final int MAX_LEVEL = 2;
+
+    /**
+     * The most times a pipeline is repeated looking for a fixed point.
+     */
+    public static final int MAX_ITERATIONS = 8;
+
+    private List<Pass> passes;                  // The pipeline in order.
+    private List<PassStatistics> statistics;    // The statistics by pass.
+    private boolean fixedPoint;     // True if run to a fixed point.
+    private int iterations;         // The iterations of the last run.
+
+    /**
+     * Constructs an empty pipeline.
+     * 
+     * @param fixedPoint true if the pipeline is repeated until no pass
+     *                   changes the tree.
+     */
+    public PassManager(boolean fixedPoint)
+    {
+        this.passes = new ArrayList<>();
+        this.statistics = new ArrayList<>();
+        this.fixedPoint = fixedPoint;
+    }
+
+    /**
+     * Builds the pipeline of an optimization level. Levels above
+     * {@link #MAX_LEVEL} are treated as {@link #MAX_LEVEL}.
+     * 
+     * @param level         the optimization level.
+     * @param retainGlobals true if the globals defined by the tree are used
+     *                      after it is evaluated.
+     * @return the pipeline.
+     */
+    public static PassManager forLevel(int level, boolean retainGlobals)
+    {
+        PassManager manager = new PassManager(level >= 2);
+
+        if (level >= 1)
+        {
+            manager.add(new ConstantFolder());
+            manager.add(new AlgebraicSimplifier());
+        }
+        if (level >= 2)
+        {
+            manager.add(new CommonSubexpressionEliminator());
+            manager.add(new ListFusion());
+        }
+        if (level >= 1)
+            manager.add(new DeadBindingEliminator(retainGlobals));
+        return manager;
+    }
+
+    /**
+     * Appends a pass to the pipeline.
+     * 
+     * @param pass the pass.
+     */
+    public void add(Pass pass)
+    {
+        passes.add(pass);
+        statistics.add(new PassStatistics(pass.getName()));
+    }
+
+    /**
+     * Runs the pipeline over a tree.
+     * 
+     * @param tree the syntax tree, which must type check.
+     */
+    public void run(SyntaxTree tree)
+    {
+        int limit = fixedPoint ? MAX_ITERATIONS : 1;
+        boolean changed = !passes.isEmpty();
+
+        iterations = 0;
+        while (changed && iterations < limit)
+        {
+            changed = false;
+            iterations++;
+            for (int i = 0; i < passes.size(); i++)
+            {
+                long start = System.nanoTime();
+                int changes = passes.get(i).run(tree);
+                statistics.get(i).record(System.nanoTime() - start, changes);
+                changed |= changes > 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the passes of the pipeline.
+     * 
+     * @return the passes in order.
+     */
+    public List<Pass> getPasses()
+    {
+        return passes;
+    }
+
+    /**
+     * Gets the statistics of each pass over every run of the pipeline.
+     * 
+     * @return the statistics in pipeline order.
+     */
+    public List<PassStatistics> getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * Gets the number of times the pipeline was repeated by the last run.
+     * 
+     * @return the number of iterations.
+     */
+    public int getIterations()
+    {
+        return iterations;
+    }
+}
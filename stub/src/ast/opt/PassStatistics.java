@@ -0,0 +1,105 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+/**
+ * The time spent in, and the nodes changed by, an optimization pass over
+ * all the times it has been run.
+ */
+public class PassStatistics
+{
+    private final String name;  // The name of the pass.
+    private int runs;           // The number of times the pass ran.
+    private long nanos;         // The total time spent in the pass.
+    private long changes;       // The total number of nodes changed.
+
+    /**
+     * Constructs empty statistics for a pass.
+     * 
+     * @param name the name of the pass.
+     */
+    public PassStatistics(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Records a run of the pass.
+     * 
+     * @param nanos   the time the run took in nanoseconds.
+     * @param changes the number of nodes the run changed.
+     */
+    public void record(long nanos, int changes)
+    {
+        this.runs++;
+        this.nanos += nanos;
+        this.changes += changes;
+    }
+
+    /**
+     * Gets the name of the pass.
+     * 
+     * @return the name of the pass.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Gets the number of times the pass ran.
+     * 
+     * @return the number of runs.
+     */
+    public int getRuns()
+    {
+        return runs;
+    }
+
+    /**
+     * Gets the total time spent in the pass.
+     * 
+     * @return the time in nanoseconds.
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    /**
+     * Gets the total number of nodes the pass changed.
+     * 
+     * @return the number of nodes changed.
+     */
+    public long getChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * Formats the statistics as a row of the table printed by the
+     * interpreter.
+     * 
+     * @return the name, runs, time in milliseconds and nodes changed.
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%-26s %4d %10.3f %8d", name, runs,
+                nanos / 1e6, changes);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import ast.nodes.LetNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import lexer.TokenType;
+
+/**
+ * Finds the binding each identifier of a tree refers to. An identifier
+ * refers to the innermost enclosing let that binds its name, or to a global
+ * value if there is none. Unlike resolution, the analysis does not need an
+ * environment, so it can be run on trees that were just rewritten.
+ */
+public class ScopeAnalysis
+{
+    // Marks the end of a let body in the work list.
+    private static final Object EXIT_SCOPE = new Object();
+
+    private IdentityHashMap<TokenNode, LetNode> binders;  // By identifier.
+    private IdentityHashMap<LetNode, Boolean> used;       // Referenced lets.
+    private HashSet<String> globals;                      // Free names.
+
+    /**
+     * Analyzes the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     */
+    public ScopeAnalysis(SyntaxNode root)
+    {
+        ArrayDeque<Object> work = new ArrayDeque<>();
+        ArrayList<LetNode> scope = new ArrayList<>();
+
+        binders = new IdentityHashMap<>();
+        used = new IdentityHashMap<>();
+        globals = new HashSet<>();
+
+        if (root != null)
+            work.push(root);
+        while (!work.isEmpty())
+        {
+            Object item = work.pop();
+            if (item == EXIT_SCOPE)
+                scope.remove(scope.size() - 1);
+            else if (item instanceof LetNode[] entry)
+                scope.add(entry[0]);
+            else if (item instanceof LetNode let)
+            {
+                // The variable is bound once its expression is analyzed, so
+                // the body sees it and the expression does not.
+                work.push(EXIT_SCOPE);
+                work.push(let.getExpr());
+                work.push(new LetNode[] { let });
+                work.push(let.getVarExpr());
+            }
+            else if (item instanceof TokenNode tok)
+                bind(tok, scope);
+            else
+            {
+                List<SyntaxNode> children = ((SyntaxNode) item).getChildren();
+                for (int i = children.size() - 1; i >= 0; i--)
+                    work.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the let an identifier refers to.
+     * 
+     * @param id the identifier.
+     * @return the let binding the identifier or null if it refers to a global
+     *         value.
+     */
+    public LetNode getBinder(TokenNode id)
+    {
+        return binders.get(id);
+    }
+
+    /**
+     * Determines if the variable bound by a let is referenced in its body.
+     * 
+     * @param let the let.
+     * @return true if some identifier refers to the let.
+     */
+    public boolean isUsed(LetNode let)
+    {
+        return used.containsKey(let);
+    }
+
+    /**
+     * Gets the names of the global values the tree refers to.
+     * 
+     * @return the set of global names.
+     */
+    public Set<String> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Finds the binding of an identifier.
+     * 
+     * @param tok   the token node.
+     * @param scope the lets enclosing the node, innermost last.
+     */
+    private void bind(TokenNode tok, List<LetNode> scope)
+    {
+        if (tok.getToken().getType() != TokenType.ID)
+            return;
+
+        String name = tok.getToken().getValue();
+        for (int i = scope.size() - 1; i >= 0; i--)
+            if (scope.get(i).getVar().getValue().equals(name))
+            {
+                binders.put(tok, scope.get(i));
+                used.put(scope.get(i), true);
+                return;
+            }
+        globals.add(name);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package ast.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.nodes.SyntaxNode;
+
+/**
+ * Rewrites a syntax tree bottom up. Each node is offered to
+ * {@link #rewriteNode} after its children have been rewritten, and a node
+ * whose children changed is rebuilt rather than modified, so subtrees that
+ * do not change are shared with the original tree.
+ * <p>
+ * The tree is walked with an explicit work list so that deeply nested
+ * programs do not exhaust the Java stack.
+ */
+public abstract class TreeRewriter
+{
+    private int changes;    // The number of nodes replaced.
+
+    /**
+     * Rewrites the tree rooted at {@code root}.
+     * 
+     * @param root the root of the tree.
+     * @return the root of the rewritten tree.
+     */
+    public SyntaxNode rewrite(SyntaxNode root)
+    {
+        ArrayDeque<SyntaxNode> work = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        ArrayList<SyntaxNode> results = new ArrayList<>();
+
+        if (root == null)
+            return null;
+
+        work.push(root);
+        expanded.push(false);
+        while (!work.isEmpty())
+        {
+            SyntaxNode original = work.pop();
+            SyntaxNode node = original;
+            List<SyntaxNode> children = node.getChildren();
+
+            if (!expanded.pop())
+            {
+                work.push(node);
+                expanded.push(true);
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    work.push(children.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+
+            // The rewritten children are the last results produced.
+            List<SyntaxNode> top = results.subList(
+                    results.size() - children.size(), results.size());
+            boolean changed = false;
+            for (int i = 0; i < children.size() && !changed; i++)
+                changed = top.get(i) != children.get(i);
+            if (changed)
+                node = node.withChildren(new ArrayList<>(top));
+            top.clear();
+
+            SyntaxNode result = rewriteNode(original, node);
+            if (result != node)
+                changes++;
+            results.add(result);
+        }
+        return results.get(0);
+    }
+
+    /**
+     * Gets the number of nodes replaced by {@link #rewriteNode} so far.
+     * 
+     * @return the number of replaced nodes.
+     */
+    public int getChanges()
+    {
+        return changes;
+    }
+
+    /**
+     * Rewrites a single node whose children have already been rewritten.
+     * 
+     * @param original the node in the tree being rewritten, which analyses
+     *                 of that tree know about.
+     * @param node     the node with its rewritten children, which is
+     *                 {@code original} if no child changed.
+     * @return the replacement for the node, or {@code node} if it is not
+     *         changed.
+     */
+    protected abstract SyntaxNode rewriteNode(SyntaxNode original,
+            SyntaxNode node);
+}
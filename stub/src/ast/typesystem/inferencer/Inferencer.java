@@ -121,6 +121,43 @@ public class Inferencer
             throw new TypeException("Unification failed: " + msg);
     }
 
+    /**
+     * Unifies the operand types of an arithmetic operation, which applies
+     * element by element when either operand is a list. A list is unified
+     * with a list, and a scalar with the element type of a list; otherwise
+     * the types are unified as by {@link #unify}.
+     * 
+     * @param type1 the type of the left operand.
+     * @param type2 the type of the right operand.
+     * @param msg the text to include in the error message, in case of error.
+     * @return the type of the result, which is a list if either operand is.
+     * @throws TypeException if the types can not be unified.
+     */
+    public Type unifyElementwise(Type type1, Type type2, String msg)
+            throws TypeException
+    {
+        // Apply the known substitutions.
+        type1 = subst.apply(type1);
+        type2 = subst.apply(type2);
+
+        // A type variable may yet be a list, so it is unified as a whole.
+        if (type1 instanceof ListType list1 && !(type2 instanceof ListType)
+                && !(type2 instanceof VarType))
+        {
+            unify(list1.getElementType(), type2, msg);
+            return subst.apply(type1);
+        }
+        if (type2 instanceof ListType list2 && !(type1 instanceof ListType)
+                && !(type1 instanceof VarType))
+        {
+            unify(type1, list2.getElementType(), msg);
+            return subst.apply(type2);
+        }
+
+        unify(type1, type2, msg);
+        return subst.apply(type1);
+    }
+
     /**
      * Makes sure that tv does not appear in ty. This is used by unification to
      * ensure that a type variable on the left-hand side of an equation does not
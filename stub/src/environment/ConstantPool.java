@@ -0,0 +1,62 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package environment;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The constant values of a program, such as the values of literal lists.
+ * Equal constants are interned to a single shared instance, so a literal
+ * that is evaluated again, or repeated on a later line of interactive mode,
+ * does not build another copy of its value. Constants are immutable, so
+ * sharing them is safe, even between threads.
+ */
+public final class ConstantPool
+{
+    private final ConcurrentHashMap<Object, Object> values;
+
+    /**
+     * Constructs a new empty pool.
+     */
+    public ConstantPool()
+    {
+        values = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the pooled instance of a constant, adding the constant to the
+     * pool if no equal constant is pooled.
+     * 
+     * @param value the constant.
+     * @return the pooled constant equal to {@code value}.
+     */
+    public Object intern(Object value)
+    {
+        Object pooled = values.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Gets the number of constants in the pool.
+     * 
+     * @return the number of distinct constants.
+     */
+    public int size()
+    {
+        return values.size();
+    }
+}
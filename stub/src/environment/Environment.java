@@ -16,25 +16,58 @@
  */
 package environment;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import lexer.Token;
 
 /**
- * A simple representation of an executional environment.
+ * A simple representation of an executional environment. Names bound by a
+ * let are kept in a persistent map, so a copy for a new scope shares the
+ * bindings of the original rather than duplicating them. When the program
+ * has been resolved, let bound names are instead stored in a flat frame of
+ * slots and global values are stored in slots shared by every copy of the
+ * environment.
  * 
  * @author Zach Kissel
  */
 public class Environment
 {
-    private HashMap<String, Object> env;
+    /**
+     * The global values, indexed by slot.
+     * A single instance is shared by all copies of an environment.
+     */
+    private class GlobalFrame
+    {
+        private HashMap<String, Integer> slots;  // The slot of each name.
+        private Object[] values;                 // The values by slot.
+
+        /**
+         * Sets up an empty global frame.
+         */
+        public GlobalFrame()
+        {
+            slots = new HashMap<>();
+            values = new Object[16];
+        }
+    }
+
+    private PersistentMap<String, Object> env;
+    private GlobalFrame globals;   // The global values.
+    private Object[] frame;        // The let bound values, indexed by slot.
+    private ConstantPool constants; // The constants of the program.
+    private boolean lazy;          // True if bindings are call-by-need.
+    private boolean parallel;      // True if subexpressions may be forked.
 
     /**
      * Sets up the initial environment.
      */
     public Environment()
     {
-        env = new HashMap<>();
+        env = PersistentMap.empty();
+        globals = new GlobalFrame();
+        frame = new Object[0];
+        constants = new ConstantPool();
     }
 
     /**
@@ -46,7 +79,25 @@ public class Environment
      */
     public Object lookup(Token tok)
     {
-        return env.get(tok.getValue());
+        Object val = env.get(tok.getValue());
+        if (val != null)
+            return val;
+
+        Integer slot = globals.slots.get(tok.getValue());
+        if (slot == null)
+            return null;
+        return globals.values[slot];
+    }
+
+    /**
+     * Gets the shape of the global values. Environments with the same global
+     * shape assign the same slots to the same names.
+     * 
+     * @return an object identifying the global values.
+     */
+    public Object getGlobalShape()
+    {
+        return globals;
     }
 
     /**
@@ -58,19 +109,205 @@ public class Environment
      */
     public void updateEnvironment(Token tok, Object val)
     {
-        if (env.replace(tok.getValue(), val) == null)
-            env.put(tok.getValue(), val);
+        env = env.assoc(tok.getValue(), val);
     }
 
     /**
-     * Makes a copy of the current environment.
+     * Gets the pool of constant values of the program being run, which is
+     * shared by every copy of the environment.
+     * 
+     * @return the constant pool.
+     */
+    public ConstantPool getConstantPool()
+    {
+        return constants;
+    }
+
+    /**
+     * Sets the pool of constant values of the program being run. The pool
+     * belongs to the program rather than to the globals, so it does not
+     * grow with every line of interactive mode.
+     * 
+     * @param constants the constant pool.
+     */
+    public void setConstantPool(ConstantPool constants)
+    {
+        this.constants = constants;
+    }
+
+    /**
+     * Makes a copy of the current environment in constant time. The copy
+     * shares the global values, the constants and the frame of the
+     * original.
      * 
      * @return a copy of the environment.
      */
     public Environment copy()
     {
         Environment newEnv = new Environment();
-        newEnv.env.putAll(env);
+        newEnv.env = env;
+        newEnv.globals = globals;
+        newEnv.frame = frame;
+        newEnv.constants = constants;
+        newEnv.lazy = lazy;
+        newEnv.parallel = parallel;
         return newEnv;
     }
+
+    /**
+     * Makes a copy of the current environment with a private copy of the
+     * global slots and values and an empty frame, so the copy can be used on
+     * another thread, such as by a background compiler, while the original
+     * is still in use.
+     * 
+     * @return a snapshot of the environment.
+     */
+    public Environment snapshot()
+    {
+        Environment newEnv = copy();
+        newEnv.globals = new GlobalFrame();
+        newEnv.globals.slots = new HashMap<>(globals.slots);
+        newEnv.globals.values = globals.values.clone();
+        newEnv.frame = new Object[0];
+        return newEnv;
+    }
+
+    /**
+     * Makes a copy of the current environment with a private copy of the
+     * frame, so evaluating under the fork does not change the let bound
+     * values seen by the original.
+     * 
+     * @return a fork of the environment.
+     */
+    public Environment fork()
+    {
+        Environment newEnv = copy();
+        newEnv.frame = frame.clone();
+        return newEnv;
+    }
+
+    /**
+     * Sets whether bindings should be evaluated lazily (call-by-need).
+     * 
+     * @param lazy true if bindings should be thunks.
+     */
+    public void setLazy(boolean lazy)
+    {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Determines if bindings should be evaluated lazily (call-by-need).
+     * 
+     * @return true if bindings should be thunks.
+     */
+    public boolean isLazy()
+    {
+        return lazy;
+    }
+
+    /**
+     * Sets whether independent subexpressions may be evaluated in parallel.
+     * 
+     * @param parallel true if subexpressions may be forked.
+     */
+    public void setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Determines if independent subexpressions may be evaluated in parallel.
+     * 
+     * @return true if subexpressions may be forked.
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Gets the global slot of the name {@code tok}, assigning a new slot
+     * if the name does not have one yet.
+     * 
+     * @param tok the name of the global.
+     * @return the slot of the global.
+     */
+    public int getGlobalSlot(Token tok)
+    {
+        Integer slot = globals.slots.get(tok.getValue());
+        if (slot != null)
+            return slot;
+
+        slot = globals.slots.size();
+        globals.slots.put(tok.getValue(), slot);
+        if (slot == globals.values.length)
+            globals.values = Arrays.copyOf(globals.values, slot * 2);
+        return slot;
+    }
+
+    /**
+     * Gets the value of the global in slot {@code slot}.
+     * 
+     * @param slot the global slot.
+     * @return the value of the global or null if it has not been defined.
+     */
+    public Object getGlobal(int slot)
+    {
+        return globals.values[slot];
+    }
+
+    /**
+     * Sets the value of the global in slot {@code slot}.
+     * 
+     * @param slot the global slot.
+     * @param val  the value of the global.
+     */
+    public void setGlobal(int slot, Object val)
+    {
+        globals.values[slot] = val;
+    }
+
+    /**
+     * Defines the global value {@code tok}.
+     * 
+     * @param tok the name of the global.
+     * @param val the value of the global.
+     */
+    public void defineGlobal(Token tok, Object val)
+    {
+        setGlobal(getGlobalSlot(tok), val);
+    }
+
+    /**
+     * Allocates a new frame for let bound values.
+     * 
+     * @param size the number of slots in the frame.
+     */
+    public void allocateFrame(int size)
+    {
+        frame = new Object[size];
+    }
+
+    /**
+     * Gets the value in the local slot {@code slot}.
+     * 
+     * @param slot the slot in the frame.
+     * @return the value in the slot.
+     */
+    public Object getLocal(int slot)
+    {
+        return frame[slot];
+    }
+
+    /**
+     * Sets the value in the local slot {@code slot}.
+     * 
+     * @param slot the slot in the frame.
+     * @param val  the value to store.
+     */
+    public void setLocal(int slot, Object val)
+    {
+        frame[slot] = val;
+    }
 }
@@ -0,0 +1,378 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package environment;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map implemented as a hash array mapped trie (HAMT). Adding a
+ * binding returns a new map that shares all but the O(log n) nodes on the
+ * path to the changed entry with the original, so copies are free and
+ * updates are cheap.
+ * 
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class PersistentMap<K, V>
+{
+    /**
+     * A node of the trie.
+     */
+    private abstract static class Node
+    {
+        /**
+         * Finds the value bound to {@code key}.
+         * 
+         * @param shift the number of hash bits consumed above this node.
+         * @param hash  the hash of the key.
+         * @param key   the key to find.
+         * @return the value or null if the key is not bound.
+         */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Binds {@code key} to {@code val} below this node.
+         * 
+         * @param shift the number of hash bits consumed above this node.
+         * @param hash  the hash of the key.
+         * @param key   the key to bind.
+         * @param val   the value to bind the key to.
+         * @param added set to true if a new key was added.
+         * @return the new node, which is this node if nothing changed.
+         */
+        abstract Node assoc(int shift, int hash, Object key, Object val,
+                boolean[] added);
+
+        /**
+         * Calls {@code action} on every binding below this node.
+         * 
+         * @param action the action to perform.
+         */
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * An interior node holding up to 32 entries, one for each value of the
+     * next five bits of the hash. Only the entries present are stored, the
+     * bitmap records which ones they are. Each entry is a key and value pair
+     * or, when the key is null, a child node.
+     */
+    private static final class BitmapNode extends Node
+    {
+        private final int bitmap;       // The entries present.
+        private final Object[] array;   // The entries as pairs.
+
+        /**
+         * Constructs a new bitmap node.
+         * 
+         * @param bitmap the entries present.
+         * @param array  the entries.
+         */
+        BitmapNode(int bitmap, Object[] array)
+        {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key)
+        {
+            int bit = bitFor(shift, hash);
+            if ((bitmap & bit) == 0)
+                return null;
+
+            int idx = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[idx];
+            if (k == null)
+                return ((Node) array[idx + 1]).find(shift + 5, hash, key);
+            return key.equals(k) ? array[idx + 1] : null;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object val,
+                boolean[] added)
+        {
+            int bit = bitFor(shift, hash);
+            int idx = 2 * Integer.bitCount(bitmap & (bit - 1));
+
+            // A new entry, insert the pair.
+            if ((bitmap & bit) == 0)
+            {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, idx);
+                newArray[idx] = key;
+                newArray[idx + 1] = val;
+                System.arraycopy(array, idx, newArray, idx + 2,
+                        array.length - idx);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            Object k = array[idx];
+            Object v = array[idx + 1];
+
+            // The entry is a child, update it.
+            if (k == null)
+            {
+                Node child = ((Node) v).assoc(shift + 5, hash, key, val,
+                        added);
+                if (child == v)
+                    return this;
+                return new BitmapNode(bitmap, with(idx + 1, child));
+            }
+
+            // The entry is this key, replace the value.
+            if (key.equals(k))
+            {
+                if (val == v)
+                    return this;
+                return new BitmapNode(bitmap, with(idx + 1, val));
+            }
+
+            // Another key lives here, push both down a level.
+            added[0] = true;
+            Object[] newArray = with(idx + 1, pair(shift + 5, k, v, hash,
+                    key, val));
+            newArray[idx] = null;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action)
+        {
+            for (int i = 0; i < array.length; i += 2)
+                if (array[i] == null)
+                    ((Node) array[i + 1]).forEach(action);
+                else
+                    action.accept(array[i], array[i + 1]);
+        }
+
+        /**
+         * Copies the entries replacing the one at {@code idx}.
+         * 
+         * @param idx the index to replace.
+         * @param obj the new entry.
+         * @return the new entry array.
+         */
+        private Object[] with(int idx, Object obj)
+        {
+            Object[] newArray = array.clone();
+            newArray[idx] = obj;
+            return newArray;
+        }
+    }
+
+    /**
+     * A leaf node holding keys whose hashes are identical.
+     */
+    private static final class CollisionNode extends Node
+    {
+        private final int hash;         // The hash shared by every key.
+        private final Object[] array;   // The key and value pairs.
+
+        /**
+         * Constructs a new collision node.
+         * 
+         * @param hash  the hash shared by every key.
+         * @param array the key and value pairs.
+         */
+        CollisionNode(int hash, Object[] array)
+        {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key)
+        {
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                    return array[i + 1];
+            return null;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object val,
+                boolean[] added)
+        {
+            // A different hash, nest this node under a bitmap node.
+            if (hash != this.hash)
+                return new BitmapNode(bitFor(shift, this.hash),
+                        new Object[] { null, this }).assoc(shift, hash, key,
+                                val, added);
+
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                {
+                    if (array[i + 1] == val)
+                        return this;
+                    Object[] newArray = array.clone();
+                    newArray[i + 1] = val;
+                    return new CollisionNode(hash, newArray);
+                }
+
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = val;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action)
+        {
+            for (int i = 0; i < array.length; i += 2)
+                action.accept(array[i], array[i + 1]);
+        }
+    }
+
+    private static final BitmapNode EMPTY_NODE = new BitmapNode(0,
+            new Object[0]);
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(
+            EMPTY_NODE, 0);
+
+    private final Node root;    // The root of the trie.
+    private final int size;     // The number of bindings.
+
+    /**
+     * Constructs a map with the given root.
+     * 
+     * @param root the root of the trie.
+     * @param size the number of bindings in the trie.
+     */
+    private PersistentMap(Node root, int size)
+    {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     * 
+     * @param <K> the type of the keys.
+     * @param <V> the type of the values.
+     * @return the empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty()
+    {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Gets the value bound to {@code key}.
+     * 
+     * @param key the key to look up.
+     * @return the value or null if the key is not bound.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key)
+    {
+        return (V) root.find(0, key.hashCode(), key);
+    }
+
+    /**
+     * Binds {@code key} to {@code val}.
+     * 
+     * @param key the key to bind.
+     * @param val the value of the key.
+     * @return a map with the binding, this map is unchanged.
+     */
+    public PersistentMap<K, V> assoc(K key, V val)
+    {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.assoc(0, key.hashCode(), key, val, added);
+        if (newRoot == root)
+            return this;
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Gets the number of bindings in the map.
+     * 
+     * @return the size of the map.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Calls {@code action} on every binding of the map.
+     * 
+     * @param action the action to perform.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action)
+    {
+        root.forEach((k, v) -> action.accept((K) k, (V) v));
+    }
+
+    /**
+     * Provides a string representing the map.
+     * 
+     * @return a string representation of the map.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append("=").append(v);
+        });
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Gets the entry bit of a hash at a level of the trie.
+     * 
+     * @param shift the number of hash bits consumed above the level.
+     * @param hash  the hash.
+     * @return the bit for the hash.
+     */
+    private static int bitFor(int shift, int hash)
+    {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Builds the node holding two keys with different hashes (or a
+     * collision node if they have the same hash).
+     * 
+     * @param shift the number of hash bits consumed above the node.
+     * @param k1    the first key.
+     * @param v1    the first value.
+     * @param h2    the hash of the second key.
+     * @param k2    the second key.
+     * @param v2    the second value.
+     * @return the new node.
+     */
+    private static Node pair(int shift, Object k1, Object v1, int h2,
+            Object k2, Object v2)
+    {
+        int h1 = k1.hashCode();
+        if (h1 == h2)
+            return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+
+        boolean[] added = new boolean[1];
+        return EMPTY_NODE.assoc(shift, h1, k1, v1, added).assoc(shift, h2,
+                k2, v2, added);
+    }
+}
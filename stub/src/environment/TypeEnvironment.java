@@ -16,7 +16,7 @@
  */
 package environment;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Set;
 
 import ast.typesystem.types.Type;
@@ -24,7 +24,9 @@ import ast.typesystem.types.VarType;
 import lexer.Token;
 
 /**
- * A simple representation of an type environment.
+ * A simple representation of an type environment. The bindings are kept in
+ * a persistent map so copying the environment is a constant time operation
+ * that shares the bindings of the original.
  * 
  * @author Zach Kissel
  */
@@ -58,14 +60,14 @@ public class TypeEnvironment
     }
 
     private VarGenerator gen;               // The type varaible generator.
-    private HashMap<String, Type> env;      // The environemnt
+    private PersistentMap<String, Type> env; // The environemnt
 
     /**
      * Sets up the initial environment.
      */
     public TypeEnvironment()
     {
-        env = new HashMap<>();
+        env = PersistentMap.empty();
         gen = new VarGenerator();
     }
 
@@ -86,7 +88,7 @@ public class TypeEnvironment
      */
     public void clearTenv()
     {
-        env.clear();
+        env = PersistentMap.empty();
     }
 
     /**
@@ -98,8 +100,7 @@ public class TypeEnvironment
      */
     public void updateEnvironment(Token tok, Type type)
     {
-        if (env.replace(tok.getValue(), type) == null)
-            env.put(tok.getValue(), type);
+        env = env.assoc(tok.getValue(), type);
     }
 
     /**
@@ -110,7 +111,7 @@ public class TypeEnvironment
     public TypeEnvironment copy()
     {
         TypeEnvironment newEnv = new TypeEnvironment();
-        newEnv.env.putAll(env);
+        newEnv.env = env;
 
         // Don't make a copy of the variable generator since
         // we want to maintain the invariant that all type 
@@ -126,7 +127,9 @@ public class TypeEnvironment
      */
     public Set<String> getKnowVariables()
     {
-        return env.keySet();
+        Set<String> vars = new HashSet<>();
+        env.forEach((name, type) -> vars.add(name));
+        return vars;
     }
 
     /**
@@ -167,6 +167,32 @@ public class CharacterStream {
             advance();
     }
 
+    /**
+     * Gets the character after the head of the stream without advancing
+     * the stream.
+     * 
+     * @return the next character, or {@code '\0'} at the end of the
+     *         stream.
+     */
+    public char peek()
+    {
+        if (skipRead)
+            return nextChar;
+
+        try
+        {
+            input.mark(1);
+            int c = input.read();
+            input.reset();
+            return c == -1 ? '\0' : (char) c;
+        }
+        catch (IOException ioe)
+        {
+            System.err.println("Internal error (peek()): " + ioe);
+            return '\0';
+        }
+    }
+
     /**
      * Skips the next advance call. Multiple calls 
      * will *not* go back further than one character.
@@ -102,7 +102,8 @@ public class Lexer
                     stream.advance();
                 }
 
-                if (stream.getCurrentChar() == '.') // Decimal point.
+                // A decimal point, unless it starts a range operator.
+                if (stream.getCurrentChar() == '.' && stream.peek() != '.')
                 {
                     value += stream.getCurrentChar();
                     stream.advance();
@@ -156,9 +157,11 @@ public class Lexer
 
         switch (stream.getCurrentChar())
         {
-        case '.': // A double with just a leading dot.
+        case '.': // A double with just a leading dot, or a range.
             value += ".";
             stream.advance();
+            if (stream.getCurrentChar() == '.')
+                return new Token(TokenType.DOTDOT, "..");
            
             while (stream.getCurrentClass() == CharacterClass.DIGIT)
             {
@@ -198,5 +198,60 @@ public enum TokenType {
     /*
      * COMMA ,
      */
-    COMMA
+    COMMA,
+
+    /**
+     * The range operator ..
+     */
+    DOTDOT,
+
+    /**
+     * The sum of a list
+     */
+    SUM,
+
+    /**
+     * The least element of a list
+     */
+    MIN,
+
+    /**
+     * The greatest element of a list
+     */
+    MAX,
+
+    /**
+     * The average of a list
+     */
+    AVG,
+
+    /**
+     * The number of occurrences of a value in a list
+     */
+    COUNT,
+
+    /**
+     * The dot product of two lists
+     */
+    DOT,
+
+    /**
+     * Sorting a list in ascending order
+     */
+    SORT,
+
+    /**
+     * Sorting a list in descending order
+     */
+    SORTDESC,
+
+    /**
+     * Removing the repeated elements of a list
+     */
+    DISTINCT,
+
+    /**
+     * The index of a value in a list
+     */
+    INDEXOF
 }
@@ -18,15 +18,19 @@ package parser;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedList;
 
 import ast.SyntaxTree;
 import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
 import ast.nodes.HeadNode;
 import ast.nodes.TailNode;
 import ast.nodes.LenNode;
 import ast.nodes.LetNode;
 import ast.nodes.ListNode;
+import ast.nodes.RangeNode;
 import ast.nodes.ProgNode;
 import ast.nodes.RelOpNode;
 import ast.nodes.SyntaxNode;
@@ -63,6 +67,13 @@ import lexer.Token;
  * at the head of the stream must be accessed directly, the {@code getCurrToken}
  * method can be used.
  * </p>
+ * <p>
+ * Expressions are parsed by a loop over an explicit stack of pending
+ * non-terminals rather than by recursion, so chains of binary operations
+ * and nested expressions (parentheses, lists, let bodies, and the operands
+ * of {@code hd}, {@code tl}, negation and the like) are limited only by the
+ * heap.
+ * </p>
  * 
  * @author Zach Kissel
  */
@@ -150,221 +161,361 @@ public class MFLParser extends Parser {
   }
 
   /**
-     * Method to evaluate the expression non-terminal <expr>
-     * @throws ParseException if there is an error during parsing.
-     */
-    private SyntaxNode evalExpr() throws ParseException {
-        trace("Enter <expr>");
-        SyntaxNode expr = null;
+   * Method to evaluate the expression non-terminal <expr>. The expression
+   * non-terminals are parsed by a loop over an explicit stack of pending
+   * non-terminals rather than by recursion, so expressions may nest as deeply
+   * as the heap allows.
+   * 
+   * @return the subtree representing the expression.
+   * @throws ParseException if there is an error during parsing.
+   */
+  private SyntaxNode evalExpr() throws ParseException {
+    Deque<Frame> stack = new ArrayDeque<>();
+    SyntaxNode result = null;
+
+    stack.push(new Frame(Rule.EXPR));
+    while (true) {
+      Frame frame = stack.peek();
+      Frame callee = step(frame, result);
+
+      // Parse the non-terminal the frame is waiting on.
+      if (callee != null) {
+        stack.push(callee);
+        result = null;
+      }
 
-        // Are we looking at a let expression?
-        if (checkMatch(TokenType.LET))
-            return handleLet();
-        else 
-          expr = getGoodParse(evalBoolExpr());
+      // The frame is parsed, hand its subtree back to the frame below.
+      else {
+        stack.pop();
+        if (stack.isEmpty())
+          return frame.result;
+        result = frame.result;
+      }
+    }
+  }
 
-        return expr;
+  /**
+   * Takes the next step of the non-terminal on top of the parser's stack.
+   * 
+   * @param frame  the non-terminal to step.
+   * @param result the subtree of the non-terminal the frame was waiting on, if
+   *               any.
+   * @return the non-terminal to parse before stepping {@code frame} again, or
+   *         {@code null} if {@code frame} is parsed.
+   * @throws ParseException when parsing fails.
+   */
+  private Frame step(Frame frame, SyntaxNode result) throws ParseException {
+    switch (frame.rule) {
+      case EXPR:
+        return evalExpr(frame, result);
+      case BEXPR:
+        return evalBoolExpr(frame, result);
+      case REXPR:
+        return evalRexpr(frame, result);
+      case MEXPR:
+        return evalMexpr(frame, result);
+      case TERM:
+        return evalTerm(frame, result);
+      case FACTOR:
+        return evalFactor(frame, result);
+      case LIST:
+        return evalList(frame, result);
+      case LET:
+        return handleLet(frame, result);
+      default:
+        return handleBuiltin(frame, result);
     }
+  }
 
   /**
-   * Method to evaluate the bool expression non-terminal <bexpr>
+   * Steps the expression non-terminal <expr>.
    * 
+   * @param frame  the expression being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
    * @throws ParseException if there is an error during parsing.
    */
-  private SyntaxNode evalBoolExpr() throws ParseException {
-    SyntaxNode rexpr;
-    TokenType op;
-    SyntaxNode expr = null;
+  private Frame evalExpr(Frame frame, SyntaxNode result) throws ParseException {
+    if (frame.state == 0) {
+      trace("Enter <expr>");
+
+      // Are we looking at a let expression?
+      if (checkMatch(TokenType.LET))
+        return frame.call(Rule.LET, 1);
+      else
+        return frame.call(Rule.BEXPR, 1);
+    }
 
-    trace("Enter <bexpr>");
+    return frame.done(getGoodParse(result));
+  }
 
-    expr = getGoodParse(evalRexpr());
+  /**
+   * Steps the bool expression non-terminal <bexpr>
+   * 
+   * @param frame  the expression being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
+   * @throws ParseException if there is an error during parsing.
+   */
+  private Frame evalBoolExpr(Frame frame, SyntaxNode result)
+      throws ParseException {
+    if (frame.state == 0) {
+      trace("Enter <bexpr>");
+      return frame.call(Rule.REXPR, 1);
+    }
 
-    op = getCurrToken().getType(); // Save off the supposed operation.
+    if (frame.state == 1)
+      frame.node = getGoodParse(result);
+    else
+      frame.node = new BinOpNode(frame.node, frame.op, getGoodParse(result),
+          getCurrLine());
 
-    while (checkMatch(TokenType.AND) || checkMatch(TokenType.OR)) {
-      rexpr = getGoodParse(evalRexpr());
-      expr = new BinOpNode(expr, op, rexpr, getCurrLine());
-      op = getCurrToken().getType();
-    }
+    frame.op = getCurrToken().getType(); // Save off the supposed operation.
+    if (checkMatch(TokenType.AND) || checkMatch(TokenType.OR))
+      return frame.call(Rule.REXPR, 2);
     trace("Exit <bexpr>");
 
-    return expr;
+    return frame.done(frame.node);
   }
 
   /**
-   * Evaluates relational expressions (the <rexpr> non-terminal)
+   * Steps relational expressions (the <rexpr> non-terminal)
    * 
-   * @return a SyntaxNode representing the relation expression.
+   * @param frame  the expression being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
    * @throws ParseException when parsing fails.
    */
-  private SyntaxNode evalRexpr() throws ParseException {
-    SyntaxNode left = null;
-    SyntaxNode right = null;
-    TokenType op;
+  private Frame evalRexpr(Frame frame, SyntaxNode result)
+      throws ParseException {
+    if (frame.state == 0)
+      return frame.call(Rule.MEXPR, 1);
+
+    if (frame.state == 2)
+      return frame.done(new RelOpNode(frame.node, frame.op,
+          getGoodParse(result), getCurrLine()));
 
-    left = getGoodParse(evalMexpr());
+    frame.node = getGoodParse(result);
 
-    op = getCurrToken().getType(); // Save off what should be the operator.
+    frame.op = getCurrToken().getType(); // Save off what should be the operator.
     if (checkMatch(TokenType.LT) || checkMatch(TokenType.LTE)
         || checkMatch(TokenType.GT) || checkMatch(TokenType.GTE)
-        || checkMatch(TokenType.EQ) || checkMatch(TokenType.NEQ)) {
-      right = getGoodParse(evalMexpr());
-      return new RelOpNode(left, op, right, getCurrLine());
-    }
+        || checkMatch(TokenType.EQ) || checkMatch(TokenType.NEQ))
+      return frame.call(Rule.MEXPR, 2);
 
-    return left;
+    return frame.done(frame.node);
   }
 
   /**
-   * evaluates the math expression non-terminal (mexpr).
+   * Steps the math expression non-terminal (mexpr).
    * 
-   * @return a SyntaxNode representing the expression.
+   * @param frame  the expression being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
    * @throws ParseException when parsing fails.
    */
-  private SyntaxNode evalMexpr() throws ParseException {
-    SyntaxNode expr = null;
-    SyntaxNode rterm = null;
-    TokenType op;
-
-    expr = getGoodParse(evalTerm());
-
-    op = getCurrToken().getType(); // This should be an operator.
-    while (checkMatch(TokenType.ADD) || checkMatch(TokenType.SUB) || checkMatch(TokenType.CONCAT)) {
-      rterm = getGoodParse(evalTerm());
-      expr = new BinOpNode(expr, op, rterm, getCurrLine());
-      op = getCurrToken().getType(); // Save off the next operator(?).
-    }
+  private Frame evalMexpr(Frame frame, SyntaxNode result)
+      throws ParseException {
+    if (frame.state == 0)
+      return frame.call(Rule.TERM, 1);
+
+    if (frame.state == 1)
+      frame.node = getGoodParse(result);
+    else
+      frame.node = new BinOpNode(frame.node, frame.op, getGoodParse(result),
+          getCurrLine());
+
+    frame.op = getCurrToken().getType(); // This should be an operator.
+    if (checkMatch(TokenType.ADD) || checkMatch(TokenType.SUB)
+        || checkMatch(TokenType.CONCAT))
+      return frame.call(Rule.TERM, 2);
 
-    return expr;
+    return frame.done(frame.node);
   }
 
   /**
-   * Method to evaluate the term nonterminal.
+   * Steps the term nonterminal.
    * 
-   * @return the subtree representing the expression.
+   * @param frame  the term being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
    * @throws ParseException when the parsing fails.
    */
-  private SyntaxNode evalTerm() throws ParseException {
-    SyntaxNode rfact;
-    TokenType op;
-    SyntaxNode term;
-
-    trace("Enter <term>");
+  private Frame evalTerm(Frame frame, SyntaxNode result)
+      throws ParseException {
+    switch (frame.state) {
+      case 0:
+        trace("Enter <term>");
+
+        // Handle unary not.
+        if (checkMatch(TokenType.NOT))
+          return frame.call(Rule.REXPR, 1);
+        return frame.call(Rule.FACTOR, 2);
+
+      case 1:
+        return frame.done(new UnaryOpNode(getGoodParse(result), TokenType.NOT,
+            getCurrLine()));
+
+      case 2:
+        frame.node = getGoodParse(result);
+        break;
 
-    // Handle unary not.
-    if (checkMatch(TokenType.NOT)) {
-      SyntaxNode expr = getGoodParse(evalRexpr());
-      return new UnaryOpNode(expr, TokenType.NOT,
-          getCurrLine());
+      default:
+        frame.node = new BinOpNode(frame.node, frame.op, getGoodParse(result),
+            getCurrLine());
     }
 
-    term = getGoodParse(evalFactor());
-
     // Handle the higher level binary operations.
-    op = getCurrToken().getType(); // Save off what we think is an operation
-    while (checkMatch(TokenType.MULT) || checkMatch(TokenType.DIV)
-        || checkMatch(TokenType.MOD)) {
-      rfact = getGoodParse(evalFactor());
-      term = new BinOpNode(term, op, rfact, getCurrLine());
-      op = getCurrToken().getType();
-    }
+    frame.op = getCurrToken().getType(); // Save off what we think is an operation
+    if (checkMatch(TokenType.MULT) || checkMatch(TokenType.DIV)
+        || checkMatch(TokenType.MOD))
+      return frame.call(Rule.FACTOR, 3);
     trace("Exit <term>");
-    return term;
+    return frame.done(frame.node);
   }
 
   /**
-     * Method to evaluate the factor non-terminal (the tightest binding operations). 
-     * @return the subtree resulting from the parse.
-     * @throws ParseException when parsing fails.
-     */
-    private SyntaxNode evalFactor() throws ParseException {
-        trace("Enter <factor>");
-        SyntaxNode fact = null;
-
-        // Do we have a unary sub (i.e., a negative).
-        if (checkMatch(TokenType.SUB))
-        {
-            SyntaxNode expr = getGoodParse(evalFactor());
-            return new UnaryOpNode(expr, TokenType.SUB, getCurrLine());
-        }
-
-    
-        // Parenthsized expression.
-        else if (checkMatch(TokenType.LPAREN)) { 
-            
-            fact = getGoodParse(evalExpr());
-            
-            // Force the right paren.
-            match(TokenType.RPAREN, ")");        
-        } 
-        
-        // Handle the literals.
-        else if (tokenIs(TokenType.INT) || tokenIs(TokenType.REAL) ||
-                   tokenIs(TokenType.TRUE) || tokenIs(TokenType.FALSE)) {
-                fact = new TokenNode(getCurrToken(), getCurrLine());
-                nextToken();        // advance the token stream.
-                return fact;
-        }
-
-        // Hand an identifer.
-        else if (tokenIs(TokenType.ID)) {
-            Token ident = getCurrToken(); // Store off the next token.
-            nextToken();    // advance the token stream.
-
-            // Just a run of the mill token.
-            fact = new TokenNode(ident, getCurrLine());
-
-        }
-
-        else if (checkMatch(TokenType.HD)) {
-          match(TokenType.LPAREN, "(");
-          SyntaxNode expr = getGoodParse(evalExpr());
-          match(TokenType.RPAREN, ")");
-          fact = new HeadNode(expr, getCurrLine());
-        }
-
-        else if (checkMatch(TokenType.TL)) {
-          match(TokenType.LPAREN, "(");
-          SyntaxNode expr = getGoodParse(evalExpr());
-          match(TokenType.RPAREN, ")");
-          fact = new TailNode(expr, getCurrLine());
-        }
-
-        else if (checkMatch(TokenType.LEN)) {
-          match(TokenType.LPAREN, "(");
-          SyntaxNode expr = getGoodParse(evalExpr());
-          match(TokenType.RPAREN, ")");
-          fact = new LenNode(expr, getCurrLine());
-        }
-
-        else if (tokenIs(TokenType.LBRACKET)) {
-            fact = getGoodParse(evalList());
-        }
-            
+   * Steps the factor non-terminal (the tightest binding operations).
+   * 
+   * @param frame  the factor being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
+   * @throws ParseException when parsing fails.
+   */
+  private Frame evalFactor(Frame frame, SyntaxNode result)
+      throws ParseException {
+    switch (frame.state) {
+      case 1: // The operand of a unary sub.
+        return frame.done(new UnaryOpNode(getGoodParse(result), TokenType.SUB,
+            getCurrLine()));
+
+      case 2: // A parenthesized expression.
+        frame.node = getGoodParse(result);
+
+        // Force the right paren.
+        match(TokenType.RPAREN, ")");
+        trace("Exit <factor>");
+        return frame.done(frame.node);
+
+      case 3: // A list or a call of a built-in function.
+        frame.node = getGoodParse(result);
         trace("Exit <factor>");
-        return fact;
+        return frame.done(frame.node);
+
+      case 4: // The operand of hd, tl, or len.
+        SyntaxNode expr = getGoodParse(result);
+        match(TokenType.RPAREN, ")");
+        if (frame.op == TokenType.HD)
+          frame.node = new HeadNode(expr, getCurrLine());
+        else if (frame.op == TokenType.TL)
+          frame.node = new TailNode(expr, getCurrLine());
+        else
+          frame.node = new LenNode(expr, getCurrLine());
+        trace("Exit <factor>");
+        return frame.done(frame.node);
+
+      default:
+        break;
     }
 
-    private SyntaxNode evalList() throws ParseException {
-      trace("Enter <lexpr>");
-      LinkedList<SyntaxNode> elements = new LinkedList<>();
+    trace("Enter <factor>");
 
-      match(TokenType.LBRACKET, "["); 
+    // Do we have a unary sub (i.e., a negative).
+    if (checkMatch(TokenType.SUB))
+      return frame.call(Rule.FACTOR, 1);
 
-      // Check if the list is not empty
-      if (!tokenIs(TokenType.RBRACKET)) {
-          elements.add(getGoodParse(evalExpr())); 
+    // Parenthsized expression.
+    if (checkMatch(TokenType.LPAREN))
+      return frame.call(Rule.EXPR, 2);
 
-          while (checkMatch(TokenType.COMMA)) {
-              elements.add(getGoodParse(evalExpr()));
-          }
+    // Handle the literals.
+    if (tokenIs(TokenType.INT) || tokenIs(TokenType.REAL) ||
+        tokenIs(TokenType.TRUE) || tokenIs(TokenType.FALSE)) {
+      frame.node = new TokenNode(getCurrToken(), getCurrLine());
+      nextToken(); // advance the token stream.
+      return frame.done(frame.node);
+    }
+
+    // Hand an identifer.
+    if (tokenIs(TokenType.ID)) {
+      Token ident = getCurrToken(); // Store off the next token.
+      nextToken(); // advance the token stream.
+
+      // The name of a built-in function followed by its arguments.
+      TokenType op = BuiltinNode.named(ident.getValue());
+      if (op != null && tokenIs(TokenType.LPAREN)) {
+        Frame call = frame.call(Rule.BUILTIN, 3);
+        call.op = op;
+        return call;
       }
 
-      match(TokenType.RBRACKET, "]"); 
+      // Just a run of the mill token.
+      frame.node = new TokenNode(ident, getCurrLine());
+    }
+
+    else if (tokenIs(TokenType.HD) || tokenIs(TokenType.TL)
+        || tokenIs(TokenType.LEN)) {
+      frame.op = getCurrToken().getType();
+      nextToken();
+      match(TokenType.LPAREN, "(");
+      return frame.call(Rule.EXPR, 4);
+    }
+
+    else if (tokenIs(TokenType.LBRACKET))
+      return frame.call(Rule.LIST, 3);
+
+    trace("Exit <factor>");
+    return frame.done(frame.node);
+  }
+
+  /**
+   * Steps the list expression non-terminal <lexpr>, which is either a list
+   * of elements or a range.
+   * 
+   * @param frame  the list being parsed.
+   * @param result the subtree of the non-terminal the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
+   * @throws ParseException when parsing fails.
+   */
+  private Frame evalList(Frame frame, SyntaxNode result)
+      throws ParseException {
+    switch (frame.state) {
+      case 0:
+        trace("Enter <lexpr>");
+        frame.nodes = new LinkedList<>();
+
+        match(TokenType.LBRACKET, "[");
+
+        // Check if the list is not empty
+        if (!tokenIs(TokenType.RBRACKET))
+          return frame.call(Rule.EXPR, 1);
+        break;
+
+      case 1: // An element of the list.
+        frame.nodes.add(getGoodParse(result));
+        if (checkMatch(TokenType.COMMA))
+          return frame.call(Rule.EXPR, 1);
+        break;
+
+      default: // The last element of a range.
+        SyntaxNode last = getGoodParse(result);
+        match(TokenType.RBRACKET, "]");
+
+        trace("Exit <lexpr>");
+        return frame.done(new RangeNode(frame.nodes.getFirst(),
+            frame.nodes.size() == 2 ? frame.nodes.getLast() : null, last,
+            getCurrLine()));
+    }
+
+    // A range gives its first one or two elements before the ..
+    if (!frame.nodes.isEmpty() && frame.nodes.size() <= 2
+        && checkMatch(TokenType.DOTDOT))
+      return frame.call(Rule.EXPR, 2);
+
+    match(TokenType.RBRACKET, "]");
 
-      trace("Exit <lexpr>");
-      return new ListNode(elements, getCurrLine());
+    trace("Exit <lexpr>");
+    return frame.done(new ListNode(frame.nodes, getCurrLine()));
   }
 
   /***********
@@ -390,29 +541,120 @@ public class MFLParser extends Parser {
   }
 
   /**
-     * This method handles a let expression <id> := <expr> in <expr>
-     * @return a let node.
-     * @throws ParseException 
-     */
-    private SyntaxNode handleLet() throws ParseException {
-        Token var = getCurrToken();
-        SyntaxNode varExpr;
-        SyntaxNode expr;
+   * This method handles a call of a built-in function once its name has
+   * been seen. ( <expr> { , <expr> } )
+   * 
+   * @param frame  the call being parsed; its operation is the built-in
+   *               function.
+   * @param result the argument the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
+   * @throws ParseException when the arguments are not valid.
+   */
+  private Frame handleBuiltin(Frame frame, SyntaxNode result)
+      throws ParseException {
+    if (frame.state == 0) {
+      frame.nodes = new LinkedList<>();
+      match(TokenType.LPAREN, "(");
+      return frame.call(Rule.EXPR, 1);
+    }
+
+    frame.nodes.add(getGoodParse(result));
+    if (frame.nodes.size() < BuiltinNode.arity(frame.op)) {
+      match(TokenType.COMMA, ",");
+      return frame.call(Rule.EXPR, 1);
+    }
+    match(TokenType.RPAREN, ")");
+    return frame.done(new BuiltinNode(frame.op, frame.nodes, getCurrLine()));
+  }
 
+  /**
+   * This method handles a let expression <id> := <expr> in <expr>
+   * 
+   * @param frame  the let expression being parsed.
+   * @param result the subtree of the expression the frame was waiting on.
+   * @return the non-terminal to parse next, or {@code null} when done.
+   * @throws ParseException when this is not a valid let expression.
+   */
+  private Frame handleLet(Frame frame, SyntaxNode result)
+      throws ParseException {
+    switch (frame.state) {
+      case 0:
+        frame.token = getCurrToken();
         trace("enter handleLet");
 
         // Handle the identifier.
         match(TokenType.ID, "identifier");
-        
+
         // Handle the assignemnt.
         match(TokenType.ASSIGN, ":=");
-        varExpr = getGoodParse(evalExpr());
+        return frame.call(Rule.EXPR, 1);
+
+      case 1:
+        frame.node = getGoodParse(result);
 
         // Handle the in expr.
         match(TokenType.IN, "in");
-        expr = getGoodParse(evalExpr());
+        return frame.call(Rule.EXPR, 2);
+
+      default:
+        return frame.done(new LetNode(frame.token, frame.node,
+            getGoodParse(result), getCurrLine()));
+    }
+  }
+
+  /**
+   * The non-terminals of expressions.
+   */
+  private enum Rule {
+    EXPR, BEXPR, REXPR, MEXPR, TERM, FACTOR, LIST, LET, BUILTIN
+  }
+
+  /**
+   * A non-terminal on the parser's stack. A frame records where to resume
+   * the non-terminal once the non-terminal it is waiting on is parsed, along
+   * with what it has parsed so far.
+   */
+  private static final class Frame {
+    private final Rule rule; // The non-terminal being parsed.
+    private int state; // Where to resume the non-terminal.
+    private SyntaxNode node; // The subtree parsed so far.
+    private TokenType op; // The pending operation.
+    private Token token; // The identifier bound by a let.
+    private LinkedList<SyntaxNode> nodes; // The elements or arguments.
+    private SyntaxNode result; // The subtree once the non-terminal is parsed.
+
+    /**
+     * Constructs a frame that starts parsing the non-terminal {@code rule}.
+     * 
+     * @param rule the non-terminal to parse.
+     */
+    private Frame(Rule rule) {
+      this.rule = rule;
+    }
 
-        return new LetNode(var, varExpr, expr, getCurrLine());
+    /**
+     * Waits on the non-terminal {@code rule}, resuming in state
+     * {@code resume} once it is parsed.
+     * 
+     * @param rule   the non-terminal to parse.
+     * @param resume the state to resume in.
+     * @return the frame of the non-terminal to parse.
+     */
+    private Frame call(Rule rule, int resume) {
+      state = resume;
+      return new Frame(rule);
+    }
+
+    /**
+     * Finishes the non-terminal with the subtree {@code node}.
+     * 
+     * @param node the subtree for the non-terminal.
+     * @return {@code null}, as there is nothing further to parse.
+     */
+    private Frame done(SyntaxNode node) {
+      result = node;
+      return null;
     }
+  }
 
 }
@@ -0,0 +1,128 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package vm;
+
+/**
+ * A compiled MFL program. The instructions are stored in a dense code array
+ * alongside a line table (one entry per code word) used for error reporting
+ * and a pool of reference constants.
+ */
+public class CodeBlock
+{
+    private int[] code;          // The instructions and their operands.
+    private long[] lines;        // The source line of each code word.
+    private Object[] constants;  // The reference constants.
+    private int maxStack;        // The deepest the operand stack gets.
+    private int slotCount;       // The number of let slots needed.
+
+    /**
+     * Constructs a new code block.
+     * 
+     * @param code      the instructions and their operands.
+     * @param lines     the source line associated with each code word.
+     * @param constants the constant pool.
+     * @param maxStack  the maximum depth of the operand stack.
+     * @param slotCount the number of slots used by let bindings.
+     */
+    public CodeBlock(int[] code, long[] lines, Object[] constants,
+            int maxStack, int slotCount)
+    {
+        this.code = code;
+        this.lines = lines;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Gets the code array.
+     * 
+     * @return the instructions and their operands.
+     */
+    public int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Gets the source line of the code word at {@code pc}.
+     * 
+     * @param pc the index into the code array.
+     * @return the line number.
+     */
+    public long getLine(int pc)
+    {
+        return lines[pc];
+    }
+
+    /**
+     * Gets the constant pool.
+     * 
+     * @return the constant pool.
+     */
+    public Object[] getConstants()
+    {
+        return constants;
+    }
+
+    /**
+     * Gets the maximum depth of the operand stack.
+     * 
+     * @return the maximum stack depth.
+     */
+    public int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * Gets the number of slots needed for let bindings.
+     * 
+     * @return the slot count.
+     */
+    public int getSlotCount()
+    {
+        return slotCount;
+    }
+
+    /**
+     * Disassembles the code block.
+     * 
+     * @return a human readable listing of the instructions.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        int pc = 0;
+
+        while (pc < code.length)
+        {
+            int op = code[pc];
+            sb.append(String.format("%4d: %s", pc, OpCode.getName(op)));
+            for (int i = 1; i <= OpCode.getOperandCount(op); i++)
+                sb.append(" ").append(code[pc + i]);
+            if (op == OpCode.PUSH_CONST || op == OpCode.LIST_ACCESS)
+                sb.append(" (").append(constants[code[pc + 1]]).append(")");
+            else if (op == OpCode.LOAD_GLOBAL || op == OpCode.DEFINE_GLOBAL)
+                sb.append(" (").append(constants[code[pc + 2]]).append(")");
+            sb.append("\n");
+            pc += 1 + OpCode.getOperandCount(op);
+        }
+        return sb.toString();
+    }
+}
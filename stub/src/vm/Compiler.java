@@ -0,0 +1,881 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package vm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.Resolver;
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LenNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.RangeNode;
+import ast.nodes.RelOpNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.nodes.UnaryOpNode;
+import ast.nodes.ValNode;
+import ast.typesystem.types.BoolType;
+import ast.typesystem.types.IntType;
+import ast.typesystem.types.ListType;
+import ast.typesystem.types.RealType;
+import ast.typesystem.types.Type;
+import ast.typesystem.types.VarType;
+import environment.Environment;
+import lexer.Token;
+import lexer.TokenType;
+
+/**
+ * Compiles a syntax tree into a {@link CodeBlock} for the virtual machine.
+ * The compiler tracks the static type of every expression it compiles so
+ * that arithmetic and comparisons are emitted as typed instructions over
+ * unboxed values. Long operator chains, chains of list operations, and
+ * nested lets are compiled iteratively so deep trees do not exhaust the
+ * Java stack.
+ */
+public class Compiler
+{
+    // A placeholder for types that can not be determined statically.
+    private static final Type UNKNOWN = new VarType(-1);
+
+    private Environment env;                 // The environment to run under.
+    private int[] code;                      // The code being generated.
+    private long[] lines;                    // The line of each code word.
+    private int size;                        // The number of code words.
+    private ArrayList<Object> constants;     // The constant pool.
+    private int depth;                       // The current stack depth.
+    private int maxStack;                    // The deepest the stack gets.
+    private Type[] slotTypes;                // The type of each let slot.
+    private HashMap<Integer, Type> globals;  // Globals defined so far.
+
+    /**
+     * Constructs a new compiler for code that will run under {@code env}.
+     * The environment is used to determine the types of previously defined
+     * global values.
+     * 
+     * @param env the environment the compiled code will run under.
+     */
+    public Compiler(Environment env)
+    {
+        this.env = env;
+        this.code = new int[64];
+        this.lines = new long[64];
+        this.size = 0;
+        this.constants = new ArrayList<>();
+        this.depth = 0;
+        this.maxStack = 0;
+        this.slotTypes = new Type[0];
+        this.globals = new HashMap<>();
+    }
+
+    /**
+     * Compiles the tree rooted at {@code root}. The tree is resolved first
+     * so that variables are addressed by slot.
+     * 
+     * @param root the root of the syntax tree.
+     * @return the compiled code.
+     * @throws CompileException if the tree can not be compiled.
+     */
+    public CodeBlock compile(SyntaxNode root) throws CompileException
+    {
+        if (root == null)
+            throw new CompileException("Empty tree.");
+
+        Resolver resolver = new Resolver(env);
+        resolver.resolve(root);
+        slotTypes = new Type[resolver.getFrameSize()];
+
+        if (root instanceof ProgNode prog)
+        {
+            List<SyntaxNode> exprs = prog.getExprs();
+            for (int i = 0; i < exprs.size(); i++)
+            {
+                Type type = compileExpr(exprs.get(i));
+                if (i < exprs.size() - 1)
+                    emit(prog, OpCode.POP);
+                else
+                    box(prog, type);
+            }
+        }
+        else
+            box(root, compileExpr(root));
+        emit(root, OpCode.HALT);
+
+        int[] finalCode = new int[size];
+        long[] finalLines = new long[size];
+        System.arraycopy(code, 0, finalCode, 0, size);
+        System.arraycopy(lines, 0, finalLines, 0, size);
+        return new CodeBlock(finalCode, finalLines, constants.toArray(),
+                maxStack, slotTypes.length);
+    }
+
+    /**
+     * Compiles an expression leaving its value on the stack. Values of type
+     * int, real, and bool are left unboxed.
+     * 
+     * @param node the expression to compile.
+     * @return the static type of the expression.
+     * @throws CompileException if the expression can not be compiled.
+     */
+    private Type compileExpr(SyntaxNode node) throws CompileException
+    {
+        if (node instanceof BinOpNode bin)
+            return compileBinOp(bin);
+        else if (node instanceof RelOpNode rel)
+            return compileRelOp(rel);
+        else if (isUnary(node))
+            return compileUnary(node);
+        else if (node instanceof TokenNode tok)
+            return compileToken(tok);
+        else if (node instanceof ListNode list)
+            return compileList(list);
+        else if (node instanceof ListAccessNode access)
+            return compileListAccess(access);
+        else if (node instanceof RangeNode range)
+            return compileRange(range);
+        else if (node instanceof BuiltinNode builtin)
+            return compileBuiltin(builtin);
+        else if (node instanceof LetNode let)
+            return compileLet(let);
+        else if (node instanceof ValNode val)
+            return compileVal(val);
+        throw new CompileException("Unsupported node " + node.getClass());
+    }
+
+    /**
+     * Compiles a binary operation. The left spine of the operation is
+     * walked iteratively.
+     * 
+     * @param node the binary operation.
+     * @return the static type of the operation.
+     * @throws CompileException if the operation can not be compiled.
+     */
+    private Type compileBinOp(BinOpNode node) throws CompileException
+    {
+        ArrayDeque<BinOpNode> spine = new ArrayDeque<>();
+        SyntaxNode curr = node;
+
+        while (curr instanceof BinOpNode bin)
+        {
+            spine.push(bin);
+            curr = bin.getLeftTerm();
+        }
+
+        Type ltype = compileExpr(curr);
+        while (!spine.isEmpty())
+        {
+            BinOpNode bin = spine.pop();
+            if (bin.isElementwise())
+            {
+                // The operands of element-wise arithmetic are boxed, as
+                // either may be a scalar.
+                box(bin, ltype);
+                Type rtype = compileExpr(bin.getRightTerm());
+                box(bin.getRightTerm(), rtype);
+                emit(bin, OpCode.ELEMENTWISE, constant(bin));
+                ltype = new ListType(merge(scalarOf(ltype), scalarOf(rtype)));
+            }
+            else
+            {
+                Type rtype = compileExpr(bin.getRightTerm());
+                ltype = emitBinOp(bin, ltype, rtype);
+            }
+        }
+        return ltype;
+    }
+
+    /**
+     * Emits the instruction for a binary operation whose operands are on
+     * the stack.
+     * 
+     * @param node  the binary operation.
+     * @param ltype the type of the left operand.
+     * @param rtype the type of the right operand.
+     * @return the type of the result.
+     * @throws CompileException if the operand types are not supported.
+     */
+    private Type emitBinOp(BinOpNode node, Type ltype, Type rtype)
+            throws CompileException
+    {
+        switch (node.getOp())
+        {
+        case CONCAT:
+            if (!isList(ltype) || !isList(rtype))
+                throw new CompileException("Concatenation of non-lists.");
+            emit(node, OpCode.CONCAT);
+            return new ListType(merge(elementOf(ltype), elementOf(rtype)));
+        case AND:
+        case OR:
+            if (!(ltype instanceof BoolType) || !(rtype instanceof BoolType))
+                throw new CompileException("Logical operation on non-bools.");
+            emit(node, node.getOp() == TokenType.AND ? OpCode.AND
+                    : OpCode.OR);
+            return ltype;
+        default:
+            break;
+        }
+
+        if (ltype instanceof IntType && rtype instanceof IntType)
+        {
+            switch (node.getOp())
+            {
+            case ADD:
+                emit(node, OpCode.IADD);
+                return ltype;
+            case SUB:
+                emit(node, OpCode.ISUB);
+                return ltype;
+            case MULT:
+                emit(node, OpCode.IMUL);
+                return ltype;
+            case DIV:
+                emit(node, OpCode.IDIV);
+                return ltype;
+            case MOD:
+                emit(node, OpCode.IMOD);
+                return ltype;
+            default:
+                break;
+            }
+        }
+        else if (ltype instanceof RealType && rtype instanceof RealType)
+        {
+            switch (node.getOp())
+            {
+            case ADD:
+                emit(node, OpCode.DADD);
+                return ltype;
+            case SUB:
+                emit(node, OpCode.DSUB);
+                return ltype;
+            case MULT:
+                emit(node, OpCode.DMUL);
+                return ltype;
+            case DIV:
+                emit(node, OpCode.DDIV);
+                return ltype;
+            default:
+                break;
+            }
+        }
+        throw new CompileException("Unsupported operands for " + node.getOp());
+    }
+
+    /**
+     * Compiles a relational operation.
+     * 
+     * @param node the relational operation.
+     * @return the static type of the operation.
+     * @throws CompileException if the operand types are not supported.
+     */
+    private Type compileRelOp(RelOpNode node) throws CompileException
+    {
+        Type ltype = compileExpr(node.getLeftExpr());
+        Type rtype = compileExpr(node.getRightExpr());
+        int cond;
+
+        switch (node.getOp())
+        {
+        case LT:
+            cond = OpCode.CMP_LT;
+            break;
+        case LTE:
+            cond = OpCode.CMP_LTE;
+            break;
+        case GT:
+            cond = OpCode.CMP_GT;
+            break;
+        case GTE:
+            cond = OpCode.CMP_GTE;
+            break;
+        case EQ:
+            cond = OpCode.CMP_EQ;
+            break;
+        case NEQ:
+            cond = OpCode.CMP_NEQ;
+            break;
+        default:
+            throw new CompileException("Unknown relational operator.");
+        }
+
+        if (ltype instanceof IntType && rtype instanceof IntType)
+            emit(node, OpCode.ICMP, cond);
+        else if (ltype instanceof RealType && rtype instanceof RealType)
+            emit(node, OpCode.DCMP, cond);
+        else
+            throw new CompileException("Unsupported relational operands.");
+        return new BoolType();
+    }
+
+    /**
+     * Compiles a chain of unary operations (hd, tl, len, not, and negation)
+     * iteratively.
+     * 
+     * @param node the outermost operation of the chain.
+     * @return the static type of the chain.
+     * @throws CompileException if the chain can not be compiled.
+     */
+    private Type compileUnary(SyntaxNode node) throws CompileException
+    {
+        ArrayDeque<SyntaxNode> chain = new ArrayDeque<>();
+        SyntaxNode curr = node;
+
+        while (isUnary(curr))
+        {
+            chain.push(curr);
+            curr = operandOf(curr);
+        }
+
+        Type type = compileExpr(curr);
+        while (!chain.isEmpty())
+        {
+            curr = chain.pop();
+            if (curr instanceof HeadNode)
+            {
+                if (!isList(type))
+                    throw new CompileException("Head of a non-list.");
+                emit(curr, OpCode.HD);
+                type = elementOf(type);
+                unbox(curr, type);
+            }
+            else if (curr instanceof TailNode)
+            {
+                if (!isList(type))
+                    throw new CompileException("Tail of a non-list.");
+                emit(curr, OpCode.TL);
+                type = new ListType(elementOf(type));
+            }
+            else if (curr instanceof LenNode)
+            {
+                if (!isList(type))
+                    throw new CompileException("Length of a non-list.");
+                emit(curr, OpCode.LEN);
+                type = new IntType();
+            }
+            else
+            {
+                UnaryOpNode unary = (UnaryOpNode) curr;
+                if (unary.getOp() == TokenType.NOT
+                        && type instanceof BoolType)
+                    emit(curr, OpCode.NOT);
+                else if (unary.getOp() == TokenType.SUB
+                        && type instanceof IntType)
+                    emit(curr, OpCode.INEG);
+                else if (unary.getOp() == TokenType.SUB
+                        && type instanceof RealType)
+                    emit(curr, OpCode.DNEG);
+                else
+                    throw new CompileException("Unsupported unary operand.");
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Compiles a literal or identifier.
+     * 
+     * @param node the token node.
+     * @return the static type of the token.
+     * @throws CompileException if the token can not be compiled.
+     */
+    private Type compileToken(TokenNode node) throws CompileException
+    {
+        Token tok = node.getToken();
+
+        try
+        {
+            switch (tok.getType())
+            {
+            case INT:
+                emit(node, OpCode.PUSH_INT, Integer.parseInt(tok.getValue()));
+                return new IntType();
+            case REAL:
+                long bits = Double.doubleToRawLongBits(
+                        Double.parseDouble(tok.getValue()));
+                emit(node, OpCode.PUSH_REAL, (int) (bits >>> 32), (int) bits);
+                return new RealType();
+            case TRUE:
+                emit(node, OpCode.PUSH_BOOL, 1);
+                return new BoolType();
+            case FALSE:
+                emit(node, OpCode.PUSH_BOOL, 0);
+                return new BoolType();
+            case ID:
+                if (!node.isGlobal())
+                {
+                    emit(node, OpCode.LOAD_SLOT, node.getSlot());
+                    return slotTypes[node.getSlot()];
+                }
+
+                Type type = globals.get(node.getSlot());
+                if (type == null)
+                    type = typeOfValue(env.getGlobal(node.getSlot()));
+                emit(node, OpCode.LOAD_GLOBAL, node.getSlot(), constant(tok));
+                unbox(node, type);
+                return type;
+            default:
+                throw new CompileException("Unsupported token " + tok);
+            }
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new CompileException("Bad literal " + tok.getValue());
+        }
+    }
+
+    /**
+     * Compiles a list literal. A list of literals is built once, as it is
+     * compiled, and pushed from the constant pool.
+     * 
+     * @param node the list node.
+     * @return the static type of the list.
+     * @throws CompileException if the elements can not be compiled.
+     */
+    private Type compileList(ListNode node) throws CompileException
+    {
+        Type elemType = UNKNOWN;
+
+        if (node.isLiteral())
+        {
+            try
+            {
+                emit(node, OpCode.PUSH_CONST, constant(node.evaluate(env)));
+            }
+            catch (EvaluationException ex)
+            {
+                throw new CompileException("Bad list literal.");
+            }
+            return literalType(node);
+        }
+
+        for (SyntaxNode elem : node.getExprs())
+        {
+            Type type = compileExpr(elem);
+            box(elem, type);
+            elemType = merge(elemType, type);
+        }
+        emit(node, OpCode.MAKE_LIST, node.getExprs().size());
+        return new ListType(elemType);
+    }
+
+    /**
+     * Compiles a range, whose bounds are left unboxed.
+     * 
+     * @param node the range node.
+     * @return the static type of the range.
+     * @throws CompileException if the bounds are not ints.
+     */
+    private Type compileRange(RangeNode node) throws CompileException
+    {
+        for (SyntaxNode bound : node.getChildren())
+            if (!(compileExpr(bound) instanceof IntType))
+                throw new CompileException("Range of non-ints.");
+        emit(node, OpCode.MAKE_RANGE, node.getChildren().size());
+        return new ListType(new IntType());
+    }
+
+    /**
+     * Compiles a call of a built-in function. The arguments are boxed and
+     * the result is unboxed if its type is known.
+     * 
+     * @param node the built-in node.
+     * @return the static type of the call.
+     * @throws CompileException if the first argument is not a list.
+     */
+    private Type compileBuiltin(BuiltinNode node) throws CompileException
+    {
+        List<SyntaxNode> args = node.getChildren();
+        Type listType = compileExpr(args.get(0));
+        if (!isList(listType))
+            throw new CompileException("Built-in call on a non-list.");
+        for (int i = 1; i < args.size(); i++)
+            box(args.get(i), compileExpr(args.get(i)));
+        emit(node, OpCode.BUILTIN, constant(node), args.size());
+
+        Type type;
+        switch (node.getOp())
+        {
+        case COUNT:
+        case INDEXOF:
+            type = new IntType();
+            break;
+        case SORT:
+        case SORTDESC:
+        case DISTINCT:
+            type = listType;
+            break;
+        case AVG:
+            type = new RealType();
+            break;
+        default:
+            type = elementOf(listType);
+        }
+        unbox(node, type);
+        return type;
+    }
+
+    /**
+     * Determines the static type of a literal.
+     * 
+     * @param node the literal.
+     * @return the type of the literal.
+     * @throws CompileException if the elements of a list differ in type.
+     */
+    private Type literalType(SyntaxNode node) throws CompileException
+    {
+        if (!(node instanceof ListNode list))
+        {
+            switch (((TokenNode) node).getToken().getType())
+            {
+            case INT:
+                return new IntType();
+            case REAL:
+                return new RealType();
+            default:
+                return new BoolType();
+            }
+        }
+
+        Type elemType = UNKNOWN;
+        for (SyntaxNode elem : list.getExprs())
+            elemType = merge(elemType, literalType(elem));
+        return new ListType(elemType);
+    }
+
+    /**
+     * Compiles a fused chain of list operations.
+     * 
+     * @param node the list access node.
+     * @return the static type of the result of the chain.
+     * @throws CompileException if the segments can not be compiled.
+     */
+    private Type compileListAccess(ListAccessNode node) throws CompileException
+    {
+        Type elemType = UNKNOWN;
+
+        for (SyntaxNode segment : node.getSegments())
+        {
+            Type type = compileExpr(segment);
+            if (!isList(type))
+                throw new CompileException("List access of a non-list.");
+            elemType = merge(elemType, elementOf(type));
+        }
+        emit(node, OpCode.LIST_ACCESS, constant(node.getAccess()),
+                node.getSegments().size());
+
+        switch (node.getAccess().getOp())
+        {
+        case HD:
+            unbox(node, elemType);
+            return elemType;
+        case LEN:
+            unbox(node, new IntType());
+            return new IntType();
+        default:
+            return new ListType(elemType);
+        }
+    }
+
+    /**
+     * Compiles a let expression. Lets nested in the body position are
+     * compiled iteratively.
+     * 
+     * @param node the let node.
+     * @return the static type of the let body.
+     * @throws CompileException if the let can not be compiled.
+     */
+    private Type compileLet(LetNode node) throws CompileException
+    {
+        ArrayDeque<LetNode> entered = new ArrayDeque<>();
+        SyntaxNode curr = node;
+
+        while (curr instanceof LetNode let)
+        {
+            slotTypes[let.getSlot()] = compileExpr(let.getVarExpr());
+            emit(let, OpCode.LET_ENTER, let.getSlot());
+            entered.push(let);
+            curr = let.getExpr();
+        }
+
+        Type type = compileExpr(curr);
+        while (!entered.isEmpty())
+            emit(node, OpCode.LET_EXIT, entered.pop().getSlot());
+        return type;
+    }
+
+    /**
+     * Compiles a global value definition.
+     * 
+     * @param node the value node.
+     * @return the static type of the definition's result.
+     * @throws CompileException if the value can not be compiled.
+     */
+    private Type compileVal(ValNode node) throws CompileException
+    {
+        Type type = compileExpr(node.getExpr());
+        box(node, type);
+        emit(node, OpCode.DEFINE_GLOBAL, node.getSlot(),
+                constant(node.getName()));
+        globals.put(node.getSlot(), type);
+        return UNKNOWN;
+    }
+
+    /**
+     * Emits the instruction that boxes a value of type {@code type}, if it
+     * is unboxed.
+     * 
+     * @param node the node the instruction is associated with.
+     * @param type the type of the value on top of the stack.
+     */
+    private void box(SyntaxNode node, Type type)
+    {
+        if (type instanceof IntType)
+            emit(node, OpCode.BOX_INT);
+        else if (type instanceof RealType)
+            emit(node, OpCode.BOX_REAL);
+        else if (type instanceof BoolType)
+            emit(node, OpCode.BOX_BOOL);
+    }
+
+    /**
+     * Emits the instruction that unboxes a value of type {@code type}, if
+     * values of that type are kept unboxed.
+     * 
+     * @param node the node the instruction is associated with.
+     * @param type the type of the value on top of the stack.
+     */
+    private void unbox(SyntaxNode node, Type type)
+    {
+        if (type instanceof IntType)
+            emit(node, OpCode.UNBOX_INT);
+        else if (type instanceof RealType)
+            emit(node, OpCode.UNBOX_REAL);
+        else if (type instanceof BoolType)
+            emit(node, OpCode.UNBOX_BOOL);
+    }
+
+    /**
+     * Appends an instruction to the code array.
+     * 
+     * @param node     the node the instruction is associated with.
+     * @param op       the opcode.
+     * @param operands the operands of the instruction.
+     */
+    private void emit(SyntaxNode node, int op, int... operands)
+    {
+        if (size + operands.length + 1 > code.length)
+        {
+            int newLen = Math.max(code.length * 2, size + operands.length + 1);
+            int[] newCode = new int[newLen];
+            long[] newLines = new long[newLen];
+            System.arraycopy(code, 0, newCode, 0, size);
+            System.arraycopy(lines, 0, newLines, 0, size);
+            code = newCode;
+            lines = newLines;
+        }
+
+        lines[size] = node.getLineNumber();
+        code[size++] = op;
+        for (int operand : operands)
+        {
+            lines[size] = node.getLineNumber();
+            code[size++] = operand;
+        }
+
+        depth += stackEffect(op, operands);
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    /**
+     * Determines how an instruction changes the depth of the stack.
+     * 
+     * @param op       the opcode.
+     * @param operands the operands of the instruction.
+     * @return the change in stack depth.
+     */
+    private int stackEffect(int op, int[] operands)
+    {
+        switch (op)
+        {
+        case OpCode.PUSH_INT:
+        case OpCode.PUSH_REAL:
+        case OpCode.PUSH_BOOL:
+        case OpCode.PUSH_CONST:
+        case OpCode.LOAD_SLOT:
+        case OpCode.LOAD_GLOBAL:
+            return 1;
+        case OpCode.LET_ENTER:
+        case OpCode.IADD:
+        case OpCode.ISUB:
+        case OpCode.IMUL:
+        case OpCode.IDIV:
+        case OpCode.IMOD:
+        case OpCode.DADD:
+        case OpCode.DSUB:
+        case OpCode.DMUL:
+        case OpCode.DDIV:
+        case OpCode.ICMP:
+        case OpCode.DCMP:
+        case OpCode.AND:
+        case OpCode.OR:
+        case OpCode.CONCAT:
+        case OpCode.ELEMENTWISE:
+        case OpCode.POP:
+            return -1;
+        case OpCode.MAKE_LIST:
+            return 1 - operands[0];
+        case OpCode.LIST_ACCESS:
+            return 1 - operands[1];
+        case OpCode.MAKE_RANGE:
+            return 1 - operands[0];
+        case OpCode.BUILTIN:
+            return 1 - operands[1];
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Adds a value to the constant pool.
+     * 
+     * @param value the constant.
+     * @return the index of the constant in the pool.
+     */
+    private int constant(Object value)
+    {
+        int idx = constants.indexOf(value);
+        if (idx >= 0)
+            return idx;
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    /**
+     * Determines if a node is one of the unary operations.
+     * 
+     * @param node the node to check.
+     * @return true if the node is hd, tl, len, or a unary operation.
+     */
+    private boolean isUnary(SyntaxNode node)
+    {
+        return node instanceof HeadNode || node instanceof TailNode
+                || node instanceof LenNode || node instanceof UnaryOpNode;
+    }
+
+    /**
+     * Gets the operand of a unary operation.
+     * 
+     * @param node the unary operation.
+     * @return the operand of the operation.
+     */
+    private SyntaxNode operandOf(SyntaxNode node)
+    {
+        if (node instanceof HeadNode head)
+            return head.getExpr();
+        else if (node instanceof TailNode tail)
+            return tail.getExpr();
+        else if (node instanceof LenNode len)
+            return len.getExpr();
+        return ((UnaryOpNode) node).getExpr();
+    }
+
+    /**
+     * Determines if a value of the given type could be a list.
+     * 
+     * @param type the static type.
+     * @return true if the type is a list type or unknown.
+     */
+    private boolean isList(Type type)
+    {
+        return type instanceof ListType || type == UNKNOWN;
+    }
+
+    /**
+     * Gets the element type of a (possible) list type.
+     * 
+     * @param type the list type.
+     * @return the element type.
+     */
+    private Type elementOf(Type type)
+    {
+        if (type instanceof ListType list)
+            return list.getElementType();
+        return UNKNOWN;
+    }
+
+    /**
+     * Gets the type of the scalars of an operand of element-wise arithmetic.
+     * 
+     * @param type the type of the operand, a list or a scalar.
+     * @return the element type of a list, or the type of a scalar.
+     */
+    private Type scalarOf(Type type)
+    {
+        return type instanceof ListType ? elementOf(type) : type;
+    }
+
+    /**
+     * Merges two static types, where unknown types match anything.
+     * 
+     * @param t1 the first type.
+     * @param t2 the second type.
+     * @return the most specific of the two types.
+     * @throws CompileException if the types are not compatible.
+     */
+    private Type merge(Type t1, Type t2) throws CompileException
+    {
+        if (t1 == UNKNOWN)
+            return t2;
+        if (t2 == UNKNOWN)
+            return t1;
+        if (t1 instanceof ListType l1 && t2 instanceof ListType l2)
+            return new ListType(merge(l1.getElementType(),
+                    l2.getElementType()));
+        if (t1.equals(t2))
+            return t1;
+        throw new CompileException("Mismatched types " + t1 + " and " + t2);
+    }
+
+    /**
+     * Determines the static type of a runtime value.
+     * 
+     * @param value the value.
+     * @return the type of the value.
+     */
+    public static Type typeOfValue(Object value)
+    {
+        if (value instanceof Integer)
+            return new IntType();
+        else if (value instanceof Double)
+            return new RealType();
+        else if (value instanceof Boolean)
+            return new BoolType();
+        else if (value instanceof List<?> list)
+            return new ListType(list.isEmpty() ? UNKNOWN
+                    : typeOfValue(list.get(0)));
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package vm;
+
+/**
+ * The instruction set of the MFL virtual machine. Each instruction is a
+ * single {@code int} in the code array followed by zero or more
+ * {@code int} operands. Values of type int, real, and bool live on the
+ * primitive side of the operand stack, while lists and boxed values live on
+ * the reference side.
+ */
+public final class OpCode
+{
+    /** Push the int operand. */
+    public static final int PUSH_INT = 0;
+
+    /** Push the real whose bits are given by the high and low operands. */
+    public static final int PUSH_REAL = 1;
+
+    /** Push the bool operand (0 or 1). */
+    public static final int PUSH_BOOL = 2;
+
+    /** Push the constant at the given constant pool index. */
+    public static final int PUSH_CONST = 3;
+
+    /** Push the contents of the given slot. */
+    public static final int LOAD_SLOT = 4;
+
+    /**
+     * Push the (boxed) value of the global in the slot operand. The second
+     * operand is the constant holding the name of the global.
+     */
+    public static final int LOAD_GLOBAL = 5;
+
+    /**
+     * Pop a boxed value and define the global in the slot operand. The
+     * second operand is the constant holding the name of the global.
+     */
+    public static final int DEFINE_GLOBAL = 6;
+
+    /** Pop the top of the stack into the given slot, entering its scope. */
+    public static final int LET_ENTER = 7;
+
+    /** Release the given slot, leaving its scope. */
+    public static final int LET_EXIT = 8;
+
+    /** Integer addition. */
+    public static final int IADD = 9;
+
+    /** Integer subtraction. */
+    public static final int ISUB = 10;
+
+    /** Integer multiplication. */
+    public static final int IMUL = 11;
+
+    /** Integer division. */
+    public static final int IDIV = 12;
+
+    /** Integer modulus. */
+    public static final int IMOD = 13;
+
+    /** Integer negation. */
+    public static final int INEG = 14;
+
+    /** Real addition. */
+    public static final int DADD = 15;
+
+    /** Real subtraction. */
+    public static final int DSUB = 16;
+
+    /** Real multiplication. */
+    public static final int DMUL = 17;
+
+    /** Real division. */
+    public static final int DDIV = 18;
+
+    /** Real negation. */
+    public static final int DNEG = 19;
+
+    /** Compare two ints using the relational operator operand. */
+    public static final int ICMP = 20;
+
+    /** Compare two reals using the relational operator operand. */
+    public static final int DCMP = 21;
+
+    /** Boolean and. */
+    public static final int AND = 22;
+
+    /** Boolean or. */
+    public static final int OR = 23;
+
+    /** Boolean not. */
+    public static final int NOT = 24;
+
+    /** Box the int on top of the stack. */
+    public static final int BOX_INT = 25;
+
+    /** Box the real on top of the stack. */
+    public static final int BOX_REAL = 26;
+
+    /** Box the bool on top of the stack. */
+    public static final int BOX_BOOL = 27;
+
+    /** Unbox the int on top of the stack. */
+    public static final int UNBOX_INT = 28;
+
+    /** Unbox the real on top of the stack. */
+    public static final int UNBOX_REAL = 29;
+
+    /** Unbox the bool on top of the stack. */
+    public static final int UNBOX_BOOL = 30;
+
+    /** Replace the list on top of the stack with its head. */
+    public static final int HD = 31;
+
+    /** Replace the list on top of the stack with its tail. */
+    public static final int TL = 32;
+
+    /** Replace the list on top of the stack with its length. */
+    public static final int LEN = 33;
+
+    /** Concatenate the two lists on top of the stack. */
+    public static final int CONCAT = 34;
+
+    /** Pop the operand count of boxed values into a new list. */
+    public static final int MAKE_LIST = 35;
+
+    /** Discard the top of the stack. */
+    public static final int POP = 36;
+
+    /** Stop execution returning the (boxed) top of the stack. */
+    public static final int HALT = 37;
+
+    /**
+     * Pop the lists of a fused chain of list operations and push its
+     * (boxed) result. The first operand is the constant holding the chain
+     * and the second is the number of lists.
+     */
+    public static final int LIST_ACCESS = 38;
+
+    /**
+     * Pop the operand count (2 or 3) of ints giving the first element, the
+     * second element if any, and the bound of a range, and push the range.
+     */
+    public static final int MAKE_RANGE = 39;
+
+    /**
+     * Pop the (boxed) arguments of a built-in function and push its (boxed)
+     * result. The first operand is the constant holding the built-in node
+     * and the second is the number of arguments.
+     */
+    public static final int BUILTIN = 40;
+
+    /**
+     * Pop two (boxed) operands, at least one a list, and push the (boxed)
+     * list of their element-wise arithmetic. The operand is the constant
+     * holding the binary operation node.
+     */
+    public static final int ELEMENTWISE = 41;
+
+    /** The relational operator operand values of ICMP and DCMP. */
+    public static final int CMP_LT = 0;
+    public static final int CMP_LTE = 1;
+    public static final int CMP_GT = 2;
+    public static final int CMP_GTE = 3;
+    public static final int CMP_EQ = 4;
+    public static final int CMP_NEQ = 5;
+
+    // The mnemonics and operand counts, indexed by opcode.
+    private static final String[] NAMES = { "PUSH_INT", "PUSH_REAL",
+            "PUSH_BOOL", "PUSH_CONST", "LOAD_SLOT", "LOAD_GLOBAL",
+            "DEFINE_GLOBAL", "LET_ENTER", "LET_EXIT", "IADD", "ISUB", "IMUL",
+            "IDIV", "IMOD", "INEG", "DADD", "DSUB", "DMUL", "DDIV", "DNEG",
+            "ICMP", "DCMP", "AND", "OR", "NOT", "BOX_INT", "BOX_REAL",
+            "BOX_BOOL", "UNBOX_INT", "UNBOX_REAL", "UNBOX_BOOL", "HD", "TL",
+            "LEN", "CONCAT", "MAKE_LIST", "POP", "HALT", "LIST_ACCESS",
+            "MAKE_RANGE", "BUILTIN", "ELEMENTWISE" };
+    private static final int[] OPERANDS = { 1, 2, 1, 1, 1, 2, 2, 1, 1, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 1, 0, 0, 2, 1, 2, 1 };
+
+    /**
+     * This class only holds constants.
+     */
+    private OpCode() {}
+
+    /**
+     * Gets the mnemonic of an opcode.
+     * 
+     * @param op the opcode.
+     * @return the name of the opcode.
+     */
+    public static String getName(int op)
+    {
+        return NAMES[op];
+    }
+
+    /**
+     * Gets the number of operands that follow an opcode in the code array.
+     * 
+     * @param op the opcode.
+     * @return the number of operands.
+     */
+    public static int getOperandCount(int op)
+    {
+        return OPERANDS[op];
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ast.EvaluationException;
+import ast.ListAccess;
+import ast.Thunk;
+import ast.lists.ListValue;
+import ast.lists.RangeList;
+import ast.nodes.BinOpNode;
+import ast.nodes.BuiltinNode;
+import ast.nodes.SyntaxNode;
+import environment.Environment;
+import lexer.Token;
+
+/**
+ * A stack based virtual machine that runs compiled MFL code. The machine is
+ * a single dispatch loop over the code array, so the depth of the program
+ * does not consume Java stack. The operand stack is split into a primitive
+ * side and a reference side that share one stack pointer; ints, reals
+ * (as raw bits), and bools (as 0 or 1) are kept unboxed on the primitive
+ * side.
+ */
+public class VirtualMachine
+{
+    private Environment env; // The environment globals are defined in.
+
+    /**
+     * Constructs a new virtual machine that runs under {@code env}.
+     * 
+     * @param env the executional environment.
+     */
+    public VirtualMachine(Environment env)
+    {
+        this.env = env;
+    }
+
+    /**
+     * Runs a code block.
+     * 
+     * @param block the code to run.
+     * @return the object representing the result of the evaluation.
+     * @throws EvaluationException if the evaluation fails.
+     */
+    public Object execute(CodeBlock block) throws EvaluationException
+    {
+        int[] code = block.getCode();
+        Object[] constants = block.getConstants();
+        long[] prims = new long[block.getMaxStack() + 1];
+        Object[] refs = new Object[block.getMaxStack() + 1];
+        long[] primSlots = new long[block.getSlotCount()];
+        Object[] refSlots = new Object[block.getSlotCount()];
+        int sp = 0;
+        int pc = 0;
+
+        while (true)
+        {
+            int start = pc;
+            switch (code[pc++])
+            {
+            case OpCode.PUSH_INT:
+                prims[sp++] = code[pc++];
+                break;
+            case OpCode.PUSH_REAL:
+                prims[sp++] = ((long) code[pc] << 32)
+                        | (code[pc + 1] & 0xFFFFFFFFL);
+                pc += 2;
+                break;
+            case OpCode.PUSH_BOOL:
+                prims[sp++] = code[pc++];
+                break;
+            case OpCode.PUSH_CONST:
+                refs[sp++] = constants[code[pc++]];
+                break;
+            case OpCode.LOAD_SLOT:
+                prims[sp] = primSlots[code[pc]];
+                refs[sp++] = refSlots[code[pc++]];
+                break;
+            case OpCode.LOAD_GLOBAL:
+            {
+                Object val = Thunk.force(env.getGlobal(code[pc]));
+                if (val == null)
+                {
+                    Token name = (Token) constants[code[pc + 1]];
+                    logError(block, start,
+                            "undefined value " + name.getValue() + ".");
+                    throw new EvaluationException();
+                }
+                refs[sp++] = val;
+                pc += 2;
+                break;
+            }
+            case OpCode.DEFINE_GLOBAL:
+            {
+                Token name = (Token) constants[code[pc + 1]];
+                if (env.getGlobal(code[pc]) != null)
+                {
+                    logError(block, start,
+                            name.getValue() + " already defined.");
+                    throw new EvaluationException();
+                }
+                env.setGlobal(code[pc], refs[sp - 1]);
+                refs[sp - 1] = name.getValue();
+                pc += 2;
+                break;
+            }
+            case OpCode.LET_ENTER:
+                sp--;
+                primSlots[code[pc]] = prims[sp];
+                refSlots[code[pc++]] = refs[sp];
+                refs[sp] = null;
+                break;
+            case OpCode.LET_EXIT:
+                refSlots[code[pc++]] = null;
+                break;
+            case OpCode.IADD:
+                sp--;
+                prims[sp - 1] = (int) prims[sp - 1] + (int) prims[sp];
+                break;
+            case OpCode.ISUB:
+                sp--;
+                prims[sp - 1] = (int) prims[sp - 1] - (int) prims[sp];
+                break;
+            case OpCode.IMUL:
+                sp--;
+                prims[sp - 1] = (int) prims[sp - 1] * (int) prims[sp];
+                break;
+            case OpCode.IDIV:
+                sp--;
+                prims[sp - 1] = (int) prims[sp - 1] / (int) prims[sp];
+                break;
+            case OpCode.IMOD:
+                sp--;
+                prims[sp - 1] = (int) prims[sp - 1] % (int) prims[sp];
+                break;
+            case OpCode.INEG:
+                prims[sp - 1] = -(int) prims[sp - 1];
+                break;
+            case OpCode.DADD:
+                sp--;
+                prims[sp - 1] = realBits(real(prims[sp - 1]) + real(prims[sp]));
+                break;
+            case OpCode.DSUB:
+                sp--;
+                prims[sp - 1] = realBits(real(prims[sp - 1]) - real(prims[sp]));
+                break;
+            case OpCode.DMUL:
+                sp--;
+                prims[sp - 1] = realBits(real(prims[sp - 1]) * real(prims[sp]));
+                break;
+            case OpCode.DDIV:
+                sp--;
+                prims[sp - 1] = realBits(real(prims[sp - 1]) / real(prims[sp]));
+                break;
+            case OpCode.DNEG:
+                prims[sp - 1] = realBits(-1 * real(prims[sp - 1]));
+                break;
+            case OpCode.ICMP:
+                sp--;
+                prims[sp - 1] = compareInts(code[pc++], (int) prims[sp - 1],
+                        (int) prims[sp]) ? 1 : 0;
+                break;
+            case OpCode.DCMP:
+                sp--;
+                prims[sp - 1] = compareReals(code[pc++], real(prims[sp - 1]),
+                        real(prims[sp])) ? 1 : 0;
+                break;
+            case OpCode.AND:
+                sp--;
+                prims[sp - 1] &= prims[sp];
+                break;
+            case OpCode.OR:
+                sp--;
+                prims[sp - 1] |= prims[sp];
+                break;
+            case OpCode.NOT:
+                prims[sp - 1] ^= 1;
+                break;
+            case OpCode.BOX_INT:
+                refs[sp - 1] = Integer.valueOf((int) prims[sp - 1]);
+                break;
+            case OpCode.BOX_REAL:
+                refs[sp - 1] = Double.valueOf(real(prims[sp - 1]));
+                break;
+            case OpCode.BOX_BOOL:
+                refs[sp - 1] = Boolean.valueOf(prims[sp - 1] != 0);
+                break;
+            case OpCode.UNBOX_INT:
+                prims[sp - 1] = (Integer) refs[sp - 1];
+                refs[sp - 1] = null;
+                break;
+            case OpCode.UNBOX_REAL:
+                prims[sp - 1] = realBits((Double) refs[sp - 1]);
+                refs[sp - 1] = null;
+                break;
+            case OpCode.UNBOX_BOOL:
+                prims[sp - 1] = ((Boolean) refs[sp - 1]) ? 1 : 0;
+                refs[sp - 1] = null;
+                break;
+            case OpCode.HD:
+                refs[sp - 1] = nonEmptyList(refs[sp - 1]).head();
+                break;
+            case OpCode.TL:
+                refs[sp - 1] = nonEmptyList(refs[sp - 1]).tail();
+                break;
+            case OpCode.LEN:
+                if (!(refs[sp - 1] instanceof List<?> list))
+                    throw new EvaluationException();
+                prims[sp - 1] = list.size();
+                refs[sp - 1] = null;
+                break;
+            case OpCode.CONCAT:
+                sp--;
+                refs[sp - 1] = concat(block, start, refs[sp - 1], refs[sp]);
+                refs[sp] = null;
+                break;
+            case OpCode.MAKE_LIST:
+            {
+                int count = code[pc++];
+                ListValue list = ListValue.copyOf(
+                        Arrays.asList(refs).subList(sp - count, sp));
+                for (int i = sp - count; i < sp; i++)
+                    refs[i] = null;
+                sp -= count;
+                refs[sp++] = list;
+                break;
+            }
+            case OpCode.LIST_ACCESS:
+            {
+                ListAccess access = (ListAccess) constants[code[pc++]];
+                int count = code[pc++];
+                List<Object> values = new ArrayList<>(count);
+                for (int i = sp - count; i < sp; i++)
+                {
+                    values.add(refs[i]);
+                    refs[i] = null;
+                }
+                sp -= count;
+                refs[sp++] = access.apply(values);
+                break;
+            }
+            case OpCode.MAKE_RANGE:
+            {
+                int count = code[pc++];
+                int first = (int) prims[sp - count];
+                int last = (int) prims[sp - 1];
+                int step = count == 2 ? 1 : (int) prims[sp - 2] - first;
+                sp -= count;
+                try
+                {
+                    refs[sp++] = RangeList.of(first, step, last);
+                }
+                catch (IllegalArgumentException ex)
+                {
+                    logError(block, start, "Error: " + ex.getMessage());
+                    throw new EvaluationException();
+                }
+                break;
+            }
+            case OpCode.BUILTIN:
+            {
+                BuiltinNode builtin = (BuiltinNode) constants[code[pc++]];
+                int count = code[pc++];
+                List<Object> values = new ArrayList<>(count);
+                for (int i = sp - count; i < sp; i++)
+                {
+                    values.add(refs[i]);
+                    refs[i] = null;
+                }
+                sp -= count;
+                refs[sp++] = builtin.apply(values);
+                break;
+            }
+            case OpCode.ELEMENTWISE:
+            {
+                BinOpNode bin = (BinOpNode) constants[code[pc++]];
+                Object rval = refs[--sp];
+                refs[sp] = null;
+                refs[sp - 1] = bin.apply(refs[sp - 1], rval);
+                break;
+            }
+            case OpCode.POP:
+                refs[--sp] = null;
+                break;
+            case OpCode.HALT:
+                return refs[sp - 1];
+            default:
+                throw new EvaluationException();
+            }
+        }
+    }
+
+    /**
+     * Logs an error to the screen using the line of the instruction at
+     * {@code pc}.
+     * 
+     * @param block the code block being run.
+     * @param pc    the address of the failing instruction.
+     * @param msg   the error message to display.
+     */
+    private void logError(CodeBlock block, int pc, String msg)
+    {
+        System.out.println("Error (line " + block.getLine(pc) + "): " + msg);
+    }
+
+    /**
+     * Converts the raw bits on the stack to a real.
+     * 
+     * @param bits the bits of the real.
+     * @return the real value.
+     */
+    private static double real(long bits)
+    {
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Converts a real into the raw bits kept on the stack.
+     * 
+     * @param val the real value.
+     * @return the bits of the real.
+     */
+    private static long realBits(double val)
+    {
+        return Double.doubleToRawLongBits(val);
+    }
+
+    /**
+     * Compares two ints.
+     * 
+     * @param cond the relational operator.
+     * @param l    the left operand.
+     * @param r    the right operand.
+     * @return the result of the comparison.
+     */
+    private static boolean compareInts(int cond, int l, int r)
+    {
+        switch (cond)
+        {
+        case OpCode.CMP_LT:
+            return l < r;
+        case OpCode.CMP_LTE:
+            return l <= r;
+        case OpCode.CMP_GT:
+            return l > r;
+        case OpCode.CMP_GTE:
+            return l >= r;
+        case OpCode.CMP_EQ:
+            return l == r;
+        default:
+            return l != r;
+        }
+    }
+
+    /**
+     * Compares two reals. Equality has the same meaning as
+     * {@link Double#equals(Object)} to match the tree evaluator.
+     * 
+     * @param cond the relational operator.
+     * @param l    the left operand.
+     * @param r    the right operand.
+     * @return the result of the comparison.
+     */
+    private static boolean compareReals(int cond, double l, double r)
+    {
+        switch (cond)
+        {
+        case OpCode.CMP_LT:
+            return l < r;
+        case OpCode.CMP_LTE:
+            return l <= r;
+        case OpCode.CMP_GT:
+            return l > r;
+        case OpCode.CMP_GTE:
+            return l >= r;
+        case OpCode.CMP_EQ:
+            return Double.doubleToLongBits(l) == Double.doubleToLongBits(r);
+        default:
+            return Double.doubleToLongBits(l) != Double.doubleToLongBits(r);
+        }
+    }
+
+    /**
+     * Checks that a value is a non-empty list.
+     * 
+     * @param value the value to check.
+     * @return the value as a list.
+     * @throws EvaluationException if the value is not a non-empty list.
+     */
+    private static ListValue nonEmptyList(Object value)
+            throws EvaluationException
+    {
+        ListValue list = ListValue.from(value);
+        if (list == null || list.isEmpty())
+            throw new EvaluationException();
+        return list;
+    }
+
+    /**
+     * Concatenates two lists.
+     * 
+     * @param block the code block being run.
+     * @param pc    the address of the concatenation instruction.
+     * @param lval  the left operand.
+     * @param rval  the right operand.
+     * @return the concatenated list.
+     * @throws EvaluationException if the operands are not compatible lists.
+     */
+    private Object concat(CodeBlock block, int pc, Object lval, Object rval)
+            throws EvaluationException
+    {
+        if (!(lval instanceof List<?> leftList)
+                || !(rval instanceof List<?> rightList))
+        {
+            logError(block, pc,
+                    "Error: Concatenation requires two list operands.");
+            throw new EvaluationException();
+        }
+
+        if (!leftList.isEmpty() && !rightList.isEmpty()
+                && !SyntaxNode.kindOf(leftList.get(0))
+                        .equals(SyntaxNode.kindOf(rightList.get(0))))
+        {
+            logError(block, pc,
+                    "Error: Concatenation requires lists of the same element type.");
+            throw new EvaluationException();
+        }
+
+        return ListValue.from(leftList).concat(ListValue.from(rightList));
+    }
+}
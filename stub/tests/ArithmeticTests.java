@@ -16,9 +16,24 @@
  *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import ast.EvaluationMode;
+
+@RunWith(Parameterized.class)
 public class ArithmeticTests extends LangTest
 {
+    /**
+     * Constructs the suite for one of the evaluation modes.
+     * 
+     * @param mode the evaluation mode to use.
+     */
+    public ArithmeticTests(EvaluationMode mode)
+    {
+        super(mode);
+    }
+
     /**
      * Test the functionality of simple all real arithmetic.
      */
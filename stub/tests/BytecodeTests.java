@@ -0,0 +1,120 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import parser.MFLParser;
+import parser.ParseException;
+
+public class BytecodeTests extends LangTest
+{
+    /**
+     * Evaluate the statement on the virtual machine. The statement is type
+     * checked and must compile, so the test fails rather than falling back
+     * to the tree walking evaluator.
+     * 
+     * @param name      the name of the test.
+     * @param statement the statement to evaluate.
+     * @param expected  the expected output of the test.
+     */
+    private void runVMTest(String name, String statement, String expected)
+    {
+        runEvalTest(name, statement, expected, EvaluationMode.BYTECODE);
+    }
+
+    @Test
+    public void compilesToBytecode() throws ParseException
+    {
+        SyntaxTree ast = new MFLParser("let x := 3 in x * 2 + hd([x]);")
+                .parse();
+        assertNotNull(ast.compile());
+    }
+
+    @Test
+    public void arithmetic()
+    {
+        runVMTest("intArith", "3 - 5 + 6 * 2 / 3 mod 3;", "-1");
+        runVMTest("realArith", "5.2 / 0.3 + .4 - 1.0 * 6.0;",
+                "11.733333333333334");
+        runVMTest("negation", "-(3 + 4) * -2 = 14 and -3.5 < 2.0;", "true");
+    }
+
+    @Test
+    public void relational()
+    {
+        runVMTest("intRel", "5 >= 5 and 3 != 4 and not (2 > 3);", "true");
+        runVMTest("realRel", "5.02 != 3.145 and 2.1 <= 2.1;", "true");
+    }
+
+    @Test
+    public void lists()
+    {
+        runVMTest("concat", "[hd([3, 5])] ++ tl([6, 9, 12]);", "[3, 9, 12]");
+        runVMTest("nested", "hd(tl([3, 4, 5])) + len([[1], []]);", "6");
+        runVMTest("empty", "tl([3.0 * 2.0]);", "[]");
+    }
+
+    @Test
+    public void scopes()
+    {
+        runVMTest("shadowScope", "let x := 5 in (let x := 3 in x * 2) + x;",
+                "11");
+        runVMTest("listLet", "let lst := [3.1, 2.0] in hd(tl(lst));", "2.0");
+        runVMTest("multiStatement",
+                "val x := 3 + 5 * 2;\nval y := 4 + x;\nx > y;", "false");
+    }
+
+    @Test
+    public void elementwise()
+    {
+        // The compiler picks element by element arithmetic from the types.
+        runVMTest("listArith", "[1, 2] + [3, 4] * 2;", "[7, 10]");
+        runVMTest("scalarLeft", "10 - [1, 2, 3];", "[9, 8, 7]");
+        runVMTest("realArith", "let v := [1.5, -2.0] in v * v / 2.0;",
+                "[1.125, 2.0]");
+        runVMTest("nestedLets", "let xs := [1..3] in let ys := xs * xs in "
+                + "hd(tl(ys - xs)) + len(ys);", "5");
+    }
+
+    @Test
+    public void longChain()
+    {
+        StringBuilder prog = new StringBuilder("1");
+        for (int i = 0; i < 20000; i++)
+            prog.append(" + 1");
+        prog.append(";");
+        runVMTest("longChain", prog.toString(), "20001");
+    }
+
+    @Test
+    public void replGlobals() throws Exception
+    {
+        SyntaxTree first = new MFLParser("val xs := [1, 2, 3];").parse();
+        first.setEvaluationMode(EvaluationMode.BYTECODE);
+        first.evaluate();
+
+        SyntaxTree second = new MFLParser("hd(xs) + len(xs);").parse();
+        second.setEvaluationMode(EvaluationMode.BYTECODE);
+        second.setEnvironment(first.getEnvironment());
+        assertNotNull("replGlobals", second.compile());
+        assertEquals("replGlobals", "4", second.evaluate().toString());
+    }
+}
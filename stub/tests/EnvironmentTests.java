@@ -0,0 +1,130 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import ast.nodes.TokenNode;
+import ast.typesystem.types.IntType;
+import environment.Environment;
+import environment.PersistentMap;
+import environment.TypeEnvironment;
+import lexer.Token;
+import lexer.TokenType;
+
+public class EnvironmentTests
+{
+    private Token id(String name)
+    {
+        return new Token(TokenType.ID, name);
+    }
+
+    @Test
+    public void copyIsIsolated()
+    {
+        Environment env = new Environment();
+        env.updateEnvironment(id("x"), 1);
+
+        Environment inner = env.copy();
+        inner.updateEnvironment(id("x"), 2);
+        inner.updateEnvironment(id("y"), 3);
+
+        assertEquals(1, env.lookup(id("x")));
+        assertNull(env.lookup(id("y")));
+        assertEquals(2, inner.lookup(id("x")));
+        assertEquals(3, inner.lookup(id("y")));
+    }
+
+    @Test
+    public void unresolvedFollowsBindings() throws Exception
+    {
+        TokenNode x = new TokenNode(id("x"), 1);
+        Environment env = new Environment();
+        env.updateEnvironment(id("x"), 1);
+
+        assertEquals(1, x.evaluate(env));
+        assertEquals(1, x.evaluate(env.copy()));
+
+        Environment inner = env.copy();
+        inner.updateEnvironment(id("x"), 2);
+        assertEquals(2, x.evaluate(inner));
+        assertEquals(1, x.evaluate(env));
+    }
+
+    @Test
+    public void unresolvedFollowsGlobals() throws Exception
+    {
+        TokenNode x = new TokenNode(id("x"), 1);
+        Environment first = new Environment();
+        Environment second = new Environment();
+        first.defineGlobal(id("x"), 1);
+        second.defineGlobal(id("y"), 3);
+        second.defineGlobal(id("x"), 2);
+
+        assertEquals(1, x.evaluate(first));
+        assertEquals(2, x.evaluate(second));
+        assertEquals(1, x.evaluate(first));
+    }
+
+    @Test
+    public void typeCopyIsIsolated()
+    {
+        TypeEnvironment tenv = new TypeEnvironment();
+        TypeEnvironment inner = tenv.copy();
+        inner.updateEnvironment(id("x"), new IntType());
+
+        assertNull(tenv.lookup(id("x")));
+        assertEquals(new IntType(), inner.lookup(id("x")));
+        assertEquals(1, inner.getKnowVariables().size());
+    }
+
+    @Test
+    public void manyBindings()
+    {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        PersistentMap<String, Integer> half = null;
+
+        for (int i = 0; i < 20000; i++)
+        {
+            map = map.assoc("v" + i, i);
+            if (i == 9999)
+                half = map;
+        }
+
+        assertEquals(20000, map.size());
+        assertEquals(10000, half.size());
+        for (int i = 0; i < 20000; i++)
+            assertEquals(Integer.valueOf(i), map.get("v" + i));
+        assertNull(half.get("v10000"));
+    }
+
+    @Test
+    public void hashCollisions()
+    {
+        // "Aa" and "BB" have the same hash code.
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty()
+                .assoc("Aa", 1).assoc("BB", 2).assoc("C#", 3);
+
+        assertEquals(3, map.size());
+        assertEquals(Integer.valueOf(1), map.get("Aa"));
+        assertEquals(Integer.valueOf(2), map.get("BB"));
+        assertEquals(Integer.valueOf(3), map.get("C#"));
+        assertEquals(Integer.valueOf(4), map.assoc("BB", 4).get("BB"));
+        assertEquals(Integer.valueOf(2), map.get("BB"));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import ast.nodes.BinOpNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TokenNode;
+import ast.opt.PassManager;
+import lexer.Token;
+import lexer.TokenType;
+import parser.MFLParser;
+
+public class IterativeTests extends LangTest
+{
+    // Deeper than the default Java stack allows the recursive evaluator.
+    private static final int DEPTH = 200000;
+
+    // Deeper than the recursive parser and type checker allow on the same
+    // stack, but shallow enough that type inference stays quick.
+    private static final int NESTING = 2000;
+
+    /**
+     * Evaluate the tree with the iterative evaluator.
+     * 
+     * @param root the root of the tree.
+     * @return the result as a string.
+     * @throws Exception if the evaluation fails.
+     */
+    private String evaluate(SyntaxNode root) throws Exception
+    {
+        SyntaxTree ast = new SyntaxTree(root);
+        ast.setEvaluationMode(EvaluationMode.ITERATIVE);
+        return ast.evaluate().toString();
+    }
+
+    /**
+     * Parses and type checks the program, then evaluates it with the
+     * iterative evaluator.
+     * 
+     * @param program the program to run.
+     * @return the result and its type.
+     * @throws Exception if the program does not parse, type check or
+     *                   evaluate.
+     */
+    private String run(String program) throws Exception
+    {
+        return run(program, 0);
+    }
+
+    /**
+     * Parses and type checks the program, optimizes it at the given level,
+     * then evaluates it with the iterative evaluator.
+     * 
+     * @param program  the program to run.
+     * @param optLevel the optimization level.
+     * @return the result and its type.
+     * @throws Exception if the program does not parse, type check or
+     *                   evaluate.
+     */
+    private String run(String program, int optLevel) throws Exception
+    {
+        SyntaxTree ast = new MFLParser(program).parse();
+        String type = ast.getType();
+        ast.setOptimizationLevel(optLevel);
+        ast.optimize();
+        ast.setEvaluationMode(EvaluationMode.ITERATIVE);
+        return ast.evaluate() + " : " + type;
+    }
+
+    /**
+     * Checks that the program runs to the expected result both as written
+     * and fully optimized.
+     * 
+     * @param name     the name of the check.
+     * @param expected the expected result and type.
+     * @param program  the program to run.
+     * @throws Exception if the program does not parse, type check or
+     *                   evaluate.
+     */
+    private void check(String name, String expected, String program)
+            throws Exception
+    {
+        assertEquals(name, expected, run(program));
+        assertEquals(name + " optimized", expected,
+                run(program, PassManager.MAX_LEVEL));
+    }
+
+    /**
+     * Nests the expression inside {@code depth} copies of the prefix and
+     * suffix.
+     * 
+     * @param prefix the text before the expression.
+     * @param expr   the innermost expression.
+     * @param suffix the text after the expression.
+     * @param depth  the number of times to nest.
+     * @return the nested expression.
+     */
+    private String nest(String prefix, String expr, String suffix, int depth)
+    {
+        return prefix.repeat(depth) + expr + suffix.repeat(depth);
+    }
+
+    /**
+     * Builds a leaf node.
+     * 
+     * @param type  the type of the token.
+     * @param value the text of the token.
+     * @return the leaf.
+     */
+    private TokenNode leaf(TokenType type, String value)
+    {
+        return new TokenNode(new Token(type, value), 1);
+    }
+
+    @Test
+    public void statements()
+    {
+        runEvalTest("arith", "3 - 5 + 6 * 2 / 3 mod 3;", "-1",
+                EvaluationMode.ITERATIVE);
+        runEvalTest("scopes", "let x := 5 in (let x := 3 in x * 2) + x;", "11",
+                EvaluationMode.ITERATIVE);
+        runEvalTest("vals", "val x := [1, 2];\nval y := tl(x) ++ x;\nlen(y);",
+                "3", EvaluationMode.ITERATIVE);
+    }
+
+    @Test
+    public void deepOperators() throws Exception
+    {
+        SyntaxNode root = leaf(TokenType.INT, "0");
+        for (int i = 0; i < DEPTH; i++)
+            root = new BinOpNode(leaf(TokenType.INT, "1"), TokenType.ADD, root,
+                    1);
+        assertEquals("deepOperators", Integer.toString(DEPTH),
+                evaluate(root));
+    }
+
+    @Test
+    public void deepLets() throws Exception
+    {
+        Token x = new Token(TokenType.ID, "x");
+        SyntaxNode root = leaf(TokenType.ID, "x");
+        for (int i = 0; i < DEPTH; i++)
+            root = new LetNode(x, new BinOpNode(leaf(TokenType.ID, "x"),
+                    TokenType.ADD, leaf(TokenType.INT, "1"), 1), root, 1);
+        root = new LetNode(x, leaf(TokenType.INT, "0"), root, 1);
+        assertEquals("deepLets", Integer.toString(DEPTH), evaluate(root));
+    }
+
+    @Test
+    public void deepLists() throws Exception
+    {
+        SyntaxNode root = leaf(TokenType.INT, "7");
+        for (int i = 0; i < DEPTH; i++)
+        {
+            LinkedList<SyntaxNode> elems = new LinkedList<>();
+            elems.add(root);
+            root = new HeadNode(new ListNode(elems, 1), 1);
+        }
+        assertEquals("deepLists", "7", evaluate(root));
+    }
+
+    @Test
+    public void parsedChain() throws Exception
+    {
+        assertEquals("parsedChain", DEPTH + " : int",
+                run("0" + " + 1".repeat(DEPTH) + ";"));
+    }
+
+    @Test
+    public void parsedNesting() throws Exception
+    {
+        check("parens", "7 : int", nest("(", "7", ")", NESTING) + ";");
+        check("right", NESTING + " : int",
+                nest("1 + (", "0", ")", NESTING) + ";");
+        check("hd", "7 : int", nest("hd([", "7", "])", NESTING) + ";");
+        check("tl", "[7] : [ int ]",
+                nest("tl(", "[7]", " ++ [7])", NESTING) + ";");
+        check("len", "1 : int", nest("len([", "7", "])", NESTING) + ";");
+        check("neg", "7 : int", nest("-", "7", "", NESTING) + ";");
+        check("not", "true : bool", nest("not ", "true", "", NESTING) + ";");
+    }
+
+    @Test
+    public void parsedLets() throws Exception
+    {
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < NESTING; i++)
+            program.append("let x" + i + " := " + i + " in ");
+        program.append("x0 + x" + (NESTING - 1) + ";");
+        check("parsedLets", (NESTING - 1) + " : int", program.toString());
+    }
+}
@@ -16,27 +16,86 @@
  */
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.runners.Parameterized.Parameters;
 
 import ast.EvaluationException;
+import ast.EvaluationMode;
 import ast.SyntaxTree;
 import ast.typesystem.TypeException;
 import parser.ParseException;
 import parser.MFLParser;
 
 /**
- * A super class for all language tests.
+ * A super class for all language tests. The tests of a suite are evaluated
+ * in the mode the suite is constructed with, so a suite can be run under
+ * each of the {@link #modes} by the parameterized runner.
  */
 public class LangTest {
-    
+
+    private final EvaluationMode mode; // The mode the tests evaluate in.
+
+    /**
+     * Constructs a suite that evaluates with the tree walking evaluator.
+     */
+    public LangTest()
+    {
+        this(EvaluationMode.TREE);
+    }
+
     /**
-     * Evaluate the expression and return the result as a string or throw and
-     * exception if it does not succeed.
+     * Constructs a suite that evaluates in the given mode.
+     * 
+     * @param mode the evaluation mode to use.
+     */
+    public LangTest(EvaluationMode mode)
+    {
+        this.mode = mode;
+    }
+
+    /**
+     * The modes a parameterized suite is run under: the tree walking
+     * evaluator and the virtual machine.
+     * 
+     * @return the evaluation modes.
+     */
+    @Parameters(name = "{0}")
+    public static Collection<EvaluationMode> modes()
+    {
+        return Arrays.asList(EvaluationMode.TREE, EvaluationMode.BYTECODE);
+    }
+
+    /**
+     * Evaluate the expression in the mode of the suite and return the result
+     * as a string or throw and exception if it does not succeed.
      * 
      * @param name      the name of the test.
      * @param statement the statement to evaluate.
      * @param expected  the expected output of the test.
      */
     public void runEvalTest(String name, String statement, String expected)
+    {
+        runEvalTest(name, statement, expected, mode);
+    }
+
+    /**
+     * Evaluate the expression using the given evaluation mode and return the
+     * result as a string or throw and exception if it does not succeed. In
+     * bytecode mode the statement is type checked first, as the compiler
+     * relies on the inferred types, and must compile, so that the test never
+     * silently falls back to the tree walking evaluator.
+     * 
+     * @param name      the name of the test.
+     * @param statement the statement to evaluate.
+     * @param expected  the expected output of the test.
+     * @param mode      the evaluation mode to use.
+     */
+    public void runEvalTest(String name, String statement, String expected,
+            EvaluationMode mode)
     {
         MFLParser p = new MFLParser(statement);
         SyntaxTree ast = null;
@@ -47,6 +106,20 @@ public class LangTest {
         }
         Object res = null;
 
+        if (mode == EvaluationMode.BYTECODE)
+        {
+            try
+            {
+                ast.getType();
+            }
+            catch (TypeException ex)
+            {
+                assertFalse(name + ": Unexpected type error " + ex, true);
+            }
+            assertNotNull(name + ": Not compiled.", ast.compile());
+        }
+
+        ast.setEvaluationMode(mode);
         try
         {
             res = ast.evaluate();
@@ -0,0 +1,78 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import parser.MFLParser;
+
+public class LazyTests extends LangTest
+{
+    /**
+     * Evaluate the statement using call-by-need bindings.
+     * 
+     * @param name      the name of the test.
+     * @param statement the statement to evaluate.
+     * @param expected  the expected output of the test.
+     */
+    private void runLazyTest(String name, String statement, String expected)
+    {
+        runEvalTest(name, statement, expected, EvaluationMode.LAZY);
+    }
+
+    @Test
+    public void unusedBindings()
+    {
+        runLazyTest("unusedLet", "let x := hd(tl([1])) in 5;", "5");
+        runLazyTest("unusedVal", "val x := hd(tl([1]));\n2 * 3;", "6");
+    }
+
+    @Test
+    public void sharedBindings()
+    {
+        runLazyTest("reuse", "let x := 3 * 4 in x + x * x;", "156");
+        runLazyTest("shadowScope", "let x := 5 in (let x := 3 in x * 2) + x;",
+                "11");
+        runLazyTest("chained", "let x := 2 in let y := x * 3 in y + x;", "8");
+    }
+
+    @Test
+    public void nestedInitializer()
+    {
+        // Forcing x evaluates a let that must not disturb the binding of y.
+        runLazyTest("nestedInit",
+                "let x := (let t := 2 in t * t) in let y := 5 in x + y;", "9");
+        runLazyTest("listInit", "let xs := [1, 2] ++ [3] in len(xs) + hd(xs);",
+                "4");
+    }
+
+    @Test
+    public void replGlobals() throws Exception
+    {
+        SyntaxTree first = new MFLParser("val x := let a := 4 in a * a;")
+                .parse();
+        first.setEvaluationMode(EvaluationMode.LAZY);
+        first.evaluate();
+
+        SyntaxTree second = new MFLParser("x + 1;").parse();
+        second.setEvaluationMode(EvaluationMode.LAZY);
+        second.setEnvironment(first.getEnvironment());
+        assertEquals("replGlobals", "17", second.evaluate().toString());
+    }
+}
@@ -16,9 +16,24 @@
  *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import ast.EvaluationMode;
+
+@RunWith(Parameterized.class)
 public class ListTests extends LangTest
 {
+    /**
+     * Constructs the suite for one of the evaluation modes.
+     * 
+     * @param mode the evaluation mode to use.
+     */
+    public ListTests(EvaluationMode mode)
+    {
+        super(mode);
+    }
+
     /*
      * Test the simple list construction.
      */
@@ -208,4 +223,124 @@ public class ListTests extends LangTest
         runEvalTest("nestedTlTest", "tl(tl([3, 4, 5]));",
                 "[5]");
     }
+
+    @Test
+    public void nestedConcatTest()
+    {
+        // The inner lists are built by different operations.
+        String program = "let xs := [1, 2] in [tl(xs)] ++ [xs];";
+        runTypeTest("nestedConcatTest", program, "[ [ int ] ]");
+        runEvalTest("nestedConcatTest", program, "[[2], [1, 2]]");
+        runEvalTest("nestedConcatTest", program, "[[2], [1, 2]]",
+                EvaluationMode.BYTECODE);
+        runEvalTest("nestedListTest", "let xs := [1, 2] in [tl(xs), xs];",
+                "[[2], [1, 2]]");
+    }
+
+    @Test
+    public void rangeTest()
+    {
+        runTypeTest("rangeTest", "[1..5];", "[ int ]");
+        runEvalTest("rangeTest", "[1..5];", "[1, 2, 3, 4, 5]");
+        runTypeTest("stepRangeTest", "[1, 3..10];", "[ int ]");
+        runEvalTest("stepRangeTest", "[1, 3..10];", "[1, 3, 5, 7, 9]");
+        runEvalTest("downRangeTest", "[10, 7..1];", "[10, 7, 4, 1]");
+        runEvalTest("emptyRangeTest", "[5..1];", "[]");
+        runEvalTest("realRangeTest", "[1.5, 2.];", "[1.5, 2.0]");
+
+        // A range is never materialized by hd, tl or len.
+        String program = "let n := 100000000 in "
+                + "hd(tl([1..n])) + len([0, 2..n] ++ [n..n + 1]);";
+        for (EvaluationMode mode : EvaluationMode.values())
+            runEvalTest("bigRangeTest " + mode, program, "50000005", mode);
+    }
+
+    @Test
+    public void aggregateTest()
+    {
+        runTypeTest("sumTypeTest", "sum([1, 2]);", "int");
+        runTypeTest("avgTypeTest", "avg([1, 2]);", "real");
+        runTypeTest("dotTypeTest", "dot([1.5], [2.0]);", "real");
+        runTypeTest("countTypeTest", "count([true], false);", "int");
+
+        String program = "let xs := [1..10] ++ [-4, 7] in "
+                + "sum(xs) + max(xs) * 100 + min(xs) * 1000 + count(xs, 7) "
+                + "+ dot(xs, xs) + len([avg(xs)]);";
+        String reals = "let ys := [1.5, -2.5, 4.0] in "
+                + "sum(ys) + max(ys) + min(ys) + dot(ys, ys) + avg(ys);";
+        for (EvaluationMode mode : EvaluationMode.values())
+        {
+            runEvalTest("aggregateTest " + mode, program, "-2489", mode);
+            runEvalTest("realAggregateTest " + mode, reals, "30.0", mode);
+        }
+
+        // Summing a large range does not recurse through tl, and the sum
+        // wraps like addition while the average does not.
+        runEvalTest("bigSumTest", "sum([1..100000]);", "705082704");
+        runEvalTest("bigAvgTest", "avg([1..100000]);", "50000.5");
+
+        // The names are not reserved, so programs that use them as values
+        // still parse. A name is only a call when arguments follow it.
+        String names = "val sum := 3;\nval count := [1, 2];\n"
+                + "let max := sum + 1 in max + sum(count) + min(count);";
+        runTypeTest("aggregateNamesTypeTest", names, "int");
+        runEvalTest("aggregateNamesTest", names, "8");
+    }
+
+    @Test
+    public void sortTest()
+    {
+        runTypeTest("sortTypeTest", "sort([true, false]);", "[ bool ]");
+        runTypeTest("distinctTypeTest", "distinct([[1], [2]]);",
+                "[ [ int ] ]");
+        runTypeTest("indexOfTypeTest", "indexOf([1.5], 2.5);", "int");
+
+        String program = "let xs := [3, -1, 3, 7, -1, 0] in "
+                + "sort(xs) ++ sortDesc(xs) ++ distinct(xs) "
+                + "++ [indexOf(xs, 7), indexOf(xs, 5)];";
+        String expected = "[-1, -1, 0, 3, 3, 7, 7, 3, 3, 0, -1, -1, "
+                + "3, -1, 7, 0, 3, -1]";
+        for (EvaluationMode mode : EvaluationMode.values())
+            runEvalTest("sortTest " + mode, program, expected, mode);
+
+        runEvalTest("realSortTest", "sortDesc([2.5, -1.0, 2.5]) ++ "
+                + "distinct([2.5, -1.0, 2.5]);", "[2.5, 2.5, -1.0, 2.5, -1.0]");
+        runEvalTest("boolSortTest", "sort([true, false, true]) ++ "
+                + "sortDesc([false, true]);",
+                "[false, true, true, true, false]");
+
+        // A range is sorted without being materialized.
+        runEvalTest("rangeSortTest", "let r := sortDesc([1..100000000]) in "
+                + "hd(r) + indexOf(r, 1);", "199999999");
+
+        // The names are not reserved either.
+        String names = "val sort := [2, 1];\nval indexOf := 1;\n"
+                + "let distinct := sort(sort) in "
+                + "hd(distinct) + indexOf(sortDesc(sort), indexOf);";
+        runTypeTest("sortNamesTypeTest", names, "int");
+        runEvalTest("sortNamesTest", names, "2");
+    }
+
+    @Test
+    public void elementwiseTest()
+    {
+        runTypeTest("listAddTypeTest", "[1, 2] + [3, 4];", "[ int ]");
+        runTypeTest("scaleTypeTest", "2.0 * [1.5];", "[ real ]");
+        runTypeTest("emptyScaleTypeTest", "[] - 1;", "[ int ]");
+
+        String program = "let xs := [1..4] in let ys := [10, 20, 30, 40] in "
+                + "(xs + ys) ++ (ys - xs) ++ xs * 3 ++ 100 / ys ++ ([-1] - 1);";
+        String expected = "[11, 22, 33, 44, 9, 18, 27, 36, 3, 6, 9, 12, "
+                + "10, 5, 3, 2, -2]";
+        String reals = "let v := [1.5, -2.0] in v * v + 0.5 - [1.0, 1.0];";
+        for (EvaluationMode mode : EvaluationMode.values())
+        {
+            runEvalTest("elementwiseTest " + mode, program, expected, mode);
+            runEvalTest("realElementwiseTest " + mode, reals, "[1.75, 3.5]",
+                    mode);
+        }
+
+        runEvalTest("elementwiseSumTest", "sum([1..100000] * 2 - [1..100000]) "
+                + "mod 1000;", "704");
+    }
 }
@@ -0,0 +1,472 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import ast.lists.Aggregates;
+import ast.lists.BoolList;
+import ast.lists.ConsList;
+import ast.lists.Elementwise;
+import ast.lists.IntList;
+import ast.lists.ListValue;
+import ast.lists.PrimitiveList;
+import ast.lists.RangeList;
+import ast.lists.RealList;
+import ast.lists.Rope;
+import ast.lists.Sorting;
+import parser.MFLParser;
+
+public class ListValueTests extends LangTest
+{
+    @Test
+    public void consListShares()
+    {
+        ConsList list = ConsList.of(List.of(1, 2, 3));
+        assertEquals("[1, 2, 3]", list.toString());
+        assertEquals(3, list.size());
+        assertEquals(1, list.head());
+        assertSame(list.tail(), list.drop(1));
+        assertEquals(2, list.tail().size());
+
+        ConsList right = ConsList.of(List.of(4, 5));
+        ListValue both = list.concat(right);
+        assertEquals("[1, 2, 3, 4, 5]", both.toString());
+        assertSame(right, both.drop(3));
+        assertSame(right, ConsList.EMPTY.concat(right));
+    }
+
+    @Test
+    public void repeatedTails()
+    {
+        // Each tail takes constant time, so a long walk is linear.
+        Integer[] values = new Integer[1000000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        ListValue list = ConsList.of(values, 0, values.length);
+        long sum = 0;
+        while (!list.isEmpty())
+        {
+            sum += (Integer) list.head();
+            list = list.tail();
+        }
+        assertEquals(499999500000L, sum);
+
+        runEvalTest("tlChain", "let xs := [1, 2, 3, 4] in "
+                + "hd(tl(tl(xs))) + len(tl(xs));", "6");
+    }
+
+    @Test
+    public void ropeFromFragments()
+    {
+        // Appending and prepending fragments one at a time stays fast.
+        ListValue list = ConsList.EMPTY;
+        ArrayList<Object> expected = new ArrayList<>();
+        for (int i = 199999; i >= 0; i -= 2)
+            expected.addAll(List.of(i, -i));
+        for (int i = 0; i < 200000; i++)
+        {
+            ListValue fragment = ConsList.of(List.of(i, -i));
+            if (i % 2 == 0)
+            {
+                list = list.concat(fragment);
+                expected.addAll(fragment);
+            }
+            else
+                list = fragment.concat(list);
+        }
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i += 997)
+            assertEquals(expected.get(i), list.get(i));
+        assertEquals(expected, new ArrayList<>(list));
+    }
+
+    @Test
+    public void ropeSplits()
+    {
+        Random random = new Random(42);
+        ListValue list = ConsList.EMPTY;
+        for (int i = 0; i < 300; i++)
+            list = list.concat(ConsList.of(List.of(i, i, i, i, i, i, i, i,
+                    i, i, i, i, i, i, i, i, i, i, i, i, i, i, i, i, i, i, i,
+                    i, i, i, i, i, i)));
+        assertTrue("rope", list instanceof Rope);
+        List<Object> copy = new ArrayList<>(list);
+
+        for (int i = 0; i < 200; i++)
+        {
+            int at = random.nextInt(list.size() + 1);
+            assertEquals("take " + at, copy.subList(0, at), list.take(at));
+            assertEquals("drop " + at, copy.subList(at, copy.size()),
+                    list.drop(at));
+            assertEquals("join " + at, copy,
+                    Rope.join(list.take(at), list.drop(at)));
+        }
+        assertEquals(copy.get(1), list.tail().head());
+    }
+
+    /**
+     * Type checks and evaluates a program.
+     * 
+     * @param program the program.
+     * @param mode    the evaluation mode.
+     * @return the value of the program.
+     * @throws Exception if the program can not be evaluated.
+     */
+    private Object evaluate(String program, EvaluationMode mode)
+            throws Exception
+    {
+        SyntaxTree ast = new MFLParser(program).parse();
+        assertTrue("type check", ast.typeCheck());
+        ast.setEvaluationMode(mode);
+        return ast.evaluate();
+    }
+
+    @Test
+    public void primitiveLists() throws Exception
+    {
+        for (EvaluationMode mode : List.of(EvaluationMode.TREE,
+                EvaluationMode.BYTECODE, EvaluationMode.ITERATIVE))
+        {
+            Object ints = evaluate("let x := 3 in [x, 1, 2];", mode);
+            assertTrue(mode + " ints", ints instanceof IntList);
+            assertEquals(mode + " ints", List.of(3, 1, 2), ints);
+
+            Object reals = evaluate("let x := 1.5 in tl([x, 2.5, x]);", mode);
+            assertTrue(mode + " reals", reals instanceof RealList);
+            assertEquals(mode + " reals", "[2.5, 1.5]", reals.toString());
+
+            Object bools = evaluate("let b := true in [b, false] ++ [b];",
+                    mode);
+            assertTrue(mode + " bools", bools instanceof BoolList);
+            assertEquals(mode + " bools", "[true, false, true]",
+                    bools.toString());
+
+            Object nested = evaluate("let x := 1 in [[x], [2]];", mode);
+            assertTrue(mode + " nested", nested instanceof ConsList);
+        }
+
+        runEvalTest("mixedConcat", "let xs := [1, 2] in hd(tl(xs ++ [3]));",
+                "2");
+    }
+
+    @Test
+    public void primitiveListOperations()
+    {
+        ArrayList<Object> bools = new ArrayList<>();
+        ArrayList<Object> ints = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            bools.add(i % 3 == 0);
+            ints.add(i * i);
+        }
+
+        // The bits of a bool list cross words, and its tails share them.
+        ListValue list = ListValue.copyOf(bools);
+        assertTrue("bool list", list instanceof BoolList);
+        assertEquals(bools, list);
+        assertEquals(bools.subList(65, 1000), list.drop(65));
+        assertEquals(bools.subList(3, 70), list.drop(3).take(67));
+
+        // Joining unboxed lists keeps the elements unboxed.
+        ListValue left = ListValue.copyOf(ints.subList(0, 10));
+        ListValue right = ListValue.copyOf(ints.subList(10, 20));
+        assertTrue("flat join", left.concat(right) instanceof IntList);
+        assertEquals(ints.subList(0, 20), left.concat(right));
+
+        ListValue all = ListValue.copyOf(ints);
+        ListValue joined = all.drop(500).concat(all.take(500));
+        assertEquals(500 * 500, joined.head());
+        assertEquals(499 * 499, ((IntList) joined.drop(999)).getInt(0));
+        assertEquals(ints.subList(0, 500), joined.drop(500));
+        assertEquals(List.of(1.0, 2.0), ListValue.copyOf(List.of(1.0, 2.0)));
+    }
+
+    @Test
+    public void offHeapLists() throws Exception
+    {
+        int threshold = PrimitiveList.getOffHeapThreshold();
+        PrimitiveList.setOffHeapThreshold(4);
+        try
+        {
+            Object ints = evaluate("let x := 3 in [x, 1, 2, 5, 8];",
+                    EvaluationMode.TREE);
+            assertTrue("ints", ((PrimitiveList) ints).isOffHeap());
+            assertEquals("[3, 1, 2, 5, 8]", ints.toString());
+
+            ListValue reals = ListValue.copyOf(
+                    List.of(1.5, 2.5, 3.5, 4.5, 5.5));
+            assertTrue("reals", ((PrimitiveList) reals).isOffHeap());
+            assertTrue("tail", ((PrimitiveList) reals.tail()).isOffHeap());
+            assertEquals(List.of(2.5, 3.5), reals.drop(1).take(2));
+            assertEquals(List.of(4.5, 5.5, 1.5),
+                    reals.drop(3).concat(reals.take(1)));
+
+            // Short lists stay on the heap.
+            assertFalse("short", ((PrimitiveList) ListValue.copyOf(
+                    List.of(1, 2))).isOffHeap());
+            runEvalTest("offHeap", "let xs := [1, 2, 3, 4, 5, 6] in "
+                    + "hd(tl(xs)) + len(tl(xs) ++ xs);", "13");
+        }
+        finally
+        {
+            PrimitiveList.setOffHeapThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void sliceCompaction()
+    {
+        int[] values = new int[1 << 16];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+
+        // Tails share the array until they use little of it.
+        PrimitiveList list = IntList.of(values);
+        long sum = 0;
+        int copies = 0;
+        while (!list.isEmpty())
+        {
+            long capacity = list.getCapacity();
+            assertTrue("pinned at " + list.size(),
+                    capacity < PrimitiveList.COMPACT_MIN
+                            || capacity <= 4L * list.size());
+            sum += (Integer) list.head();
+            list = (PrimitiveList) list.tail();
+            if (list.getCapacity() != capacity)
+                copies++;
+        }
+        assertEquals((long) values.length * (values.length - 1) / 2, sum);
+        assertTrue("copies " + copies, copies <= 6);
+
+        ListValue all = IntList.of(values);
+        assertEquals(values.length,
+                ((PrimitiveList) all.tail()).getCapacity());
+        assertEquals(10,
+                ((PrimitiveList) all.drop(100).take(10)).getCapacity());
+    }
+
+    @Test
+    public void rangeLists()
+    {
+        RangeList range = RangeList.of(3, 4, 1000000);
+        assertEquals(250000, range.size());
+        assertEquals(3, range.head());
+        assertEquals(7, range.tail().head());
+        assertEquals(999999, range.getInt(249999));
+        assertEquals(List.of(11, 15), range.drop(2).take(2));
+        assertEquals(List.of(), RangeList.of(5, 1, 4));
+
+        // Ranges that continue one another join into a single range.
+        ListValue joined = range.take(10).concat(range.drop(10));
+        assertTrue("joined", joined instanceof RangeList);
+        assertEquals(range, joined);
+        ListValue mixed = range.take(40).concat(ListValue.copyOf(
+                List.of(1, 2)));
+        assertEquals(42, mixed.size());
+        assertEquals(2, mixed.get(41));
+
+        try
+        {
+            RangeList.of(1, 0, 5);
+            fail("zero step");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // A zero step would give an infinite range.
+        }
+    }
+
+    @Test
+    public void literalListsPooled() throws Exception
+    {
+        for (EvaluationMode mode : List.of(EvaluationMode.TREE,
+                EvaluationMode.BYTECODE, EvaluationMode.ITERATIVE))
+        {
+            SyntaxTree first = new MFLParser("[[1, 2], [3]];").parse();
+            first.setEvaluationMode(mode);
+            Object value = first.evaluate();
+            assertSame(value, first.evaluate());
+
+            // Equal literals in a program share the value.
+            SyntaxTree same = new MFLParser("[[1, 2], [1, 2]];").parse();
+            same.setEvaluationMode(mode);
+            List<?> pair = (List<?>) same.evaluate();
+            assertSame(pair.get(0), pair.get(1));
+
+            // A later line has its own pool, so the pool does not grow
+            // with every line of interactive mode.
+            SyntaxTree second = new MFLParser("[[1, 2], [3]];").parse();
+            second.setEvaluationMode(mode);
+            second.setEnvironment(first.getEnvironment());
+            Object again = second.evaluate();
+            assertEquals(value, again);
+            assertTrue(mode + " per program", value != again);
+            assertEquals("[[1, 2], [3]]", value.toString());
+
+            // Lists with computed elements are built every time.
+            SyntaxTree computed = new MFLParser("let x := 1 in [x];").parse();
+            computed.setEvaluationMode(mode);
+            assertTrue(mode + " computed",
+                    computed.evaluate() != computed.evaluate());
+        }
+    }
+
+    @Test
+    public void aggregateKernels()
+    {
+        int[] values = new int[10000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i % 7 - 3;
+
+        // The runs of a rope of different leaves need not line up.
+        ListValue ints = IntList.of(values);
+        ListValue mixed = RangeList.of(-3, 1, 3).concat(ints.drop(7))
+                .concat(ConsList.of(List.of(5, 6)));
+        ListValue other = ints.concat(ints.take(2));
+        long expected = 0;
+        for (int i = 0; i < other.size(); i++)
+            expected += (Integer) mixed.get(i) * (Integer) other.get(i);
+        assertEquals(expected, Aggregates.dotInt(mixed, other));
+        assertEquals(Aggregates.sumInt(ints) + 11, Aggregates.sumInt(mixed));
+        assertEquals(6, Aggregates.extremeInt(mixed, true));
+        assertEquals(-3, Aggregates.extremeInt(mixed, false));
+        assertEquals(1428, Aggregates.count(mixed, 3));
+
+        double[] reals = { 0.5, -1.5, 2.5, 8.0 };
+        ListValue real = RealList.of(reals).concat(ListValue.copyOf(
+                List.of(1.0)));
+        assertEquals(10.5, Aggregates.sumReal(real), 0.0);
+        assertEquals(2.1, Aggregates.averageReal(real), 1e-12);
+        assertEquals(-1.5, Aggregates.extremeReal(real, false), 0.0);
+        assertEquals(1, Aggregates.count(real, 2.5));
+
+        // Reals count as equal exactly when = holds.
+        ListValue signed = RealList.of(new double[] { 0.0, -0.0, Double.NaN,
+                Double.NaN });
+        assertEquals(1, Aggregates.count(signed, 0.0));
+        assertEquals(1, Aggregates.count(signed, -0.0));
+        assertEquals(2, Aggregates.count(signed, Double.NaN));
+        assertEquals(2, Aggregates.count(ListValue.copyOf(
+                List.of(true, false, true)), true));
+
+        try
+        {
+            Aggregates.extremeInt(ConsList.EMPTY, true);
+            fail("empty max");
+        }
+        catch (NoSuchElementException ex)
+        {
+            // The empty list has no greatest element.
+        }
+    }
+
+    @Test
+    public void sortingKernels()
+    {
+        Random random = new Random(42);
+        int[] values = new int[3 * Sorting.PARALLEL_MIN];
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextInt(1000) - 500;
+
+        // Large lists are sorted in parallel, across the leaves of a rope.
+        ListValue list = IntList.of(values).concat(ConsList.of(List.of(
+                600, -600)));
+        ListValue sorted = Sorting.sort(list, false);
+        assertEquals(list.size(), sorted.size());
+        assertEquals(-600, sorted.head());
+        assertEquals(600, sorted.get(sorted.size() - 1));
+        for (int i = 1; i < sorted.size(); i++)
+            assertTrue("sorted at " + i, (Integer) sorted.get(i - 1)
+                    <= (Integer) sorted.get(i));
+        assertEquals(600, Sorting.sort(list, true).head());
+
+        // Distinct keeps the first occurrence of each value in order.
+        ListValue distinct = Sorting.distinct(list);
+        assertEquals(1002, distinct.size());
+        assertEquals(values[0], distinct.head());
+        assertEquals(-600, distinct.get(1001));
+        assertEquals(list.size() - 1, Sorting.indexOf(list, -600));
+        assertEquals(-1, Sorting.indexOf(list, 601));
+
+        ListValue reals = ListValue.copyOf(List.of(Double.NaN, 0.5,
+                Double.NaN, -2.0));
+        assertEquals(List.of(-2.0, 0.5, Double.NaN),
+                Sorting.distinct(Sorting.sort(reals, false)));
+        assertEquals(1, Sorting.indexOf(reals, 0.5));
+        assertEquals(0, Sorting.indexOf(reals, Double.NaN));
+
+        ListValue signed = RealList.of(new double[] { 0.0, -0.0 });
+        assertEquals(0, Sorting.indexOf(signed, 0.0));
+        assertEquals(1, Sorting.indexOf(signed, -0.0));
+
+        RangeList range = RangeList.of(10, 5, 30);
+        assertSame(range, Sorting.sort(range, false));
+        assertEquals(List.of(30, 25, 20, 15, 10), Sorting.sort(range, true));
+        assertEquals(3, Sorting.indexOf(range, 25));
+        assertEquals(-1, Sorting.indexOf(range, 26));
+        assertEquals(-1, Sorting.indexOf(range, 35));
+    }
+
+    @Test
+    public void elementwiseKernels()
+    {
+        int[] values = new int[10000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+
+        // The operands may be split into runs that do not line up.
+        ListValue ints = IntList.of(values);
+        ListValue range = RangeList.of(1, 1, 5000).concat(ints.take(5000));
+        ListValue sums = Elementwise.apply(Elementwise.Op.ADD, ints, range);
+        assertEquals(10000, sums.size());
+        assertEquals(1, sums.head());
+        assertEquals(9999 + 4999, sums.get(9999));
+
+        ListValue diffs = Elementwise.apply(Elementwise.Op.SUB, 7, ints);
+        assertEquals(-9992, diffs.get(9999));
+        assertEquals(List.of(0, 0, 1), Elementwise.apply(Elementwise.Op.DIV,
+                ints.take(3), 2));
+
+        ListValue reals = ListValue.copyOf(List.of(1.0, 4.0));
+        assertEquals(List.of(0.5, 0.125), Elementwise.apply(
+                Elementwise.Op.DIV, 0.5, reals));
+        assertEquals(List.of(1.0, 16.0), Elementwise.apply(
+                Elementwise.Op.MULT, reals, reals));
+
+        try
+        {
+            Elementwise.apply(Elementwise.Op.ADD, ints, ints.tail());
+            fail("lengths");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // Lists of different lengths can not be combined.
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ast.EvaluationException;
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import ast.nodes.BinOpNode;
+import ast.nodes.HeadNode;
+import ast.nodes.LetNode;
+import ast.nodes.ListAccessNode;
+import ast.nodes.ListNode;
+import ast.nodes.ProgNode;
+import ast.nodes.SyntaxNode;
+import ast.nodes.TailNode;
+import ast.nodes.TokenNode;
+import ast.opt.PassManager;
+import ast.opt.PassStatistics;
+import parser.MFLParser;
+
+public class OptimizerTests extends LangTest
+{
+    /**
+     * Parse, type check and optimize a program.
+     * 
+     * @param program the program.
+     * @return the optimized syntax tree.
+     * @throws Exception if the program does not parse.
+     */
+    private SyntaxTree optimize(String program) throws Exception
+    {
+        SyntaxTree ast = new MFLParser(program).parse();
+        assertTrue("type check", ast.typeCheck());
+        ast.optimize();
+        return ast;
+    }
+
+    /**
+     * Gets the last statement of an optimized program.
+     * 
+     * @param ast the syntax tree.
+     * @return the last statement.
+     */
+    private SyntaxNode last(SyntaxTree ast)
+    {
+        return ((ProgNode) ast.getRootNode()).getExprs().getLast();
+    }
+
+    /**
+     * Asserts a statement folds to a single literal token.
+     * 
+     * @param name    the name of the test.
+     * @param program the program.
+     * @param literal the expected literal.
+     * @throws Exception if the program can not be evaluated.
+     */
+    private void assertFolds(String name, String program, String literal)
+            throws Exception
+    {
+        SyntaxTree ast = optimize(program);
+        SyntaxNode node = last(ast);
+        assertTrue(name + ": not folded", node instanceof TokenNode);
+        assertEquals(name, literal, ((TokenNode) node).getToken().getValue());
+        assertEquals(name + ": value", literal, ast.evaluate().toString());
+    }
+
+    @Test
+    public void foldArithmetic() throws Exception
+    {
+        assertFolds("int", "len([1, 2, 3]) * 4;", "12");
+        assertFolds("real", "1.5 * 2.0 - -1.0;", "4.0");
+        assertFolds("relational", "3 < 4 and not (2.0 = 2.5);", "true");
+        assertFolds("lists", "hd(tl([1, 2] ++ [3]));", "2");
+    }
+
+    @Test
+    public void foldLists() throws Exception
+    {
+        SyntaxTree ast = optimize("tl([1, 2, 3]) ++ [4];");
+        assertTrue("list", last(ast) instanceof ListNode);
+        assertEquals("listValue", "[2, 3, 4]", ast.evaluate().toString());
+    }
+
+    @Test
+    public void propagateVals() throws Exception
+    {
+        assertFolds("val", "val k := 10;\nk + 1;", "11");
+        assertFolds("chain", "val k := 2 * 5;\nval j := k - 1;\nj * k;", "90");
+        assertFolds("list", "val xs := [1, 2];\nlen(xs ++ xs);", "4");
+    }
+
+    @Test
+    public void respectScopes() throws Exception
+    {
+        SyntaxTree ast = optimize("val k := 10;\nlet k := 2 in k + 1;");
+        assertEquals("shadowed", "3", ast.evaluate().toString());
+
+        ast = optimize("let y := 4 in y + 2 * 3;");
+        assertEquals("letBound", "10", ast.evaluate().toString());
+    }
+
+    @Test
+    public void keepFailures() throws Exception
+    {
+        SyntaxTree ast = optimize("hd(tl([1]));");
+        assertTrue("failure", last(ast) instanceof HeadNode);
+    }
+
+    @Test
+    public void shareSubexpressions() throws Exception
+    {
+        SyntaxTree ast = optimize(
+                "let xs := [1, 2, 3] in len(xs) + len(xs) * len(xs);");
+        LetNode let = (LetNode) last(ast);
+        LetNode temp = (LetNode) let.getExpr();
+        assertEquals("temp", "$t0", temp.getVar().getValue());
+        assertTrue("body", temp.getExpr() instanceof BinOpNode);
+        assertEquals("shared", "12", ast.evaluate().toString());
+
+        ast = optimize("let big := [1, 2, 3, 4] in "
+                + "hd(tl(tl(big))) + len(tl(tl(big)));");
+        assertEquals("lists", "5", ast.evaluate().toString());
+        assertTrue("listsShared",
+                ((LetNode) last(ast)).getExpr() instanceof LetNode);
+    }
+
+    @Test
+    public void shareRespectsScopes() throws Exception
+    {
+        // The two len(x) refer to different bindings.
+        SyntaxTree ast = optimize(
+                "let x := [1] in len(x) + (let x := [1, 2] in len(x));");
+        assertEquals("scopes", "3", ast.evaluate().toString());
+        assertTrue("notShared",
+                ((LetNode) last(ast)).getExpr() instanceof BinOpNode);
+    }
+
+    @Test
+    public void shareKeepsFailureOrder() throws Exception
+    {
+        // hd(ys) may fail and hd(xs) is evaluated first, so hd(ys) stays put.
+        SyntaxTree ast = optimize("let xs := tl([1]) in let ys := [2] in "
+                + "hd(xs) + hd(ys) + hd(ys);");
+        LetNode ys = (LetNode) ((LetNode) last(ast)).getExpr();
+        assertTrue("notHoisted", ys.getExpr() instanceof BinOpNode);
+    }
+
+    @Test
+    public void removeDeadLets() throws Exception
+    {
+        SyntaxTree ast = optimize("let x := [1, 2, 3] in 5;");
+        assertTrue("removed", last(ast) instanceof TokenNode);
+        assertEquals("count", 5, ast.getRemovedNodeCount());
+
+        ast = optimize("let a := [1] in let b := a in 7;");
+        assertTrue("chain", last(ast) instanceof TokenNode);
+
+        ast = optimize("let x := hd(tl([1])) in 5;");
+        assertTrue("mayFail", last(ast) instanceof LetNode);
+    }
+
+    @Test
+    public void removeDeadVals() throws Exception
+    {
+        String program = "val a := 1;\nval b := [1, 2];\nval c := b;\na + 1;";
+
+        SyntaxTree ast = optimize(program);
+        assertEquals("retained", 4,
+                ((ProgNode) ast.getRootNode()).getExprs().size());
+
+        ast = new MFLParser(program).parse();
+        assertTrue("type check", ast.typeCheck());
+        ast.setRetainGlobals(false);
+        ast.optimize();
+        assertEquals("removed", 1,
+                ((ProgNode) ast.getRootNode()).getExprs().size());
+        assertEquals("value", "2", ast.evaluate().toString());
+    }
+
+    /**
+     * Asserts the body of a single let simplifies to a node of some class
+     * without changing its type or value.
+     * 
+     * @param name    the name of the test.
+     * @param program the let expression.
+     * @param simpler the expected class of the simplified body.
+     * @param value   the expected value.
+     * @throws Exception if the program can not be evaluated.
+     */
+    private void assertSimplifies(String name, String program,
+            Class<?> simpler, String value) throws Exception
+    {
+        String type = new MFLParser(program).parse().getType();
+        SyntaxTree ast = optimize(program);
+        SyntaxNode body = ((LetNode) last(ast)).getExpr();
+        assertTrue(name + ": " + body.getClass(), simpler.isInstance(body));
+        assertEquals(name + ": type", type,
+                new SyntaxTree(ast.getRootNode()).getType());
+        assertEquals(name + ": value", value, ast.evaluate().toString());
+    }
+
+    @Test
+    public void simplifyIdentities() throws Exception
+    {
+        assertSimplifies("mult", "let x := 5 in 1 * x * 1 + 0;",
+                TokenNode.class, "5");
+        assertSimplifies("real", "let r := 2.5 in r / 1.0 - 0.0;",
+                TokenNode.class, "2.5");
+        assertSimplifies("not", "let b := true in not not (b and true);",
+                TokenNode.class, "true");
+        assertSimplifies("concat", "let xs := [1] in [] ++ xs ++ [];",
+                TokenNode.class, "[1]");
+
+        // -0.0 + 0.0 is 0.0, so the addition is kept.
+        assertSimplifies("negZero", "let r := -0.0 in r + 0.0;",
+                BinOpNode.class, "0.0");
+    }
+
+    @Test
+    public void simplifyLists() throws Exception
+    {
+        assertSimplifies("hd", "let x := 3 in hd([x, x + 1]);",
+                TokenNode.class, "3");
+        assertSimplifies("tl", "let x := 3 in tl([x, x * 2, x]);",
+                ListNode.class, "[6, 3]");
+        assertSimplifies("tlSingle", "let x := 3 in tl([x]);",
+                TailNode.class, "[]");
+        assertSimplifies("len", "let xs := [1, 2] in len(xs ++ [3, 4]);",
+                BinOpNode.class, "4");
+
+        SyntaxTree ast = optimize("let x := 3 in len([x, x * 2]);");
+        assertTrue("lenLiteral", last(ast) instanceof TokenNode);
+
+        // hd(xs) may fail, so it is not dropped.
+        ast = optimize("let xs := tl([1]) in hd([1, hd(xs)]);");
+        assertTrue("keepFailure",
+                ((LetNode) last(ast)).getExpr() instanceof HeadNode);
+    }
+
+    /**
+     * Asserts the innermost let body of a program is fused into a single
+     * list access with the same value in each evaluation mode.
+     * 
+     * @param name    the name of the test.
+     * @param program the program.
+     * @param value   the expected value.
+     * @throws Exception if the program can not be evaluated.
+     */
+    private void assertFuses(String name, String program, String value)
+            throws Exception
+    {
+        SyntaxTree ast = optimize(program);
+        SyntaxNode body = last(ast);
+        while (body instanceof LetNode let)
+            body = let.getExpr();
+        assertTrue(name + ": " + body.getClass(),
+                body instanceof ListAccessNode);
+        assertTrue(name + ": compiled", ast.compile() != null);
+
+        for (EvaluationMode mode : new EvaluationMode[] { EvaluationMode.TREE,
+                EvaluationMode.BYTECODE, EvaluationMode.ITERATIVE })
+        {
+            ast.setEvaluationMode(mode);
+            assertEquals(name + ": " + mode, value, ast.evaluate().toString());
+        }
+    }
+
+    @Test
+    public void fuseListOperations() throws Exception
+    {
+        String lists = "let a := [1, 2] in let b := [3, 4, 5] in ";
+
+        assertFuses("hd", lists + "hd(tl(tl(tl(a ++ b))));", "4");
+        assertFuses("len", lists + "len(tl(a ++ b));", "4");
+        assertFuses("tl", lists + "tl(tl(a) ++ tl(b));", "[4, 5]");
+        assertFuses("concat", lists + "a ++ b ++ a;", "[1, 2, 3, 4, 5, 1, 2]");
+        assertFuses("nested", lists + "hd(tl(tl(a ++ b)) ++ tl(a));", "3");
+
+        SyntaxTree ast = optimize("let a := [1, 2] in tl(a);");
+        assertTrue("single",
+                ((LetNode) last(ast)).getExpr() instanceof TailNode);
+    }
+
+    @Test
+    public void fuseKeepsFailures() throws Exception
+    {
+        String[] programs = { "let a := [1, 2] in hd(tl(tl(a)));",
+                "let a := [1, 2] in len(tl(tl(tl(a))));",
+                "let a := [1] in let b := [2] in hd(tl(tl(a ++ b)));",
+                "let a := [1] in let b := [2, 3] in tl(tl(tl(a)) ++ b);" };
+
+        for (String program : programs)
+            for (EvaluationMode mode : EvaluationMode.values())
+            {
+                SyntaxTree ast = optimize(program);
+                ast.setEvaluationMode(mode);
+                try
+                {
+                    ast.evaluate();
+                    assertTrue(program + " in " + mode, false);
+                }
+                catch (EvaluationException ex)
+                {
+                    // The chain fails as the operations it replaces do.
+                }
+            }
+    }
+
+    /**
+     * Parse, type check and optimize a program at an optimization level.
+     * 
+     * @param program the program.
+     * @param level   the optimization level.
+     * @return the optimized syntax tree.
+     * @throws Exception if the program does not parse.
+     */
+    private SyntaxTree optimize(String program, int level) throws Exception
+    {
+        SyntaxTree ast = new MFLParser(program).parse();
+        assertTrue("type check", ast.typeCheck());
+        ast.setOptimizationLevel(level);
+        ast.optimize();
+        return ast;
+    }
+
+    @Test
+    public void optimizationLevels() throws Exception
+    {
+        // Simplifying len([x, x]) exposes 2 - 1 to folding, and then x * 1
+        // to simplification.
+        String program = "let x := 5 in x * (len([x, x]) - 1);";
+
+        SyntaxTree ast = optimize(program, 0);
+        assertTrue("O0", ((LetNode) last(ast)).getExpr() instanceof BinOpNode);
+        assertTrue("O0 passes", ast.getPassManager().getPasses().isEmpty());
+        assertEquals("O0 value", "5", ast.evaluate().toString());
+
+        ast = optimize(program, 1);
+        assertEquals("O1 iterations", 1, ast.getPassManager().getIterations());
+        assertTrue("O1", ((LetNode) last(ast)).getExpr() instanceof BinOpNode);
+        assertEquals("O1 value", "5", ast.evaluate().toString());
+
+        ast = optimize(program, 2);
+        assertTrue("O2", ((LetNode) last(ast)).getExpr() instanceof TokenNode);
+        assertEquals("O2 value", "5", ast.evaluate().toString());
+        assertTrue("O2 iterations",
+                ast.getPassManager().getIterations() >= 3);
+    }
+
+    @Test
+    public void optimizationStatistics() throws Exception
+    {
+        SyntaxTree ast = optimize("let a := [1, 2] in hd(tl(tl(a ++ a)));",
+                PassManager.MAX_LEVEL);
+        String[] names = { "constant-folding", "algebraic-simplification",
+                "common-subexpressions", "list-fusion", "dead-bindings" };
+        PassManager passes = ast.getPassManager();
+
+        assertEquals("passes", names.length, passes.getStatistics().size());
+        for (int i = 0; i < names.length; i++)
+        {
+            PassStatistics stats = passes.getStatistics().get(i);
+            assertEquals("name", names[i], stats.getName());
+            assertEquals(names[i] + " runs", passes.getIterations(),
+                    stats.getRuns());
+            assertTrue(names[i] + " time", stats.getNanos() >= 0);
+        }
+        assertEquals("fused", 3, passes.getStatistics().get(3).getChanges());
+        assertEquals("value", "1", ast.evaluate().toString());
+    }
+
+    @Test
+    public void reoptimize() throws Exception
+    {
+        // Temporaries introduced by one optimization are not captured by
+        // those of the next.
+        SyntaxTree ast = optimize("let xs := [1, 2, 3] in "
+                + "len(xs) + len(xs) * (len(tl(xs)) + len(tl(xs)));");
+        ast.optimize();
+        assertEquals("value", "15", ast.evaluate().toString());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import ast.EvaluationException;
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import ast.nodes.ProgNode;
+import lexer.Token;
+import lexer.TokenType;
+import parser.MFLParser;
+
+public class ParallelTests extends LangTest
+{
+    /**
+     * Evaluate the statement in parallel, forking every subexpression.
+     * 
+     * @param statement the statement to evaluate.
+     * @return the result of the evaluation.
+     * @throws Exception if the statement fails to parse or evaluate.
+     */
+    private Object evaluate(String statement) throws Exception
+    {
+        SyntaxTree ast = new MFLParser(statement).parse();
+        ast.setEvaluationMode(EvaluationMode.PARALLEL);
+        ast.setForkThreshold(1);
+        return ast.evaluate();
+    }
+
+    /**
+     * Evaluate the failing statement in parallel, forking every
+     * subexpression, and capture the errors it shows.
+     * 
+     * @param statement the statement to evaluate.
+     * @return the errors shown.
+     * @throws Exception if the statement fails to parse.
+     */
+    private String failureOutput(String statement) throws Exception
+    {
+        PrintStream out = System.out;
+        ByteArrayOutputStream shown = new ByteArrayOutputStream();
+
+        System.setOut(new PrintStream(shown, true));
+        try
+        {
+            evaluate(statement);
+            assertTrue("failureOutput: expected an exception", false);
+        }
+        catch (EvaluationException ex)
+        {
+            // Expected, the statement fails.
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+        return shown.toString();
+    }
+
+    @Test
+    public void operands() throws Exception
+    {
+        assertEquals("arith", "-1", evaluate("3 - 5 + 6 * 2 / 3 mod 3;")
+                .toString());
+        assertEquals("letOperands", "11",
+                evaluate("(let x := 3 in x * 2) + (let y := 5 in y);")
+                        .toString());
+        assertEquals("concat", "[1, 2, 3]",
+                evaluate("[hd([1, 5])] ++ tl([6, 2, 3]);").toString());
+    }
+
+    @Test
+    public void lists() throws Exception
+    {
+        assertEquals("letElements", "[2, 9, 16]",
+                evaluate("let z := 2 in [let a := z in a, let b := 3 in b * b,"
+                        + " let c := 4 in c * c];").toString());
+
+        StringBuilder prog = new StringBuilder("len([0");
+        for (int i = 1; i < 5000; i++)
+            prog.append(", ").append(i).append(" * 2");
+        prog.append("]);");
+        assertEquals("wideList", "5000", evaluate(prog.toString()).toString());
+    }
+
+    @Test
+    public void statements() throws Exception
+    {
+        assertEquals("vals", "false",
+                evaluate("val x := 3 + 5 * 2;\nval y := 4 + x;\nx > y;")
+                        .toString());
+    }
+
+    @Test
+    public void independentVals() throws Exception
+    {
+        assertEquals("independent", "[3, 4, 12]",
+                evaluate("val a := 1 + 2;\nval b := 2 * 2;\n"
+                        + "val c := a * b;\n[a, b, c];").toString());
+        assertEquals("redefined", "6",
+                evaluate("val y := 2;\nval z := y + 1;\nz * y;").toString());
+    }
+
+    @Test
+    public void dependencyLevels() throws Exception
+    {
+        SyntaxTree ast = new MFLParser(
+                "val a := 1;\nval b := 2;\nval c := a + b;\nval d := 4;\nc;")
+                .parse();
+        ast.setEvaluationMode(EvaluationMode.PARALLEL);
+        ast.setForkThreshold(1);
+        assertEquals("levels", "3", ast.evaluate().toString());
+        assertEquals("depth", 3,
+                ((ProgNode) ast.getRootNode()).getSchedule().getDepth());
+    }
+
+    @Test
+    public void failedStatement() throws Exception
+    {
+        SyntaxTree ast = new MFLParser(
+                "val a := 1;\nval b := hd(tl([1]));\nval c := 3;\na;").parse();
+        ast.setEvaluationMode(EvaluationMode.PARALLEL);
+        ast.setForkThreshold(1);
+        try
+        {
+            ast.evaluate();
+            assertTrue("failedStatement: expected an exception", false);
+        }
+        catch (EvaluationException ex)
+        {
+            // Expected, only the definitions before the failure remain.
+        }
+        assertNotNull(ast.getEnvironment().lookup(
+                new Token(TokenType.ID, "a")));
+        assertNull(ast.getEnvironment().lookup(new Token(TokenType.ID, "c")));
+    }
+
+    @Test
+    public void earliestFailure() throws Exception
+    {
+        // Both b and c fail; the failure of b, first in program order, is
+        // reported whichever task finishes first.
+        SyntaxTree ast = new MFLParser("val a := 1;\nval b := 1 / 0;\n"
+                + "val c := hd(tl([1]));\nval d := 4;\na;").parse();
+        ast.setEvaluationMode(EvaluationMode.PARALLEL);
+        ast.setForkThreshold(1);
+        try
+        {
+            ast.evaluate();
+            assertTrue("earliestFailure: expected an exception", false);
+        }
+        catch (ArithmeticException ex)
+        {
+            // Expected, b divides by zero.
+        }
+        assertNotNull(ast.getEnvironment().lookup(
+                new Token(TokenType.ID, "a")));
+        assertNull(ast.getEnvironment().lookup(new Token(TokenType.ID, "d")));
+
+        try
+        {
+            evaluate("val b := hd(tl([1]));\nval c := 1 / 0;\nval d := 4;\n"
+                    + "d;");
+            assertTrue("earliestFailure: expected an exception", false);
+        }
+        catch (EvaluationException ex)
+        {
+            // Expected, b fails before c divides by zero.
+        }
+    }
+
+    @Test
+    public void failure() throws Exception
+    {
+        try
+        {
+            evaluate("(1 + 2) + hd(tl([1]));");
+            assertTrue("failure: expected an exception", false);
+        }
+        catch (EvaluationException ex)
+        {
+            // Expected, the failure in the forked operand is reported.
+        }
+    }
+
+    @Test
+    public void failureOrder() throws Exception
+    {
+        // Only the error of the earliest failure is shown, as when
+        // evaluating sequentially, whichever task finishes first.
+        String shown = "Error (line 1): Error: Lists of lengths 2 and 3 differ"
+                + " in length." + System.lineSeparator();
+        for (int i = 0; i < 20; i++)
+        {
+            assertEquals("operands", shown, failureOutput(
+                    "([1, 1] - [1, 2, 3]) ++ ([1] + [1, 2]);"));
+            assertEquals("elements", shown, failureOutput(
+                    "[[1, 1] - [1, 2, 3], [1] + [1, 2], [1] * [1, 2, 3, 4]];"));
+        }
+    }
+
+    @Test
+    public void statementFailureOrder() throws Exception
+    {
+        // Every statement fails; only the error of the first is shown, as
+        // when executing sequentially.
+        String shown = "Error (line 1): Error: Lists of lengths 2 and 3 differ"
+                + " in length." + System.lineSeparator();
+        for (int i = 0; i < 20; i++)
+            assertEquals("statements", shown, failureOutput(
+                    "val a := [1, 1] + [1, 2, 3];\nval b := [1] - [1, 2];\n"
+                            + "val c := [1] * [1, 2, 3, 4];\na;"));
+    }
+
+    @Test
+    public void defaultThreshold()
+    {
+        runEvalTest("defaultThreshold", "let x := 5 in [x, x + 1];", "[5, 6]",
+                EvaluationMode.PARALLEL);
+    }
+}
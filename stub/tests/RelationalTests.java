@@ -16,9 +16,24 @@
  *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import ast.EvaluationMode;
+
+@RunWith(Parameterized.class)
 public class RelationalTests extends LangTest
 {
+    /**
+     * Constructs the suite for one of the evaluation modes.
+     * 
+     * @param mode the evaluation mode to use.
+     */
+    public RelationalTests(EvaluationMode mode)
+    {
+        super(mode);
+    }
+
     /*
      * Tests for =.
      */
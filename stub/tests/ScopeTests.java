@@ -16,9 +16,24 @@
  *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
  */
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+import ast.EvaluationMode;
+
+@RunWith(Parameterized.class)
 public class ScopeTests extends LangTest
 {
+    /**
+     * Constructs the suite for one of the evaluation modes.
+     * 
+     * @param mode the evaluation mode to use.
+     */
+    public ScopeTests(EvaluationMode mode)
+    {
+        super(mode);
+    }
+
     @Test
     public void basicLet()
     {
@@ -57,4 +72,33 @@ public class ScopeTests extends LangTest
         runEvalTest("shadowLetValScope", "val x := 5;\nlet x := 3 in x * 2 + 5;",
                 "11");
     }
+
+    @Test
+    public void letBoundTail()
+    {
+        runTypeTest("letBoundTail", "let xs := tl([1, 2, 3]) in hd(xs);",
+                "int");
+        runEvalTest("letBoundTail", "let xs := tl([1, 2, 3]) in hd(xs);",
+                "2");
+    }
+
+    @Test
+    public void letInBoundExpr()
+    {
+        runTypeTest("letInBoundExpr",
+                "let x := (let y := 4 in y * y) in let y := x + 1 in x + y;",
+                "int");
+        runEvalTest("letInBoundExpr",
+                "let x := (let y := 4 in y * y) in let y := x + 1 in x + y;",
+                "33");
+    }
+
+    @Test
+    public void valInLetScope()
+    {
+        runTypeTest("valInLetScope",
+                "val x := 2;\nval y := let x := 10 in x + 1;\nx * y;", "int");
+        runEvalTest("valInLetScope",
+                "val x := 2;\nval y := let x := 10 in x + 1;\nx * y;", "22");
+    }
 }
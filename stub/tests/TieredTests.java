@@ -0,0 +1,130 @@
+/*
+ *   Copyright (C) 2022 -- 2025  Zachary A. Kissel
+ *
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ast.EvaluationMode;
+import ast.SyntaxTree;
+import ast.TierProfile;
+import environment.Environment;
+import parser.MFLParser;
+
+public class TieredTests extends LangTest
+{
+    /**
+     * Parse a statement for tiered execution.
+     * 
+     * @param statement the statement.
+     * @return the syntax tree.
+     * @throws Exception if the statement does not parse.
+     */
+    private SyntaxTree tiered(String statement) throws Exception
+    {
+        SyntaxTree ast = new MFLParser(statement).parse();
+        ast.setEvaluationMode(EvaluationMode.TIERED);
+        return ast;
+    }
+
+    @Test
+    public void coldTree() throws Exception
+    {
+        SyntaxTree ast = tiered("let x := 3 in x * 2 + hd([x]);");
+        assertEquals("cold", "9", ast.evaluate().toString());
+
+        TierProfile profile = ast.getTierProfile();
+        assertEquals("invocations", 1, profile.getInvocationCount());
+        assertEquals("visits", 10, profile.getNodeVisitCount());
+        assertFalse("promoted", profile.awaitPromotion());
+    }
+
+    @Test
+    public void hotTree() throws Exception
+    {
+        SyntaxTree ast = tiered("let x := [1, 2] ++ [3] in len(x) * hd(tl(x));");
+        ast.setTierThresholds(3, Long.MAX_VALUE);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals("interpreted", "6", ast.evaluate().toString());
+        assertTrue("promoted", ast.getTierProfile().awaitPromotion());
+
+        for (int i = 0; i < 3; i++)
+            assertEquals("compiled", "6", ast.evaluate().toString());
+        assertEquals("invocations", 3,
+                ast.getTierProfile().getInvocationCount());
+    }
+
+    @Test
+    public void visitThreshold() throws Exception
+    {
+        SyntaxTree ast = tiered("1 + 2 * 3;");
+        ast.setTierThresholds(Integer.MAX_VALUE, 5);
+
+        assertEquals("first", "7", ast.evaluate().toString());
+        assertTrue("promoted", ast.getTierProfile().awaitPromotion());
+        assertEquals("second", "7", ast.evaluate().toString());
+    }
+
+    @Test
+    public void uncompilable() throws Exception
+    {
+        // Mixing an int and a real is not well typed, so it stays interpreted.
+        SyntaxTree ast = tiered("1 + 2.5;");
+        ast.setTierThresholds(1, Long.MAX_VALUE);
+
+        assertEquals("first", "3.5", ast.evaluate().toString());
+        assertFalse("promoted", ast.getTierProfile().awaitPromotion());
+        assertEquals("second", "3.5", ast.evaluate().toString());
+    }
+
+    @Test
+    public void reparsed() throws Exception
+    {
+        // Interactive mode parses every line into a new tree that shares
+        // the environment of the earlier lines.
+        Environment env = new Environment();
+        SyntaxTree ast = null;
+        for (String line : new String[] { "val x := 3;", "x * x;", "x * x;",
+                "x * x;" })
+        {
+            ast = tiered(line);
+            ast.setEnvironment(env);
+            ast.setTierThresholds(3, Long.MAX_VALUE);
+            ast.evaluate();
+        }
+        assertTrue("promoted", ast.getTierProfile().awaitPromotion());
+
+        ast = tiered("x * x;");
+        ast.setEnvironment(env);
+        ast.setTierThresholds(3, Long.MAX_VALUE);
+        assertTrue("shared", ast.getTierProfile().getCompiled() != null);
+        assertEquals("compiled", "9", ast.evaluate().toString());
+
+        // Another environment has its own globals and its own profiles.
+        env = new Environment();
+        ast = tiered("val x := 1.5;");
+        ast.setEnvironment(env);
+        ast.evaluate();
+        ast = tiered("x * x;");
+        ast.setEnvironment(env);
+        ast.setTierThresholds(3, Long.MAX_VALUE);
+        assertTrue("separate", ast.getTierProfile().getCompiled() == null);
+        assertEquals("separate", "2.25", ast.evaluate().toString());
+    }
+}